@@ -0,0 +1,40 @@
+package com.eduai.config;
+
+import com.eduai.model.enums.AIRequestPriority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the asynchronous AI job queue.
+ */
+@Data
+@ConfigurationProperties(prefix = "ai-jobs")
+public class AIJobProperties {
+
+    private int concurrency = 4;
+
+    /**
+     * Submissions are rejected once this many jobs are waiting.
+     */
+    private int maxQueued = 1000;
+
+    /**
+     * A job interrupted by a restart this many times is failed instead of being run again.
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Workers renew the lease on their running jobs every third of this. A running job whose lease
+     * has not been renewed for this long is taken to belong to a dead instance and is re-queued.
+     */
+    private Duration lease = Duration.ofMinutes(2);
+
+    /**
+     * How often a job's event stream re-reads the job, to see changes made by another instance.
+     */
+    private Duration watchPollInterval = Duration.ofSeconds(2);
+
+    private AIRequestPriority priority = AIRequestPriority.INTERACTIVE;
+}
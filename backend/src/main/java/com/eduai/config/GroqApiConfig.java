@@ -1,11 +1,19 @@
 package com.eduai.config;
 
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
+@EnableConfigurationProperties({GroqCacheProperties.class, GroqRateLimitProperties.class, GroqResilienceProperties.class,
+        GroqHttpClientProperties.class, GroqRoutingProperties.class, GroqPromptProperties.class})
 public class GroqApiConfig {
 
     @Value("${groq.api.base-url}")
@@ -14,13 +22,43 @@ public class GroqApiConfig {
     @Value("${groq.api.key}")
     private String groqApiKey;
 
+    /**
+     * Dedicated pool for Groq so its connections are not shared with, or starved by, other clients.
+     * Pool gauges are published as {@code reactor.netty.connection.provider.*{name=groq}}.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider groqConnectionProvider(GroqHttpClientProperties properties) {
+        return ConnectionProvider.builder("groq")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(properties.getEvictInBackground())
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient groqWebClient() {
+    public HttpClient groqHttpClient(ConnectionProvider groqConnectionProvider, GroqHttpClientProperties properties) {
+        HttpClient httpClient = HttpClient.create(groqConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+                .keepAlive(properties.isKeepAlive())
+                .compress(properties.isCompress());
+        if (properties.isHttp2() && groqBaseUrl.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+        return httpClient;
+    }
+
+    @Bean
+    public WebClient groqWebClient(HttpClient groqHttpClient) {
         return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(groqHttpClient))
                 .baseUrl(groqBaseUrl)
                 .defaultHeader("Authorization", "Bearer " + groqApiKey)
                 .defaultHeader("Content-Type", "application/json")
                 .build();
     }
 }
-
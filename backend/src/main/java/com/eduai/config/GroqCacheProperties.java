@@ -0,0 +1,29 @@
+package com.eduai.config;
+
+import com.eduai.model.enums.AITask;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings for the in-memory Groq response cache. A task whose TTL is zero is never cached.
+ */
+@Data
+@ConfigurationProperties(prefix = "groq.cache")
+public class GroqCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maxEntries = 10_000;
+
+    private Duration defaultTtl = Duration.ofHours(1);
+
+    private Map<AITask, Duration> ttl = new EnumMap<>(AITask.class);
+
+    public Duration ttlFor(AITask task) {
+        return ttl.getOrDefault(task, defaultTtl);
+    }
+}
@@ -0,0 +1,45 @@
+package com.eduai.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+/**
+ * Opens Groq connections once the application is ready so the first user requests do not pay for
+ * DNS resolution and the TLS handshake. Failures are logged and otherwise ignored.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GroqConnectionWarmer {
+
+    private final HttpClient groqHttpClient;
+    private final WebClient groqWebClient;
+    private final GroqHttpClientProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (properties.getWarmupConnections() <= 0) {
+            return;
+        }
+        groqHttpClient.warmup()
+                .thenMany(Flux.range(0, properties.getWarmupConnections())
+                        .flatMap(i -> groqWebClient.get()
+                                .uri("/models")
+                                .retrieve()
+                                .toBodilessEntity()
+                                .timeout(Duration.ofSeconds(10))))
+                .then()
+                .subscribe(
+                        unused -> { },
+                        error -> log.warn("Groq connection warm-up failed: {}", error.getMessage()),
+                        () -> log.info("Warmed up {} Groq connections", properties.getWarmupConnections()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.eduai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and transport settings for the Groq WebClient.
+ */
+@Data
+@ConfigurationProperties(prefix = "groq.http-client")
+public class GroqHttpClientProperties {
+
+    private int maxConnections = 50;
+
+    private int pendingAcquireMaxCount = 500;
+
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    private Duration evictInBackground = Duration.ofSeconds(30);
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    private boolean keepAlive = true;
+
+    private boolean http2 = true;
+
+    private boolean compress = true;
+
+    private int warmupConnections = 2;
+}
@@ -0,0 +1,27 @@
+package com.eduai.config;
+
+import com.eduai.model.enums.AITask;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Input token budgets for rendered prompts. Data payloads that would push a prompt over its task's
+ * budget are trimmed before the prompt is sent.
+ */
+@Data
+@ConfigurationProperties(prefix = "groq.prompts")
+public class GroqPromptProperties {
+
+    private String location = "classpath:prompts/";
+
+    private int defaultMaxInputTokens = 3000;
+
+    private Map<AITask, Integer> maxInputTokens = new EnumMap<>(AITask.class);
+
+    public int maxInputTokensFor(AITask task) {
+        return maxInputTokens.getOrDefault(task, defaultMaxInputTokens);
+    }
+}
@@ -0,0 +1,31 @@
+package com.eduai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Client-side limits applied before requests reach Groq. The token budget and concurrency are
+ * starting points only; both are corrected at runtime from the {@code x-ratelimit-*} response headers.
+ */
+@Data
+@ConfigurationProperties(prefix = "groq.rate-limit")
+public class GroqRateLimitProperties {
+
+    private boolean enabled = true;
+
+    private long tokensPerMinute = 30_000;
+
+    private int initialConcurrency = 4;
+
+    private int minConcurrency = 1;
+
+    private int maxConcurrency = 16;
+
+    private double backoffRatio = 0.5;
+
+    private int maxQueueSize = 200;
+
+    private Duration maxWait = Duration.ofSeconds(20);
+}
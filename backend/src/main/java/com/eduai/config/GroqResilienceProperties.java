@@ -0,0 +1,61 @@
+package com.eduai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Failure handling for Groq calls: circuit breaker, bounded retries and optional hedging to a
+ * faster fallback model.
+ */
+@Data
+@ConfigurationProperties(prefix = "groq.resilience")
+public class GroqResilienceProperties {
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Retry retry = new Retry();
+
+    private Hedge hedge = new Hedge();
+
+    @Data
+    public static class CircuitBreaker {
+
+        private int windowSize = 20;
+
+        private int minimumCalls = 10;
+
+        private double failureRateThreshold = 0.5;
+
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        private int halfOpenCalls = 2;
+    }
+
+    @Data
+    public static class Retry {
+
+        private int maxRetries = 2;
+
+        private Duration initialBackoff = Duration.ofMillis(500);
+
+        private Duration maxBackoff = Duration.ofSeconds(5);
+
+        private double jitter = 0.5;
+    }
+
+    @Data
+    public static class Hedge {
+
+        private boolean enabled = false;
+
+        /**
+         * How long the primary gets before the hedge starts, until its model's p95 latency has been
+         * observed; from then on the p95 is used.
+         */
+        private Duration delay = Duration.ofSeconds(4);
+
+        private String fallbackModel = "llama-3.1-8b-instant";
+    }
+}
@@ -0,0 +1,48 @@
+package com.eduai.config;
+
+import com.eduai.model.enums.AITask;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-task model routing. A task without an entry, or an entry with a field left unset, falls back to
+ * {@code groq.api.model} and the default completion budget.
+ */
+@Data
+@ConfigurationProperties(prefix = "groq.routing")
+public class GroqRoutingProperties {
+
+    private Map<AITask, Route> tasks = new EnumMap<>(AITask.class);
+
+    private LatencyBudget latencyBudget = new LatencyBudget();
+
+    @Data
+    public static class Route {
+
+        private String model;
+
+        private Integer maxTokens;
+
+        private Double temperature;
+    }
+
+    /**
+     * While the upstream p95 latency of a task's model is above {@code p95-sla} over the last
+     * {@code window}, calls for that task go to {@code downgrade-model} instead.
+     */
+    @Data
+    public static class LatencyBudget {
+
+        private boolean enabled = false;
+
+        private Duration p95Sla = Duration.ofSeconds(8);
+
+        private Duration window = Duration.ofMinutes(2);
+
+        private String downgradeModel = "llama-3.1-8b-instant";
+    }
+}
@@ -0,0 +1,24 @@
+package com.eduai.config;
+
+import com.eduai.service.CacheInvalidationBus;
+import com.eduai.service.InProcessCacheInvalidationBus;
+import com.eduai.service.PostgresCacheInvalidationBus;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(NearCacheProperties.class)
+public class NearCacheConfig {
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(NearCacheProperties properties, DataSource dataSource) {
+        return switch (properties.getBus()) {
+            case IN_PROCESS -> new InProcessCacheInvalidationBus();
+            case POSTGRES -> new PostgresCacheInvalidationBus(dataSource, properties.getChannel(),
+                    properties.getReconnectInterval());
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.eduai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory near cache of assignments and users.
+ */
+@Data
+@ConfigurationProperties(prefix = "near-cache")
+public class NearCacheProperties {
+
+    public enum Bus {
+        /**
+         * Invalidations only reach this instance; enough for a single instance and for tests.
+         */
+        IN_PROCESS,
+        /**
+         * Invalidations are broadcast to every instance with Postgres NOTIFY.
+         */
+        POSTGRES
+    }
+
+    private boolean enabled = true;
+
+    private Bus bus = Bus.IN_PROCESS;
+
+    /**
+     * Postgres channel used by the {@code POSTGRES} bus.
+     */
+    private String channel = "near_cache_invalidation";
+
+    /**
+     * Wait before the {@code POSTGRES} bus reconnects after losing its listening connection.
+     */
+    private Duration reconnectInterval = Duration.ofSeconds(5);
+
+    private Spec assignments = new Spec(10_000, Duration.ofMinutes(10));
+
+    private Spec users = new Spec(10_000, Duration.ofMinutes(5));
+
+    /**
+     * The TTL bounds how long an entry can stay stale if an invalidation is missed.
+     */
+    @Data
+    public static class Spec {
+        private long maxEntries;
+        private Duration ttl;
+
+        public Spec() {
+        }
+
+        public Spec(long maxEntries, Duration ttl) {
+            this.maxEntries = maxEntries;
+            this.ttl = ttl;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.eduai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Settings for the scheduled school-wide risk scan.
+ */
+@Data
+@ConfigurationProperties(prefix = "risk-scan")
+public class RiskScanProperties {
+
+    private boolean enabled = true;
+
+    private String cron = "0 0 5 * * *";
+
+    private int pageSize = 500;
+
+    private int concurrency = 4;
+
+    /**
+     * Upper bound on scan throughput, so the scan does not monopolize the database.
+     */
+    private int maxStudentsPerSecond = 500;
+
+    /**
+     * Risk levels that also get AI-written recommended actions. These calls run at background
+     * priority behind interactive AI traffic. Empty means the scan never calls the model.
+     */
+    private Set<String> narrativeLevels = new HashSet<>();
+
+    /**
+     * Whether to resume a running scan whose instance stopped, checked at startup and then every
+     * {@code stale-after}.
+     */
+    private boolean resumeOnStartup = true;
+
+    /**
+     * The running instance renews its scan every third of this. A running scan not renewed for this
+     * long is taken to be abandoned and may be resumed by another instance.
+     */
+    private Duration staleAfter = Duration.ofMinutes(5);
+}
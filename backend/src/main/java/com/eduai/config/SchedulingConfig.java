@@ -0,0 +1,11 @@
+package com.eduai.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({RiskScanProperties.class, AIJobProperties.class, SubmissionBufferProperties.class})
+public class SchedulingConfig {
+}
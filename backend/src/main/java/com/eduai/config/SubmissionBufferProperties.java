@@ -0,0 +1,37 @@
+package com.eduai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for write-behind grade submissions.
+ */
+@Data
+@ConfigurationProperties(prefix = "gradebook.write-behind")
+public class SubmissionBufferProperties {
+
+    /**
+     * When set, new submissions are acknowledged once written to the local log and saved to the
+     * database in batches shortly after.
+     */
+    private boolean enabled = false;
+
+    private String directory = "data/submission-buffer";
+
+    private int batchSize = 500;
+
+    /**
+     * Submissions are rejected once this many are waiting to be saved.
+     */
+    private int maxPending = 20000;
+
+    private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Wait before retrying a batch while the database is unavailable.
+     */
+    private Duration retryInterval = Duration.ofSeconds(2);
+}
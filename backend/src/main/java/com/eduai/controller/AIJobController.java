@@ -0,0 +1,76 @@
+package com.eduai.controller;
+
+import com.eduai.model.AIJob;
+import com.eduai.model.enums.AITask;
+import com.eduai.service.AIJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/ai/jobs")
+@RequiredArgsConstructor
+public class AIJobController {
+
+    private final AIJobService aiJobService;
+
+    @PostMapping("/lesson-plan")
+    public ResponseEntity<?> submitLessonPlan(@RequestBody Map<String, Object> request) {
+        return submit(AITask.LESSON_PLAN, request);
+    }
+
+    @PostMapping("/assessment")
+    public ResponseEntity<?> submitAssessment(@RequestBody Map<String, Object> request) {
+        return submit(AITask.ASSESSMENT, request);
+    }
+
+    @PostMapping("/intervention-plan/{studentId}")
+    public ResponseEntity<?> submitInterventionPlan(
+            @PathVariable Long studentId,
+            @RequestBody Map<String, Object> request) {
+        Map<String, Object> parameters = new HashMap<>(request);
+        parameters.put("studentId", studentId);
+        return submit(AITask.INTERVENTION_PLAN, parameters);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<AIJob> getJob(@PathVariable Long jobId) {
+        return aiJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Sends a {@code status} event for each state change and closes after the job succeeds or fails.
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<?>> watchJob(@PathVariable Long jobId) {
+        return aiJobService.watch(jobId)
+                .<ServerSentEvent<?>>map(job -> ServerSentEvent.<AIJob>builder()
+                        .event("status")
+                        .data(job)
+                        .build())
+                .onErrorResume(error -> Flux.just(ServerSentEvent.<Map<String, Object>>builder()
+                        .event("error")
+                        .data(Map.of("error", error.getMessage() != null ? error.getMessage() : error.toString()))
+                        .build()));
+    }
+
+    private ResponseEntity<?> submit(AITask task, Map<String, Object> parameters) {
+        try {
+            return aiJobService.submit(task, parameters)
+                    .<ResponseEntity<?>>map(job -> ResponseEntity.accepted().body(job))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .body(Map.of("error", "AI job queue is full")));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.eduai.controller;
+
+import com.eduai.config.GroqRoutingProperties;
+import com.eduai.model.enums.AITask;
+import com.eduai.service.GroqModelRouter;
+import com.eduai.service.ModelRoute;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/ai/routing")
+@RequiredArgsConstructor
+public class AIRoutingController {
+
+    private final GroqModelRouter groqModelRouter;
+
+    @GetMapping
+    public ResponseEntity<Map<AITask, ModelRoute>> getRoutes() {
+        return ResponseEntity.ok(groqModelRouter.routes());
+    }
+
+    @PutMapping("/{task}")
+    public ResponseEntity<?> updateRoute(@PathVariable AITask task, @RequestBody GroqRoutingProperties.Route route) {
+        try {
+            return ResponseEntity.ok(groqModelRouter.update(task, route));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
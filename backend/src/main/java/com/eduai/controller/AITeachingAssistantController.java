@@ -1,12 +1,18 @@
 package com.eduai.controller;
 
 import com.eduai.service.AITeachingAssistantService;
+import com.eduai.service.BatchGradingService;
+import com.eduai.service.LocalGrader;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,42 +21,83 @@ import java.util.Map;
 public class AITeachingAssistantController {
 
     private final AITeachingAssistantService aiTeachingAssistantService;
+    private final BatchGradingService batchGradingService;
 
     @PostMapping("/lesson-plan")
     public Mono<ResponseEntity<Map<String, Object>>> generateLessonPlan(
-            @RequestBody LessonPlanRequest request) {
+            @RequestBody LessonPlanRequest request,
+            @RequestParam(defaultValue = "false") boolean regenerate) {
         return aiTeachingAssistantService.generateLessonPlan(
                 request.getTopic(),
                 request.getGradeLevel(),
                 request.getDuration(),
-                request.getLearningObjectives())
+                request.getLearningObjectives(),
+                regenerate)
                 .map(ResponseEntity::ok)
                 .onErrorReturn(ResponseEntity.internalServerError().build());
     }
 
+    @PostMapping(value = "/lesson-plan/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamLessonPlan(@RequestBody LessonPlanRequest request) {
+        return toEventStream(aiTeachingAssistantService.streamLessonPlan(
+                request.getTopic(),
+                request.getGradeLevel(),
+                request.getDuration(),
+                request.getLearningObjectives()));
+    }
+
     @PostMapping("/assessment")
     public Mono<ResponseEntity<Map<String, Object>>> generateAssessment(
-            @RequestBody AssessmentRequest request) {
+            @RequestBody AssessmentRequest request,
+            @RequestParam(defaultValue = "false") boolean regenerate) {
         return aiTeachingAssistantService.generateAssessment(
                 request.getTopic(),
                 request.getGradeLevel(),
                 request.getNumQuestions(),
-                request.getDifficultyMix())
+                request.getDifficultyMix(),
+                regenerate)
                 .map(ResponseEntity::ok)
                 .onErrorReturn(ResponseEntity.internalServerError().build());
     }
 
+    @PostMapping(value = "/assessment/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamAssessment(@RequestBody AssessmentRequest request) {
+        return toEventStream(aiTeachingAssistantService.streamAssessment(
+                request.getTopic(),
+                request.getGradeLevel(),
+                request.getNumQuestions(),
+                request.getDifficultyMix()));
+    }
+
     @PostMapping("/auto-grade")
     public Mono<ResponseEntity<Map<String, Object>>> autoGradeAnswer(
             @RequestBody GradingRequest request) {
         return aiTeachingAssistantService.autoGradeAnswer(
                 request.getQuestion(),
                 request.getStudentAnswer(),
-                request.getRubric())
+                request.getRubric(),
+                request.getAnswer() != null
+                        ? new LocalGrader.AnswerKey(request.getType(), request.getAnswer(), request.getOptions(), request.getTolerance())
+                        : null)
                 .map(ResponseEntity::ok)
                 .onErrorReturn(ResponseEntity.internalServerError().build());
     }
 
+    @PostMapping(value = "/auto-grade/assignments/{assignmentId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Map<String, Object>>> autoGradeAssignment(
+            @PathVariable Long assignmentId,
+            @RequestParam(defaultValue = "false") boolean regrade) {
+        return batchGradingService.gradeAssignment(assignmentId, regrade)
+                .map(progress -> ServerSentEvent.<Map<String, Object>>builder()
+                        .event(Boolean.TRUE.equals(progress.get("complete")) ? "complete" : "progress")
+                        .data(progress)
+                        .build())
+                .onErrorResume(error -> Flux.just(ServerSentEvent.<Map<String, Object>>builder()
+                        .event("error")
+                        .data(Map.of("error", error.getMessage() != null ? error.getMessage() : error.toString()))
+                        .build()));
+    }
+
     @PostMapping("/intervention-plan/{studentId}")
     public Mono<ResponseEntity<Map<String, Object>>> generateInterventionPlan(
             @PathVariable Long studentId,
@@ -63,6 +110,29 @@ public class AITeachingAssistantController {
                 .onErrorReturn(ResponseEntity.internalServerError().build());
     }
 
+    @PostMapping(value = "/intervention-plan/{studentId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamInterventionPlan(
+            @PathVariable Long studentId,
+            @RequestBody InterventionRequest request) {
+        return toEventStream(aiTeachingAssistantService.streamInterventionPlan(
+                studentId,
+                request.getIssue(),
+                request.getContext()));
+    }
+
+    /**
+     * Wraps content deltas as {@code token} events, followed by a terminal {@code done} event,
+     * or an {@code error} event if the upstream stream fails part-way.
+     */
+    private Flux<ServerSentEvent<String>> toEventStream(Flux<String> chunks) {
+        return chunks.map(chunk -> ServerSentEvent.<String>builder().event("token").data(chunk).build())
+                .concatWithValues(ServerSentEvent.<String>builder().event("done").data("[DONE]").build())
+                .onErrorResume(error -> Flux.just(ServerSentEvent.<String>builder()
+                        .event("error")
+                        .data("AI service temporarily unavailable")
+                        .build()));
+    }
+
     @Data
     static class LessonPlanRequest {
         private String topic;
@@ -84,6 +154,10 @@ public class AITeachingAssistantController {
         private String question;
         private String studentAnswer;
         private String rubric;
+        private String type;
+        private Object answer;
+        private List<String> options;
+        private Double tolerance;
     }
 
     @Data
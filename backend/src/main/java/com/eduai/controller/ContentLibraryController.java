@@ -0,0 +1,42 @@
+package com.eduai.controller;
+
+import com.eduai.model.GeneratedContent;
+import com.eduai.model.enums.AITask;
+import com.eduai.service.ContentLibraryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/ai/library")
+@RequiredArgsConstructor
+public class ContentLibraryController {
+
+    private final ContentLibraryService contentLibraryService;
+
+    @GetMapping
+    public ResponseEntity<?> listContents(
+            @RequestParam AITask task,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(contentLibraryService.listContents(task, page, limit));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<GeneratedContent> getContent(@PathVariable Long id) {
+        return contentLibraryService.getContent(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/versions")
+    public ResponseEntity<?> getVersions(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(contentLibraryService.versions(id));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.eduai.controller;
+
+import com.eduai.service.GradeExportService;
+import com.eduai.service.GradeImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final GradeExportService gradeExportService;
+
+    /**
+     * Streams grades for a course, a term ({@code from}/{@code to} on assignment due dates) or the
+     * whole school. The body is written while rows are read, so nothing is buffered in full.
+     */
+    @GetMapping("/grades")
+    public ResponseEntity<?> exportGrades(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "CSV") GradeImportService.Format format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        GradeExportService.Scope scope;
+        try {
+            scope = new GradeExportService.Scope(courseId, from, to);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(output, 8192);
+                gradeExportService.export(scope, format, compressed);
+                compressed.finish();
+            } else {
+                gradeExportService.export(scope, format, output);
+            }
+        };
+        boolean csv = format == GradeImportService.Format.CSV;
+        String filename = "grades-" + scope.describe() + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : csv ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON;
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+}
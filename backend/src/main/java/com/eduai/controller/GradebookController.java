@@ -3,14 +3,25 @@ package com.eduai.controller;
 import com.eduai.model.Assignment;
 import com.eduai.model.Grade;
 import com.eduai.repository.AssignmentRepository;
+import com.eduai.service.CourseGradeSummaryService;
+import com.eduai.service.GradeImportService;
 import com.eduai.service.GradebookService;
+import com.eduai.service.ScoreStatisticsService;
+import com.eduai.service.SubmissionBuffer;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/gradebook")
@@ -19,6 +30,10 @@ public class GradebookController {
 
     private final GradebookService gradebookService;
     private final AssignmentRepository assignmentRepository;
+    private final CourseGradeSummaryService courseGradeSummaryService;
+    private final GradeImportService gradeImportService;
+    private final ScoreStatisticsService scoreStatisticsService;
+    private final SubmissionBuffer submissionBuffer;
 
     @PostMapping("/assignments")
     public ResponseEntity<?> createAssignment(@RequestBody Assignment assignment) {
@@ -30,14 +45,36 @@ public class GradebookController {
         }
     }
 
+    @PutMapping("/assignments/{assignmentId}")
+    public ResponseEntity<?> updateAssignment(
+            @PathVariable Long assignmentId,
+            @RequestBody Assignment assignment) {
+        try {
+            return ResponseEntity.ok(gradebookService.updateAssignment(assignmentId, assignment));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/assignments/course/{courseId}")
     public ResponseEntity<List<Assignment>> getAssignmentsByCourse(@PathVariable Long courseId) {
         return ResponseEntity.ok(assignmentRepository.findByCourseId(courseId));
     }
 
+    /**
+     * With write-behind enabled, a new submission is acknowledged with 202 once it is durably
+     * buffered, and saved to the database shortly after.
+     */
     @PostMapping("/grades")
     public ResponseEntity<?> submitGrade(@RequestBody Grade grade) {
         try {
+            if (submissionBuffer.isEnabled() && grade.getId() == null) {
+                return submissionBuffer.accept(grade)
+                        .<ResponseEntity<?>>map(ack -> ResponseEntity.accepted().body(ack))
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "5")
+                                .body(Map.of("error", "Submission buffer is full")));
+            }
             Grade submitted = gradebookService.submitGrade(grade);
             return ResponseEntity.ok(submitted);
         } catch (Exception e) {
@@ -45,6 +82,28 @@ public class GradebookController {
         }
     }
 
+    /**
+     * Streams a CSV (with header row) or NDJSON file of grades; the format follows the Content-Type
+     * unless {@code format} is given. Gzip-compressed uploads are accepted with Content-Encoding: gzip.
+     */
+    @PostMapping(value = "/grades/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importGrades(
+            HttpServletRequest request,
+            @RequestParam(required = false) GradeImportService.Format format) {
+        try {
+            GradeImportService.Format resolved = format != null ? format
+                    : request.getContentType() != null && request.getContentType().contains("csv")
+                    ? GradeImportService.Format.CSV
+                    : GradeImportService.Format.NDJSON;
+            InputStream body = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))
+                    ? new GZIPInputStream(request.getInputStream())
+                    : request.getInputStream();
+            return ResponseEntity.ok(gradeImportService.importGrades(body, resolved));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @PutMapping("/grades/{gradeId}/grade")
     public ResponseEntity<?> gradeAssignment(
             @PathVariable Long gradeId,
@@ -58,6 +117,28 @@ public class GradebookController {
         }
     }
 
+    /**
+     * Grades many submissions of an assignment at once. Each entry gets its own result; entries
+     * that conflict with a newer version of the grade are reported rather than failing the request.
+     */
+    @PutMapping("/assignments/{assignmentId}/grades")
+    public ResponseEntity<?> gradeInBulk(
+            @PathVariable Long assignmentId,
+            @RequestBody List<GradebookService.BulkGradeEntry> entries) {
+        try {
+            List<GradebookService.BulkGradeResult> results = gradebookService.gradeInBulk(assignmentId, entries);
+            Map<GradebookService.BulkGradeStatus, Long> counts = results.stream()
+                    .collect(Collectors.groupingBy(GradebookService.BulkGradeResult::status, Collectors.counting()));
+            return ResponseEntity.ok(Map.of(
+                    "assignmentId", assignmentId,
+                    "updated", counts.getOrDefault(GradebookService.BulkGradeStatus.UPDATED, 0L),
+                    "conflicts", counts.getOrDefault(GradebookService.BulkGradeStatus.CONFLICT, 0L),
+                    "results", results));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/students/{studentId}/grades")
     public ResponseEntity<List<Grade>> getStudentGrades(@PathVariable Long studentId) {
         return ResponseEntity.ok(gradebookService.getStudentGrades(studentId));
@@ -70,6 +151,42 @@ public class GradebookController {
         return ResponseEntity.ok(gradebookService.calculateStudentGrade(studentId, courseId));
     }
 
+    @GetMapping("/courses/{courseId}/final-grades")
+    public ResponseEntity<Map<String, Object>> calculateCourseGrades(@PathVariable Long courseId) {
+        return ResponseEntity.ok(gradebookService.calculateCourseGrades(courseId));
+    }
+
+    @PostMapping("/summaries/verify")
+    public ResponseEntity<Map<String, Object>> verifySummaries(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(defaultValue = "false") boolean repair) {
+        return ResponseEntity.ok(courseGradeSummaryService.verify(courseId, repair));
+    }
+
+    @GetMapping("/assignments/{assignmentId}/statistics")
+    public ResponseEntity<?> getAssignmentStatistics(@PathVariable Long assignmentId) {
+        try {
+            return ResponseEntity.ok(scoreStatisticsService.assignmentStatistics(assignmentId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/courses/{courseId}/statistics")
+    public ResponseEntity<Map<String, Object>> getCourseStatistics(@PathVariable Long courseId) {
+        return ResponseEntity.ok(scoreStatisticsService.courseStatistics(courseId));
+    }
+
+    @GetMapping("/grade-levels/{gradeLevel}/statistics")
+    public ResponseEntity<Map<String, Object>> getGradeLevelStatistics(@PathVariable String gradeLevel) {
+        return ResponseEntity.ok(scoreStatisticsService.gradeLevelStatistics(gradeLevel));
+    }
+
+    @PostMapping("/statistics/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildStatistics(@RequestParam(required = false) Long courseId) {
+        return ResponseEntity.ok(scoreStatisticsService.rebuild(courseId));
+    }
+
     @Data
     static class GradeAssignmentRequest {
         private Double pointsEarned;
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,8 +19,16 @@ public class PredictiveAnalyticsController {
     @PostMapping("/risk-score/{studentId}")
     public Mono<ResponseEntity<Map<String, Object>>> calculateRiskScore(
             @PathVariable Long studentId,
-            @RequestBody Map<String, Object> metrics) {
-        return predictiveAnalyticsService.calculateRiskScore(studentId, metrics)
+            @RequestBody(required = false) Map<String, Object> metrics,
+            @RequestParam(defaultValue = "false") boolean narrative) {
+        return predictiveAnalyticsService.calculateRiskScore(studentId, metrics, narrative)
+                .map(ResponseEntity::ok)
+                .onErrorReturn(ResponseEntity.internalServerError().build());
+    }
+
+    @PostMapping("/risk-scores")
+    public Mono<ResponseEntity<List<Map<String, Object>>>> calculateRiskScores(@RequestBody List<Long> studentIds) {
+        return predictiveAnalyticsService.calculateRiskScores(studentIds)
                 .map(ResponseEntity::ok)
                 .onErrorReturn(ResponseEntity.internalServerError().build());
     }
@@ -0,0 +1,54 @@
+package com.eduai.controller;
+
+import com.eduai.model.RiskScore;
+import com.eduai.service.RiskScanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/ai/analytics")
+@RequiredArgsConstructor
+public class RiskScanController {
+
+    private final RiskScanService riskScanService;
+
+    @PostMapping("/risk-scans")
+    public ResponseEntity<?> startScan() {
+        return riskScanService.startScan()
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "A risk scan is already running")));
+    }
+
+    @GetMapping("/risk-scans/latest")
+    public ResponseEntity<?> getLatestScan() {
+        return riskScanService.latestScan()
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/risk-scores/latest")
+    public ResponseEntity<?> getLatestScores(
+            @RequestParam(required = false) String riskLevel,
+            @RequestParam(defaultValue = "0") double minScore,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "riskScore") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortOrder) {
+        try {
+            return ResponseEntity.ok(riskScanService.latestScores(riskLevel, minScore, page, limit, sortBy, sortOrder));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/risk-scores/student/{studentId}")
+    public ResponseEntity<List<RiskScore>> getStudentHistory(@PathVariable Long studentId) {
+        return ResponseEntity.ok(riskScanService.studentHistory(studentId));
+    }
+}
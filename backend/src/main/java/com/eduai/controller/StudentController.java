@@ -2,6 +2,7 @@ package com.eduai.controller;
 
 import com.eduai.model.Student;
 import com.eduai.repository.StudentRepository;
+import com.eduai.service.StudentRankingService;
 import com.eduai.service.StudentService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +21,7 @@ public class StudentController {
 
     private final StudentRepository studentRepository;
     private final StudentService studentService;
+    private final StudentRankingService studentRankingService;
 
     @GetMapping
     public ResponseEntity<List<Student>> getAllStudents() {
@@ -65,6 +67,19 @@ public class StudentController {
         }
     }
 
+    /**
+     * Recomputes every student's GPA and class rank; {@code repairSummaries} first reconciles the
+     * course grade summaries with the grades table.
+     */
+    @PostMapping("/rankings/rebuild")
+    public ResponseEntity<?> rebuildRankings(@RequestParam(defaultValue = "false") boolean repairSummaries) {
+        try {
+            return ResponseEntity.ok(studentRankingService.rebuild(repairSummaries));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @Data
     static class StudentCreateRequest {
         private Long userId;
@@ -0,0 +1,48 @@
+package com.eduai.model;
+
+import com.eduai.model.enums.AIJobStatus;
+import com.eduai.model.enums.AITask;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * A queued AI generation. Parameters and result are stored as JSON documents.
+ */
+@Entity
+@Table(name = "ai_jobs", indexes = @Index(name = "idx_ai_jobs_status", columnList = "status, id"))
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AIJob extends BaseEntity {
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AITask task;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AIJobStatus status;
+    
+    @JsonRawValue
+    @Column(name = "parameters", columnDefinition = "TEXT", nullable = false)
+    private String parameters;
+    
+    @JsonRawValue
+    @Column(name = "result", columnDefinition = "TEXT")
+    private String result;
+    
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
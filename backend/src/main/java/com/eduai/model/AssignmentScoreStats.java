@@ -0,0 +1,37 @@
+package com.eduai.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Score distribution of one assignment among the students of one grade level, kept up to date as
+ * grades change. {@code sketch} is an encoded {@code ScoreSketch}; rows merge into course and
+ * grade-level distributions. Students without a grade level are stored under an empty grade level.
+ */
+@Entity
+@Table(name = "assignment_score_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"assignment_id", "grade_level"}),
+        indexes = {
+                @Index(name = "idx_assignment_score_stats_course", columnList = "course_id"),
+                @Index(name = "idx_assignment_score_stats_grade_level", columnList = "grade_level")
+        })
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AssignmentScoreStats extends BaseEntity {
+    
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+    
+    @Column(name = "course_id")
+    private Long courseId;
+    
+    @Column(name = "grade_level", nullable = false)
+    private String gradeLevel;
+    
+    @Column(name = "score_count", nullable = false)
+    private Long scoreCount = 0L;
+    
+    @Column(name = "sketch", nullable = false)
+    private byte[] sketch;
+}
@@ -0,0 +1,37 @@
+package com.eduai.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Running totals behind a student's final grade in one course, kept up to date as grades and
+ * assignments change. {@code totalWeight} includes the weight of weighted assignments that are not
+ * graded yet, which count as zero.
+ */
+@Entity
+@Table(name = "course_grade_summary",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"student_id", "course_id"}),
+        indexes = @Index(name = "idx_course_grade_summary_course", columnList = "course_id"))
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CourseGradeSummary extends BaseEntity {
+    
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+    
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    
+    @Column(name = "weighted_points", nullable = false)
+    private Double weightedPoints = 0.0;
+    
+    @Column(name = "total_weight", nullable = false)
+    private Double totalWeight = 0.0;
+    
+    @Column(name = "completed_count", nullable = false)
+    private Integer completedCount = 0;
+    
+    @Column(name = "assignment_count", nullable = false)
+    private Integer assignmentCount = 0;
+}
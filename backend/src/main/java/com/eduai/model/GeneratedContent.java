@@ -0,0 +1,46 @@
+package com.eduai.model;
+
+import com.eduai.model.enums.AITask;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * One version of a generated lesson plan or assessment, addressed by the hash of its normalized
+ * request. Regenerating adds a version rather than replacing the stored one.
+ */
+@Entity
+@Table(name = "generated_contents",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"task", "content_hash", "version"}),
+        indexes = @Index(name = "idx_generated_contents_task_reuse", columnList = "task, reuse_count"))
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class GeneratedContent extends BaseEntity {
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AITask task;
+    
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+    
+    @Column(nullable = false)
+    private Integer version;
+    
+    @JsonRawValue
+    @Column(name = "request", columnDefinition = "TEXT", nullable = false)
+    private String request;
+    
+    @JsonRawValue
+    @Column(name = "content", columnDefinition = "TEXT", nullable = false)
+    private String content;
+    
+    @Column(name = "reuse_count", nullable = false)
+    private Long reuseCount = 0L;
+    
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+}
@@ -30,6 +30,9 @@ public class Grade extends BaseEntity {
     @Column(name = "feedback", columnDefinition = "TEXT")
     private String feedback;
     
+    @Column(name = "submission_text", columnDefinition = "TEXT")
+    private String submissionText;
+    
     @Column(name = "submitted_at")
     private LocalDateTime submittedAt;
     
@@ -41,5 +44,19 @@ public class Grade extends BaseEntity {
     
     @Column(name = "late_penalty")
     private Double latePenalty;
+    
+    /**
+     * Set when the score was copied from a near-identical submission that was graded instead.
+     */
+    @Column(name = "graded_from_grade_id")
+    private Long gradedFromGradeId;
+    
+    /**
+     * Incremented on every update, including the JDBC batch writes of imports and bulk grading, so a
+     * client holding a stale copy is told about the conflict instead of overwriting newer scores.
+     */
+    @Version
+    @Column(name = "version", columnDefinition = "bigint not null default 0")
+    private Long version;
 }
 
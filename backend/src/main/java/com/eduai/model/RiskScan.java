@@ -0,0 +1,45 @@
+package com.eduai.model;
+
+import com.eduai.model.enums.RiskScanStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * One run of the school-wide risk scan. {@code lastStudentId} is the checkpoint a crashed scan
+ * resumes after. {@code owner} is the instance running it, which keeps {@code updatedAt} fresh while
+ * it does.
+ */
+@Entity
+@Table(name = "risk_scans")
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class RiskScan extends BaseEntity {
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RiskScanStatus status;
+
+    @Column(name = "owner", length = 36)
+    private String owner;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Column(name = "last_student_id")
+    private Long lastStudentId;
+    
+    @Column(name = "total_students")
+    private Long totalStudents;
+    
+    @Column(name = "scored_students", nullable = false)
+    private Long scoredStudents = 0L;
+    
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+}
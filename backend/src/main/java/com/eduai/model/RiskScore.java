@@ -0,0 +1,60 @@
+package com.eduai.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+
+/**
+ * A student's risk score as computed by one scan. Rows are kept across scans as history.
+ */
+@Entity
+@Table(name = "risk_scores",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"scan_id", "student_id"}),
+        indexes = {
+                @Index(name = "idx_risk_scores_scan_score", columnList = "scan_id, risk_score"),
+                @Index(name = "idx_risk_scores_student", columnList = "student_id, created_at")
+        })
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class RiskScore extends BaseEntity {
+    
+    @Column(name = "scan_id", nullable = false)
+    private Long scanId;
+    
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+    
+    @Column(name = "risk_score", nullable = false)
+    private Double riskScore;
+    
+    @Column(name = "risk_level", nullable = false)
+    private String riskLevel;
+    
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "primary_concerns", columnDefinition = "TEXT")
+    private List<String> primaryConcerns;
+    
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "recommended_actions", columnDefinition = "TEXT")
+    private List<String> recommendedActions;
+    
+    @Column(name = "intervention_urgency")
+    private String interventionUrgency;
+    
+    @Column(name = "average_percentage")
+    private Double averagePercentage;
+    
+    @Column(name = "missing_assignments")
+    private Integer missingAssignments;
+    
+    @Column(name = "due_assignments")
+    private Integer dueAssignments;
+    
+    @Column(name = "late_rate")
+    private Double lateRate;
+    
+    @Column(name = "trend")
+    private Double trend;
+}
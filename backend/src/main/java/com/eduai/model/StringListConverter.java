@@ -0,0 +1,43 @@
+package com.eduai.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.List;
+
+/**
+ * Stores a short list of strings as a JSON array in a single TEXT column.
+ */
+@Converter
+public class StringListConverter implements AttributeConverter<List<String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> LIST_TYPE = new TypeReference<>() {};
+
+    @Override
+    public String convertToDatabaseColumn(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to store list", e);
+        }
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String column) {
+        if (column == null || column.isBlank()) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(column, LIST_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to read list", e);
+        }
+    }
+}
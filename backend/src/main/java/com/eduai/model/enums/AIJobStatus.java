@@ -0,0 +1,12 @@
+package com.eduai.model.enums;
+
+public enum AIJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,6 @@
+package com.eduai.model.enums;
+
+public enum AIRequestPriority {
+    INTERACTIVE,
+    BACKGROUND
+}
@@ -0,0 +1,15 @@
+package com.eduai.model.enums;
+
+public enum AITask {
+    LEARNING_PATH,
+    CONTENT_RECOMMENDATION,
+    LEARNING_STYLE,
+    RISK_SCORE,
+    GRADE_PREDICTION,
+    EARLY_WARNING,
+    CLASS_PERFORMANCE,
+    LESSON_PLAN,
+    ASSESSMENT,
+    AUTO_GRADE,
+    INTERVENTION_PLAN
+}
@@ -0,0 +1,7 @@
+package com.eduai.model.enums;
+
+public enum RiskScanStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
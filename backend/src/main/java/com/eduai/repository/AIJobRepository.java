@@ -0,0 +1,57 @@
+package com.eduai.repository;
+
+import com.eduai.model.AIJob;
+import com.eduai.model.enums.AIJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AIJobRepository extends JpaRepository<AIJob, Long> {
+    List<AIJob> findByStatusOrderByIdAsc(AIJobStatus status);
+
+    /**
+     * Moves a queued job to running. Returns 0 if another worker already took it.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AIJob j SET j.status = com.eduai.model.enums.AIJobStatus.RUNNING, j.startedAt = :now, " +
+           "j.attempts = j.attempts + 1, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = com.eduai.model.enums.AIJobStatus.QUEUED")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    List<AIJob> findByStatusAndUpdatedAtBeforeOrderByIdAsc(AIJobStatus status, LocalDateTime before);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AIJob j SET j.updatedAt = :now " +
+           "WHERE j.id IN :ids AND j.status = com.eduai.model.enums.AIJobStatus.RUNNING")
+    int renewLeases(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Moves a running job whose lease expired back to queued. Returns 0 if its worker renewed the
+     * lease or another instance already took it back.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AIJob j SET j.status = com.eduai.model.enums.AIJobStatus.QUEUED, j.startedAt = null, " +
+           "j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = com.eduai.model.enums.AIJobStatus.RUNNING AND j.updatedAt < :staleBefore")
+    int requeueStale(@Param("id") Long id, @Param("staleBefore") LocalDateTime staleBefore,
+                     @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AIJob j SET j.status = com.eduai.model.enums.AIJobStatus.FAILED, j.errorMessage = :errorMessage, " +
+           "j.finishedAt = :now, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = com.eduai.model.enums.AIJobStatus.RUNNING AND j.updatedAt < :staleBefore")
+    int failStale(@Param("id") Long id, @Param("staleBefore") LocalDateTime staleBefore,
+                  @Param("errorMessage") String errorMessage, @Param("now") LocalDateTime now);
+}
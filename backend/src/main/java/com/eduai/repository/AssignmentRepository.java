@@ -2,8 +2,12 @@ package com.eduai.repository;
 
 import com.eduai.model.Assignment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,5 +15,19 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     List<Assignment> findByCourseId(Long courseId);
     List<Assignment> findByTeacherId(Long teacherId);
     List<Assignment> findByIsPublishedTrue();
+    List<Assignment> findByDueDateGreaterThanEqualAndDueDateLessThan(LocalDateTime from, LocalDateTime to);
+
+    @Query("select distinct a.courseId from Assignment a where a.courseId is not null")
+    List<Long> findCourseIds();
+
+    /**
+     * Every assignment of every course the given students have a grade in, plus any graded
+     * assignment that has no course. Enrollment is not stored, so a student with no grade rows yet
+     * contributes no courses.
+     */
+    @Query("select a from Assignment a where a.courseId in " +
+           "(select ga.courseId from Assignment ga, Grade g where g.assignmentId = ga.id and g.studentId in :studentIds) " +
+           "or a.id in (select g.assignmentId from Grade g where g.studentId in :studentIds)")
+    List<Assignment> findAllInCoursesOfStudents(@Param("studentIds") Collection<Long> studentIds);
 }
 
@@ -0,0 +1,41 @@
+package com.eduai.repository;
+
+import com.eduai.model.AssignmentScoreStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AssignmentScoreStatsRepository extends JpaRepository<AssignmentScoreStats, Long> {
+    List<AssignmentScoreStats> findByAssignmentId(Long assignmentId);
+    List<AssignmentScoreStats> findByCourseId(Long courseId);
+    List<AssignmentScoreStats> findByGradeLevel(String gradeLevel);
+    boolean existsByAssignmentId(Long assignmentId);
+
+    /**
+     * Locks the row so concurrent grade changes to the same assignment apply one after another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AssignmentScoreStats s where s.assignmentId = :assignmentId and s.gradeLevel = :gradeLevel")
+    Optional<AssignmentScoreStats> findForUpdate(@Param("assignmentId") Long assignmentId,
+                                                 @Param("gradeLevel") String gradeLevel);
+
+    /**
+     * Creates an empty row unless one exists, so concurrent first writes for a new assignment or
+     * grade level do not fail on the unique constraint. Returns 0 if the row already existed.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO assignment_score_stats (assignment_id, course_id, grade_level, score_count, sketch, " +
+                   "created_at, updated_at) " +
+                   "VALUES (:assignmentId, :courseId, :gradeLevel, 0, :sketch, now(), now()) " +
+                   "ON CONFLICT (assignment_id, grade_level) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("assignmentId") Long assignmentId, @Param("courseId") Long courseId,
+                       @Param("gradeLevel") String gradeLevel, @Param("sketch") byte[] sketch);
+}
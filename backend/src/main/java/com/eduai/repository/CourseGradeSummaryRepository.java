@@ -0,0 +1,70 @@
+package com.eduai.repository;
+
+import com.eduai.model.CourseGradeSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CourseGradeSummaryRepository extends JpaRepository<CourseGradeSummary, Long> {
+    Optional<CourseGradeSummary> findByStudentIdAndCourseId(Long studentId, Long courseId);
+    List<CourseGradeSummary> findByCourseId(Long courseId);
+
+    /**
+     * Returns 0 if the student has no summary row for the course yet.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CourseGradeSummary s SET s.weightedPoints = s.weightedPoints + :points, " +
+           "s.totalWeight = s.totalWeight + :weight, s.completedCount = s.completedCount + :completed " +
+           "WHERE s.studentId = :studentId AND s.courseId = :courseId")
+    int addGrade(@Param("studentId") Long studentId, @Param("courseId") Long courseId,
+                 @Param("points") double points, @Param("weight") double weight, @Param("completed") int completed);
+
+    /**
+     * Creates the student's row for the course unless one exists, so concurrent first writes do not
+     * fail on the unique constraint. Returns 0 if the row already existed.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO course_grade_summary (student_id, course_id, weighted_points, total_weight, " +
+                   "completed_count, assignment_count, created_at, updated_at) " +
+                   "VALUES (:studentId, :courseId, :weightedPoints, :totalWeight, :completedCount, :assignmentCount, now(), now()) " +
+                   "ON CONFLICT (student_id, course_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("studentId") Long studentId, @Param("courseId") Long courseId,
+                       @Param("weightedPoints") double weightedPoints, @Param("totalWeight") double totalWeight,
+                       @Param("completedCount") int completedCount, @Param("assignmentCount") int assignmentCount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CourseGradeSummary s SET s.totalWeight = s.totalWeight + :weight, " +
+           "s.assignmentCount = s.assignmentCount + :count WHERE s.courseId = :courseId")
+    int addAssignment(@Param("courseId") Long courseId, @Param("weight") double weight, @Param("count") int count);
+
+    @Query("select distinct s.studentId from CourseGradeSummary s where s.courseId in :courseIds")
+    List<Long> findStudentIdsByCourseIdIn(@Param("courseIds") Collection<Long> courseIds);
+
+    @Query("select s.studentId as studentId, s.weightedPoints as weightedPoints, s.totalWeight as totalWeight " +
+           "from CourseGradeSummary s where s.completedCount > 0 and s.studentId in :studentIds")
+    List<FinalGrade> findFinalGradesByStudentIdIn(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("select s.studentId as studentId, s.weightedPoints as weightedPoints, s.totalWeight as totalWeight " +
+           "from CourseGradeSummary s where s.completedCount > 0")
+    List<FinalGrade> findAllFinalGrades();
+
+    /**
+     * A student's final grade in one course they have work in.
+     */
+    interface FinalGrade {
+        Long getStudentId();
+        Double getWeightedPoints();
+        Double getTotalWeight();
+
+        default double getFinalPercentage() {
+            return getTotalWeight() > 0 ? getWeightedPoints() / getTotalWeight() : 0.0;
+        }
+    }
+}
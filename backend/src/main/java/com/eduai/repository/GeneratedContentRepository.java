@@ -0,0 +1,28 @@
+package com.eduai.repository;
+
+import com.eduai.model.GeneratedContent;
+import com.eduai.model.enums.AITask;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GeneratedContentRepository extends JpaRepository<GeneratedContent, Long> {
+    Optional<GeneratedContent> findFirstByTaskAndContentHashOrderByVersionDesc(AITask task, String contentHash);
+    List<GeneratedContent> findByTaskAndContentHashOrderByVersionDesc(AITask task, String contentHash);
+    Page<GeneratedContent> findByTask(AITask task, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE GeneratedContent c SET c.reuseCount = c.reuseCount + 1, c.lastUsedAt = :now WHERE c.id = :id")
+    int recordReuse(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -1,17 +1,79 @@
 package com.eduai.repository;
 
 import com.eduai.model.Grade;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GradeRepository extends JpaRepository<Grade, Long> {
+
+    /**
+     * Rows fetched per round trip by the export cursors below. Postgres only honours a fetch size
+     * inside a transaction, so the streams must be consumed in one.
+     */
+    int EXPORT_FETCH_SIZE = 500;
+
     List<Grade> findByStudentId(Long studentId);
     List<Grade> findByAssignmentId(Long assignmentId);
     Optional<Grade> findByStudentIdAndAssignmentId(Long studentId, Long assignmentId);
     List<Grade> findByStudentIdAndAssignmentIdIn(Long studentId, List<Long> assignmentIds);
-}
+    List<Grade> findByStudentIdIn(Collection<Long> studentIds);
+    List<Grade> findByAssignmentIdInAndStudentIdIn(Collection<Long> assignmentIds, Collection<Long> studentIds);
+
+    /**
+     * Loads the grades of one assignment targeted by a bulk grading request. The entities are
+     * read-only because the new scores are written with a versioned JDBC batch instead.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select g from Grade g where g.assignmentId = :assignmentId " +
+           "and (g.id in :gradeIds or g.studentId in :studentIds)")
+    List<Grade> findForBulkGrading(@Param("assignmentId") Long assignmentId,
+                                   @Param("gradeIds") Collection<Long> gradeIds,
+                                   @Param("studentIds") Collection<Long> studentIds);
+
+    /**
+     * Per-student grade totals for one course in a single aggregate query; see
+     * {@code CourseGradeSummaryService.Contribution} for how each grade counts.
+     */
+    @Query("select g.studentId as studentId, " +
+           "sum(case when g.percentage is not null then g.percentage * coalesce(a.weightPercentage, 1.0) else 0.0 end) as weightedPoints, " +
+           "sum(case when g.percentage is not null and a.weightPercentage is null then 1.0 else 0.0 end) as unweightedGraded, " +
+           "count(g) as completed " +
+           "from Grade g, Assignment a where g.assignmentId = a.id and a.courseId = :courseId group by g.studentId")
+    List<CourseTotals> sumByStudentInCourse(@Param("courseId") Long courseId);
 
+    interface CourseTotals {
+        Long getStudentId();
+        Double getWeightedPoints();
+        Double getUnweightedGraded();
+        Long getCompleted();
+    }
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select g from Grade g where g.assignmentId in " +
+           "(select a.id from Assignment a where a.courseId = :courseId) order by g.id")
+    Stream<Grade> streamByCourseId(@Param("courseId") Long courseId);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select g from Grade g where g.assignmentId in " +
+           "(select a.id from Assignment a where a.dueDate >= :from and a.dueDate < :to) order by g.id")
+    Stream<Grade> streamByAssignmentDueBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+                 @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select g from Grade g order by g.id")
+    Stream<Grade> streamAll();
+}
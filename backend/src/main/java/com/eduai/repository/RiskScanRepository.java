@@ -0,0 +1,49 @@
+package com.eduai.repository;
+
+import com.eduai.model.RiskScan;
+import com.eduai.model.enums.RiskScanStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RiskScanRepository extends JpaRepository<RiskScan, Long> {
+    Optional<RiskScan> findFirstByStatusOrderByIdDesc(RiskScanStatus status);
+    Optional<RiskScan> findFirstByOrderByIdDesc();
+
+    /**
+     * Takes over a running scan that has not been renewed since {@code staleBefore}. Returns 0 if its
+     * owner renewed it in the meantime.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE RiskScan s SET s.owner = :owner, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.status = com.eduai.model.enums.RiskScanStatus.RUNNING AND s.updatedAt < :staleBefore")
+    int takeOver(@Param("id") Long id, @Param("owner") String owner, @Param("staleBefore") LocalDateTime staleBefore,
+                 @Param("now") LocalDateTime now);
+
+    /**
+     * Returns 0 once another instance has taken the scan over.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE RiskScan s SET s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.owner = :owner AND s.status = com.eduai.model.enums.RiskScanStatus.RUNNING")
+    int renew(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    /**
+     * Moves the checkpoint forward. Returns 0 once another instance has taken the scan over.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RiskScan s SET s.lastStudentId = :lastStudentId, s.scoredStudents = s.scoredStudents + :scored, " +
+           "s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.owner = :owner AND s.status = com.eduai.model.enums.RiskScanStatus.RUNNING")
+    int checkpoint(@Param("id") Long id, @Param("owner") String owner, @Param("lastStudentId") Long lastStudentId,
+                   @Param("scored") long scored, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,21 @@
+package com.eduai.repository;
+
+import com.eduai.model.RiskScore;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RiskScoreRepository extends JpaRepository<RiskScore, Long> {
+    List<RiskScore> findByStudentIdOrderByCreatedAtDesc(Long studentId);
+
+    @Query("select r from RiskScore r where r.scanId = :scanId " +
+           "and (:riskLevel is null or r.riskLevel = :riskLevel) and r.riskScore >= :minScore")
+    Page<RiskScore> search(@Param("scanId") Long scanId, @Param("riskLevel") String riskLevel,
+                           @Param("minScore") double minScore, Pageable pageable);
+}
@@ -1,9 +1,14 @@
 package com.eduai.repository;
 
 import com.eduai.model.Student;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -13,5 +18,47 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     Optional<Student> findByUserId(Long userId);
     List<Student> findByGradeLevel(String gradeLevel);
     boolean existsByStudentId(String studentId);
-}
 
+    @Query("select s.id from Student s where s.id > :afterId order by s.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select s.id as id, s.gradeLevel as gradeLevel, s.gpa as gpa, s.classRank as classRank " +
+           "from Student s where s.id = :id")
+    Optional<Standing> findStandingById(@Param("id") Long id);
+
+    @Query("select s.id as id, s.gradeLevel as gradeLevel, s.gpa as gpa, s.classRank as classRank " +
+           "from Student s where s.id in :ids")
+    List<Standing> findStandingsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select s.id as id, s.gradeLevel as gradeLevel, s.gpa as gpa, s.classRank as classRank " +
+           "from Student s where s.gradeLevel = :gradeLevel")
+    List<Standing> findStandingsByGradeLevel(@Param("gradeLevel") String gradeLevel);
+
+    @Query("select s.id as id, s.gradeLevel as gradeLevel, s.gpa as gpa, s.classRank as classRank from Student s")
+    List<Standing> findAllStandings();
+
+    @Query("select count(s) from Student s where s.gradeLevel = :gradeLevel and s.gpa > :gpa and s.id <> :studentId")
+    long countRankedAbove(@Param("gradeLevel") String gradeLevel, @Param("gpa") double gpa,
+                          @Param("studentId") Long studentId);
+
+    /**
+     * Moves the ranks of the other students in the grade level whose GPA is in {@code [low, high)}
+     * by {@code delta}.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Student s SET s.classRank = s.classRank + :delta WHERE s.gradeLevel = :gradeLevel " +
+           "AND s.classRank IS NOT NULL AND s.gpa >= :low AND s.gpa < :high AND s.id <> :studentId")
+    int shiftRanks(@Param("gradeLevel") String gradeLevel, @Param("low") double low, @Param("high") double high,
+                   @Param("studentId") Long studentId, @Param("delta") int delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Student s SET s.gpa = :gpa, s.classRank = :classRank WHERE s.id = :id")
+    int updateStanding(@Param("id") Long id, @Param("gpa") Double gpa, @Param("classRank") Integer classRank);
+
+    interface Standing {
+        Long getId();
+        String getGradeLevel();
+        Double getGpa();
+        Integer getClassRank();
+    }
+}
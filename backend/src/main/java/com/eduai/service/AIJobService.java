@@ -0,0 +1,357 @@
+package com.eduai.service;
+
+import com.eduai.config.AIJobProperties;
+import com.eduai.model.AIJob;
+import com.eduai.model.enums.AIJobStatus;
+import com.eduai.model.enums.AITask;
+import com.eduai.repository.AIJobRepository;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs long AI generations off the request thread. Jobs are persisted before they are queued and run
+ * by a fixed number of workers. A running job holds a lease that its worker keeps renewing, so when
+ * an instance dies its jobs are re-queued by whichever instance next finds the lease expired, while
+ * jobs still running on other live instances are left alone.
+ */
+@Service
+@Slf4j
+public class AIJobService {
+
+    private static final Set<AITask> SUPPORTED_TASKS = EnumSet.of(
+            AITask.LESSON_PLAN, AITask.ASSESSMENT, AITask.INTERVENTION_PLAN);
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    private static final Sinks.EmitFailureHandler RETRY_ON_CONTENTION = Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1));
+
+    private final AIJobRepository aiJobRepository;
+    private final AITeachingAssistantService aiTeachingAssistantService;
+    private final ObjectMapper objectMapper;
+    private final AIJobProperties properties;
+    private final Sinks.Many<Long> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final Sinks.Many<AIJob> updates = Sinks.many().multicast().directBestEffort();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry;
+    private final Counter recoveredJobs;
+    private Disposable workers;
+    private Disposable leases;
+
+    public AIJobService(AIJobRepository aiJobRepository, AITeachingAssistantService aiTeachingAssistantService,
+                        ObjectMapper objectMapper, AIJobProperties properties, MeterRegistry meterRegistry) {
+        this.aiJobRepository = aiJobRepository;
+        this.aiTeachingAssistantService = aiTeachingAssistantService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.recoveredJobs = meterRegistry.counter("ai.jobs.recovered");
+        Gauge.builder("ai.jobs.pending", pending, AtomicInteger::get)
+                .description("Jobs queued in this process and not yet picked up by a worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Re-queues jobs left behind by a dead process, then starts the workers and the lease renewal.
+     * Jobs submitted before this point wait in the queue.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (workers != null) {
+            return;
+        }
+        recover();
+        workers = queue.asFlux()
+                .flatMap(this::process, Math.max(properties.getConcurrency(), 1))
+                .contextWrite(GroqRateLimiter.withPriority(properties.getPriority()))
+                .subscribe();
+        Duration renewal = properties.getLease().dividedBy(3);
+        leases = Flux.interval(renewal, renewal, Schedulers.boundedElastic())
+                .subscribe(tick -> renewLeases());
+        log.info("Started {} AI job workers", properties.getConcurrency());
+    }
+
+    /**
+     * Persists and queues a job. Returns empty if the queue is full.
+     */
+    public Optional<AIJob> submit(AITask task, Map<String, Object> parameters) {
+        if (!SUPPORTED_TASKS.contains(task)) {
+            throw new IllegalArgumentException("Task " + task + " cannot run as a job");
+        }
+        validate(task, parameters);
+        if (pending.get() >= properties.getMaxQueued()) {
+            return Optional.empty();
+        }
+        AIJob job = new AIJob();
+        job.setTask(task);
+        job.setStatus(AIJobStatus.QUEUED);
+        job.setParameters(toJson(parameters));
+        AIJob saved = aiJobRepository.save(job);
+        enqueue(saved.getId());
+        return Optional.of(saved);
+    }
+
+    public Optional<AIJob> getJob(Long jobId) {
+        return aiJobRepository.findById(jobId);
+    }
+
+    /**
+     * Emits the job's current state and every status change, completing once it succeeds or fails.
+     * Changes made by this instance's workers arrive at once; the job is also re-read every
+     * {@code watch-poll-interval}, since another instance may be the one running it.
+     */
+    public Flux<AIJob> watch(Long jobId) {
+        Flux<AIJob> changes = updates.asFlux().filter(job -> job.getId().equals(jobId));
+        Mono<AIJob> current = Mono.fromCallable(() -> aiJobRepository.findById(jobId)
+                        .orElseThrow(() -> new RuntimeException("AI job not found")))
+                .subscribeOn(Schedulers.boundedElastic());
+        Flux<AIJob> polled = Flux.interval(properties.getWatchPollInterval(), Schedulers.boundedElastic())
+                .concatMap(tick -> Mono.justOrEmpty(aiJobRepository.findById(jobId)));
+        return Flux.merge(changes, current, polled)
+                .distinctUntilChanged(AIJob::getStatus)
+                .takeUntil(job -> job.getStatus().isTerminal());
+    }
+
+    private void recover() {
+        reclaimExpired();
+        List<AIJob> queued = aiJobRepository.findByStatusOrderByIdAsc(AIJobStatus.QUEUED);
+        queued.forEach(job -> enqueue(job.getId()));
+        if (!queued.isEmpty()) {
+            recoveredJobs.increment(queued.size());
+            log.info("Re-queued {} AI jobs left by a previous process", queued.size());
+        }
+    }
+
+    private void renewLeases() {
+        try {
+            if (!running.isEmpty()) {
+                aiJobRepository.renewLeases(Set.copyOf(running), LocalDateTime.now());
+            }
+            List<Long> requeued = reclaimExpired();
+            requeued.forEach(this::enqueue);
+            if (!requeued.isEmpty()) {
+                recoveredJobs.increment(requeued.size());
+                log.info("Re-queued {} AI jobs whose lease expired", requeued.size());
+            }
+            List<Long> orphaned = orphanedQueued();
+            orphaned.forEach(this::enqueue);
+            if (!orphaned.isEmpty()) {
+                recoveredJobs.increment(orphaned.size());
+                log.info("Queued {} AI jobs left waiting by another instance", orphaned.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not renew AI job leases", e);
+        }
+    }
+
+    /**
+     * Takes back running jobs whose lease expired, failing those already interrupted too often. The
+     * updates only apply while the lease is still expired, so a job is taken back by one instance and
+     * never from a worker that renewed it in the meantime. Returns the ids moved back to queued.
+     */
+    private List<Long> reclaimExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiredBefore = now.minus(properties.getLease());
+        List<Long> requeued = new ArrayList<>();
+        for (AIJob job : aiJobRepository.findByStatusAndUpdatedAtBeforeOrderByIdAsc(AIJobStatus.RUNNING, expiredBefore)) {
+            if (running.contains(job.getId())) {
+                continue;
+            }
+            if (job.getAttempts() >= properties.getMaxAttempts()) {
+                aiJobRepository.failStale(job.getId(), expiredBefore,
+                        "Interrupted " + job.getAttempts() + " times, giving up", now);
+            } else if (aiJobRepository.requeueStale(job.getId(), expiredBefore, now) > 0) {
+                requeued.add(job.getId());
+            }
+        }
+        return requeued;
+    }
+
+    /**
+     * Queued jobs that have waited longer than a lease and are not in this instance's queue, most
+     * likely submitted to an instance that died. Queuing one that another instance still holds is
+     * harmless, since only one claim succeeds.
+     */
+    private List<Long> orphanedQueued() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(properties.getLease());
+        return aiJobRepository.findByStatusAndUpdatedAtBeforeOrderByIdAsc(AIJobStatus.QUEUED, expiredBefore).stream()
+                .map(AIJob::getId)
+                .filter(id -> !queued.contains(id))
+                .toList();
+    }
+
+    private void enqueue(Long jobId) {
+        if (!queued.add(jobId)) {
+            return;
+        }
+        pending.incrementAndGet();
+        queue.emitNext(jobId, RETRY_ON_CONTENTION);
+    }
+
+    private Mono<Void> process(Long jobId) {
+        queued.remove(jobId);
+        pending.decrementAndGet();
+        long startedNanos = System.nanoTime();
+        return Mono.fromCallable(() -> claim(jobId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(job -> Mono.defer(() -> execute(job))
+                        .flatMap(result -> finish(job, result, null))
+                        .onErrorResume(error -> {
+                            log.error("AI job {} failed", jobId, error);
+                            return finish(job, null, error.getMessage() != null ? error.getMessage() : error.toString());
+                        })
+                        .doOnNext(finished -> Timer.builder("ai.jobs.duration")
+                                .tag("task", finished.getTask().name().toLowerCase())
+                                .tag("status", finished.getStatus().name().toLowerCase())
+                                .register(meterRegistry)
+                                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS)))
+                .onErrorResume(error -> {
+                    log.error("Could not run AI job {}", jobId, error);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> running.remove(jobId))
+                .then();
+    }
+
+    /**
+     * Returns null, i.e. an empty Mono, when the job is gone or already taken.
+     */
+    private AIJob claim(Long jobId) {
+        if (aiJobRepository.claim(jobId, LocalDateTime.now()) == 0) {
+            return null;
+        }
+        running.add(jobId);
+        AIJob job = aiJobRepository.findById(jobId).orElse(null);
+        if (job != null) {
+            updates.emitNext(job, RETRY_ON_CONTENTION);
+        }
+        return job;
+    }
+
+    private Mono<Map<String, Object>> execute(AIJob job) {
+        Map<String, Object> parameters = fromJson(job.getParameters());
+        return switch (job.getTask()) {
+            case LESSON_PLAN -> {
+                LessonPlanParameters request = objectMapper.convertValue(parameters, LessonPlanParameters.class);
+                yield aiTeachingAssistantService.generateLessonPlan(
+                        request.topic(), request.gradeLevel(), request.duration(), request.learningObjectives(),
+                        request.regenerate());
+            }
+            case ASSESSMENT -> {
+                AssessmentParameters request = objectMapper.convertValue(parameters, AssessmentParameters.class);
+                yield aiTeachingAssistantService.generateAssessment(
+                        request.topic(), request.gradeLevel(), request.numQuestions(), request.difficultyMix(),
+                        request.regenerate());
+            }
+            case INTERVENTION_PLAN -> {
+                InterventionParameters request = objectMapper.convertValue(parameters, InterventionParameters.class);
+                yield aiTeachingAssistantService.generateInterventionPlan(
+                        request.studentId(), request.issue(), request.context());
+            }
+            default -> Mono.error(new IllegalStateException("Task " + job.getTask() + " cannot run as a job"));
+        };
+    }
+
+    /**
+     * The generators report upstream and parse failures as an {@code error} entry rather than an
+     * error signal, so those results fail the job too.
+     */
+    private Mono<AIJob> finish(AIJob job, Map<String, Object> result, String errorMessage) {
+        return Mono.fromCallable(() -> {
+                    String error = errorMessage;
+                    if (error == null && result != null && result.get("error") != null) {
+                        error = String.valueOf(result.get("error"));
+                    }
+                    job.setStatus(error == null ? AIJobStatus.SUCCEEDED : AIJobStatus.FAILED);
+                    job.setResult(result != null ? toJson(result) : null);
+                    job.setErrorMessage(error);
+                    job.setFinishedAt(LocalDateTime.now());
+                    AIJob saved = aiJobRepository.save(job);
+                    updates.emitNext(saved, RETRY_ON_CONTENTION);
+                    return saved;
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void validate(AITask task, Map<String, Object> parameters) {
+        if (parameters == null) {
+            throw new IllegalArgumentException("Job parameters are required");
+        }
+        switch (task) {
+            case LESSON_PLAN -> requireText(objectMapper.convertValue(parameters, LessonPlanParameters.class).topic(), "topic");
+            case ASSESSMENT -> requireText(objectMapper.convertValue(parameters, AssessmentParameters.class).topic(), "topic");
+            case INTERVENTION_PLAN -> {
+                InterventionParameters request = objectMapper.convertValue(parameters, InterventionParameters.class);
+                if (request.studentId() == null) {
+                    throw new IllegalArgumentException("studentId is required");
+                }
+                requireText(request.issue(), "issue");
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static void requireText(String value, String name) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+    }
+
+    private String toJson(Map<String, Object> value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Job data is not serializable", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, MAP_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored job parameters are not valid JSON", e);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record LessonPlanParameters(String topic, String gradeLevel, int duration, String learningObjectives,
+                                boolean regenerate) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record AssessmentParameters(String topic, String gradeLevel, int numQuestions, String difficultyMix,
+                                boolean regenerate) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record InterventionParameters(Long studentId, String issue, Map<String, Object> context) {
+    }
+}
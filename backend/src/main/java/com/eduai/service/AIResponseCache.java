@@ -0,0 +1,93 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqCacheProperties;
+import com.eduai.model.enums.AITask;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded LRU cache of Groq completions keyed on the normalized prompt and the model route.
+ * Each entry expires after the TTL configured for the task that produced it.
+ */
+@Component
+public class AIResponseCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final GroqCacheProperties properties;
+    private final Cache<String, CachedResponse> cache;
+
+    public AIResponseCache(GroqCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfter(new TaskTtlExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "groq.responses");
+    }
+
+    public Duration ttlFor(AITask task) {
+        return properties.isEnabled() ? properties.ttlFor(task) : Duration.ZERO;
+    }
+
+    public String key(String prompt, ModelRoute route) {
+        String normalized = WHITESPACE.matcher(prompt.strip()).replaceAll(" ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((route.model() + '\u0000' + route.temperature() + '\u0000' + route.maxTokens() + '\u0000')
+                    .getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        CachedResponse cached = cache.getIfPresent(key);
+        return Optional.ofNullable(cached).map(CachedResponse::content);
+    }
+
+    public void put(String key, String content, Duration ttl) {
+        if (!ttl.isNegative() && !ttl.isZero()) {
+            cache.put(key, new CachedResponse(content, ttl));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private record CachedResponse(String content, Duration ttl) {
+    }
+
+    private static class TaskTtlExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return value.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
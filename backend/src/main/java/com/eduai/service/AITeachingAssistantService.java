@@ -1,12 +1,16 @@
 package com.eduai.service;
 
+import com.eduai.model.enums.AITask;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -14,76 +18,126 @@ import java.util.Map;
 public class AITeachingAssistantService {
 
     private final GroqAIService groqAIService;
+    private final PromptTemplates promptTemplates;
+    private final ContentLibraryService contentLibraryService;
+    private final LocalGrader localGrader;
 
     public Mono<Map<String, Object>> generateLessonPlan(String topic, String gradeLevel, int duration, String learningObjectives) {
-        String prompt = String.format(
-            "Create a comprehensive lesson plan:\n" +
-            "Topic: %s\n" +
-            "Grade Level: %s\n" +
-            "Duration: %d minutes\n" +
-            "Learning Objectives: %s\n\n" +
-            "Include:\n" +
-            "1. Introduction hook activities\n" +
-            "2. Core instruction breakdown (5-10 min segments)\n" +
-            "3. Interactive activities with instructions\n" +
-            "4. Assessment checkpoints\n" +
-            "5. Differentiation strategies\n" +
-            "6. Materials list\n" +
-            "7. Homework assignments\n" +
-            "8. Extension activities\n\n" +
-            "Respond in JSON format with all sections structured.",
-            topic, gradeLevel, duration, learningObjectives
-        );
-
-        return groqAIService.generateStructuredResponse(prompt, "llama-3.1-70b-versatile")
-                .doOnNext(result -> log.info("Generated lesson plan for topic: {}", topic));
+        return generateLessonPlan(topic, gradeLevel, duration, learningObjectives, false);
+    }
+
+    /**
+     * Serves a stored plan for the same request from the content library unless {@code regenerate}
+     * is set, in which case a fresh plan is generated and stored as a new version.
+     */
+    public Mono<Map<String, Object>> generateLessonPlan(String topic, String gradeLevel, int duration,
+                                                        String learningObjectives, boolean regenerate) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("topic", topic);
+        request.put("gradeLevel", gradeLevel);
+        request.put("duration", duration);
+        request.put("learningObjectives", learningObjectives);
+
+        return contentLibraryService.getOrGenerate(AITask.LESSON_PLAN, request, regenerate, () -> {
+            String prompt = lessonPlanPrompt(topic, gradeLevel, duration, learningObjectives);
+            return groqAIService.generateStructuredResponse(AITask.LESSON_PLAN, prompt, regenerate)
+                    .doOnNext(result -> log.info("Generated lesson plan for topic: {}", topic));
+        });
+    }
+
+    public Flux<String> streamLessonPlan(String topic, String gradeLevel, int duration, String learningObjectives) {
+        return groqAIService.streamStructuredText(
+                AITask.LESSON_PLAN, lessonPlanPrompt(topic, gradeLevel, duration, learningObjectives));
     }
 
     public Mono<Map<String, Object>> generateAssessment(String topic, String gradeLevel, int numQuestions, String difficultyMix) {
-        String prompt = String.format(
-            "Generate assessment questions:\n" +
-            "Topic: %s\n" +
-            "Grade Level: %s\n" +
-            "Number of Questions: %d\n" +
-            "Difficulty Mix: %s\n\n" +
-            "Create mix of question types:\n" +
-            "- Multiple choice\n" +
-            "- Short answer\n" +
-            "- Essay questions\n\n" +
-            "Align with Bloom's Taxonomy. " +
-            "Respond in JSON: questions (array with type, question, options, answer, rubric, difficulty).",
-            topic, gradeLevel, numQuestions, difficultyMix
-        );
-
-        return groqAIService.generateStructuredResponse(prompt, "llama-3.1-70b-versatile");
+        return generateAssessment(topic, gradeLevel, numQuestions, difficultyMix, false);
+    }
+
+    public Mono<Map<String, Object>> generateAssessment(String topic, String gradeLevel, int numQuestions,
+                                                        String difficultyMix, boolean regenerate) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("topic", topic);
+        request.put("gradeLevel", gradeLevel);
+        request.put("numQuestions", numQuestions);
+        request.put("difficultyMix", difficultyMix);
+
+        return contentLibraryService.getOrGenerate(AITask.ASSESSMENT, request, regenerate, () ->
+                groqAIService.generateStructuredResponse(AITask.ASSESSMENT,
+                        assessmentPrompt(topic, gradeLevel, numQuestions, difficultyMix), regenerate));
+    }
+
+    public Flux<String> streamAssessment(String topic, String gradeLevel, int numQuestions, String difficultyMix) {
+        return groqAIService.streamStructuredText(
+                AITask.ASSESSMENT, assessmentPrompt(topic, gradeLevel, numQuestions, difficultyMix));
     }
 
     public Mono<Map<String, Object>> autoGradeAnswer(String question, String studentAnswer, String rubric) {
-        String prompt = String.format(
-            "Grade the student answer:\n" +
-            "Question: %s\n" +
-            "Student Answer: %s\n" +
-            "Rubric: %s\n\n" +
-            "Provide: score (0-100), feedback, strengths (array), improvements (array), " +
-            "partialCreditBreakdown. Use semantic analysis, not keyword matching.",
-            question, studentAnswer, rubric
-        );
-
-        return groqAIService.generateStructuredResponse(prompt, "llama-3.1-70b-versatile");
+        return autoGradeAnswer(question, studentAnswer, rubric, null);
+    }
+
+    /**
+     * Grades objective questions locally against {@code answerKey} and sends the rest to the LLM.
+     * Either way the result names the grader that produced it.
+     */
+    public Mono<Map<String, Object>> autoGradeAnswer(String question, String studentAnswer, String rubric,
+                                                     LocalGrader.AnswerKey answerKey) {
+        Optional<Map<String, Object>> graded = localGrader.grade(answerKey, studentAnswer);
+        if (graded.isPresent()) {
+            return Mono.just(graded.get());
+        }
+        String prompt = promptTemplates.prompt(AITask.AUTO_GRADE)
+                .with("question", question)
+                .verbatim("studentAnswer", studentAnswer)
+                .with("rubric", rubric)
+                .render();
+
+        return groqAIService.generateStructuredResponse(AITask.AUTO_GRADE, prompt)
+                .map(result -> {
+                    if (result.containsKey("error")) {
+                        return result;
+                    }
+                    localGrader.countGraded(LocalGrader.LLM);
+                    Map<String, Object> withGrader = new LinkedHashMap<>(result);
+                    withGrader.put("grader", LocalGrader.LLM);
+                    return withGrader;
+                });
     }
 
     public Mono<Map<String, Object>> generateInterventionPlan(Long studentId, String issue, Map<String, Object> context) {
-        String prompt = String.format(
-            "Create intervention plan:\n" +
-            "Student ID: %d\n" +
-            "Issue: %s\n" +
-            "Context: %s\n\n" +
-            "Provide: actionSteps (array), resources, timeline, expectedOutcomes, " +
-            "successMetrics, parentInvolvement (boolean).",
-            studentId, issue, context
-        );
-
-        return groqAIService.generateStructuredResponse(prompt, "llama-3.1-70b-versatile");
+        String prompt = interventionPlanPrompt(studentId, issue, context);
+
+        return groqAIService.generateStructuredResponse(AITask.INTERVENTION_PLAN, prompt);
     }
-}
 
+    public Flux<String> streamInterventionPlan(Long studentId, String issue, Map<String, Object> context) {
+        return groqAIService.streamStructuredText(
+                AITask.INTERVENTION_PLAN, interventionPlanPrompt(studentId, issue, context));
+    }
+
+    private String lessonPlanPrompt(String topic, String gradeLevel, int duration, String learningObjectives) {
+        return promptTemplates.prompt(AITask.LESSON_PLAN)
+                .with("topic", topic)
+                .with("gradeLevel", gradeLevel)
+                .with("duration", duration)
+                .with("learningObjectives", learningObjectives)
+                .render();
+    }
+
+    private String assessmentPrompt(String topic, String gradeLevel, int numQuestions, String difficultyMix) {
+        return promptTemplates.prompt(AITask.ASSESSMENT)
+                .with("topic", topic)
+                .with("gradeLevel", gradeLevel)
+                .with("numQuestions", numQuestions)
+                .with("difficultyMix", difficultyMix)
+                .render();
+    }
+
+    private String interventionPlanPrompt(Long studentId, String issue, Map<String, Object> context) {
+        return promptTemplates.prompt(AITask.INTERVENTION_PLAN)
+                .with("studentId", studentId)
+                .with("issue", issue)
+                .with("context", context)
+                .render();
+    }
+}
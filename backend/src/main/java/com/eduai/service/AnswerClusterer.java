@@ -0,0 +1,215 @@
+package com.eduai.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Groups near-identical short answers so each group is graded once. Answers are normalized, shingled
+ * into character trigrams and summarized by MinHash signatures; LSH banding finds candidate groups
+ * without comparing every pair. An answer joins a group only if its estimated similarity to the
+ * group's representative reaches the threshold and both mention the same numbers and negations,
+ * since "the answer is 42" and "the answer is 43" are textually close but graded differently.
+ */
+@Component
+public class AnswerClusterer {
+
+    private static final Pattern PUNCTUATION = Pattern.compile("[^\\p{L}\\p{N}\\s.]|(?<!\\d)\\.|\\.(?!\\d)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?");
+    private static final Pattern APOSTROPHE = Pattern.compile("['\u2019]");
+    private static final Set<String> NEGATIONS = Set.of("no", "not", "never", "none", "cannot", "cant", "isnt",
+            "arent", "wasnt", "dont", "doesnt", "didnt", "wont", "false", "without");
+    private static final int SHINGLE_SIZE = 3;
+
+    private final boolean enabled;
+    private final double threshold;
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+
+    public AnswerClusterer(@Value("${groq.batch-grading.clustering.enabled:true}") boolean enabled,
+                           @Value("${groq.batch-grading.clustering.similarity-threshold:0.9}") double threshold,
+                           @Value("${groq.batch-grading.clustering.bands:16}") int bands,
+                           @Value("${groq.batch-grading.clustering.rows-per-band:4}") int rows) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.bands = bands;
+        this.rows = rows;
+        SplittableRandom random = new SplittableRandom(0x5eed);
+        this.seeds = random.longs(bands * rows).toArray();
+    }
+
+    /**
+     * Clusters {@code items} by the text {@code answerOf} returns, keeping input order: the first
+     * member of each cluster is its representative, and clusters are listed in order of their
+     * representatives.
+     */
+    public <T> List<Cluster<T>> cluster(List<T> items, Function<T, String> answerOf) {
+        List<Cluster<T>> clusters = new ArrayList<>();
+        if (!enabled) {
+            items.forEach(item -> clusters.add(new Cluster<>(item)));
+            return clusters;
+        }
+        Map<String, Cluster<T>> exact = new HashMap<>();
+        Map<Long, List<Leader<T>>> buckets = new HashMap<>();
+
+        for (T item : items) {
+            String normalized = normalize(answerOf.apply(item));
+            Cluster<T> same = exact.get(normalized);
+            if (same != null) {
+                same.members.add(item);
+                continue;
+            }
+            long[] signature = signature(normalized);
+            Fingerprint fingerprint = fingerprint(normalized);
+            long[] bandKeys = bandKeys(signature);
+
+            Leader<T> best = null;
+            double bestSimilarity = threshold;
+            Set<Leader<T>> seen = new HashSet<>();
+            for (long bandKey : bandKeys) {
+                for (Leader<T> candidate : buckets.getOrDefault(bandKey, List.of())) {
+                    if (!seen.add(candidate) || !candidate.fingerprint.equals(fingerprint)) {
+                        continue;
+                    }
+                    double similarity = similarity(signature, candidate.signature);
+                    if (similarity >= bestSimilarity) {
+                        best = candidate;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+
+            if (best != null) {
+                best.cluster.members.add(item);
+                exact.put(normalized, best.cluster);
+                continue;
+            }
+            Cluster<T> cluster = new Cluster<>(item);
+            clusters.add(cluster);
+            exact.put(normalized, cluster);
+            Leader<T> leader = new Leader<>(cluster, signature, fingerprint);
+            for (long bandKey : bandKeys) {
+                buckets.computeIfAbsent(bandKey, key -> new ArrayList<>()).add(leader);
+            }
+        }
+        return clusters;
+    }
+
+    static String normalize(String answer) {
+        if (answer == null) {
+            return "";
+        }
+        String lower = APOSTROPHE.matcher(answer.toLowerCase(Locale.ROOT)).replaceAll("");
+        return WHITESPACE.matcher(PUNCTUATION.matcher(lower).replaceAll(" ").strip()).replaceAll(" ");
+    }
+
+    private long[] signature(String normalized) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long shingle : shingles(normalized)) {
+            for (int i = 0; i < signature.length; i++) {
+                long hash = mix(shingle ^ seeds[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static Set<Long> shingles(String normalized) {
+        Set<Long> shingles = new HashSet<>();
+        if (normalized.length() <= SHINGLE_SIZE) {
+            shingles.add(fnv(normalized));
+            return shingles;
+        }
+        for (int i = 0; i + SHINGLE_SIZE <= normalized.length(); i++) {
+            shingles.add(fnv(normalized.substring(i, i + SHINGLE_SIZE)));
+        }
+        return shingles;
+    }
+
+    private long[] bandKeys(long[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = key * 31 + signature[band * rows + row];
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static double similarity(long[] left, long[] right) {
+        int equal = 0;
+        for (int i = 0; i < left.length; i++) {
+            if (left[i] == right[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / left.length;
+    }
+
+    private static Fingerprint fingerprint(String normalized) {
+        List<String> numbers = new ArrayList<>();
+        NUMBER.matcher(normalized).results().forEach(match -> numbers.add(match.group()));
+        long negations = Arrays.stream(normalized.split(" ")).filter(NEGATIONS::contains).count();
+        return new Fingerprint(numbers, negations);
+    }
+
+    /**
+     * SplitMix64 finalizer; one seed per signature row gives independent-enough hash functions.
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return (z ^ (z >>> 31)) & Long.MAX_VALUE;
+    }
+
+    private static long fnv(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash & Long.MAX_VALUE;
+    }
+
+    public static final class Cluster<T> {
+        private final List<T> members = new ArrayList<>();
+
+        private Cluster(T representative) {
+            members.add(representative);
+        }
+
+        public T representative() {
+            return members.get(0);
+        }
+
+        public List<T> members() {
+            return members;
+        }
+    }
+
+    private record Leader<T>(Cluster<T> cluster, long[] signature, Fingerprint fingerprint) {
+    }
+
+    private record Fingerprint(List<String> numbers, long negations) {
+    }
+}
@@ -22,6 +22,7 @@ import java.util.Optional;
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final EntityCache entityCache;
     private final PasswordEncoder passwordEncoder;
     
     @Value("${jwt.secret}")
@@ -31,7 +32,7 @@ public class AuthService {
     private Long jwtExpiration;
 
     public User register(String email, String password, String firstName, String lastName, UserRole role) {
-        if (userRepository.existsByEmail(email)) {
+        if (entityCache.findUserByEmail(email).isPresent()) {
             throw new RuntimeException("Email already exists");
         }
 
@@ -43,11 +44,13 @@ public class AuthService {
         user.setRole(role);
         user.setIsActive(true);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        entityCache.evictUser(email);
+        return saved;
     }
 
     public String login(String email, String password) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
+        Optional<User> userOpt = entityCache.findUserByEmail(email);
         
         if (userOpt.isEmpty() || !passwordEncoder.matches(password, userOpt.get().getPassword())) {
             throw new RuntimeException("Invalid email or password");
@@ -79,7 +82,7 @@ public class AuthService {
     }
 
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return entityCache.findUserByEmail(email);
     }
 }
 
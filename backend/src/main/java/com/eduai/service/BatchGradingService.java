@@ -0,0 +1,226 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import com.eduai.model.enums.AIRequestPriority;
+import com.eduai.model.enums.AITask;
+import com.eduai.repository.GradeRepository;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Grades every submission of an assignment with as few LLM calls as possible: near-identical answers
+ * are clustered and only one per cluster is graded, short answers are packed several to a prompt,
+ * packs are graded with bounded parallelism at background priority, and each pack's scores are
+ * written back in one transaction, copied to the rest of each cluster.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchGradingService {
+
+    /**
+     * Share of {@code max-prompt-tokens} that packs are filled to, leaving room for the error of the
+     * local token estimate.
+     */
+    static final double PACK_BUDGET_SHARE = 0.9;
+
+    private final GroqAIService groqAIService;
+    private final GradebookService gradebookService;
+    private final GradeRepository gradeRepository;
+    private final EntityCache entityCache;
+    private final PromptTemplates promptTemplates;
+    private final AnswerClusterer answerClusterer;
+
+    @Value("${groq.batch-grading.concurrency:4}")
+    private int concurrency;
+
+    @Value("${groq.batch-grading.max-answers-per-prompt:10}")
+    private int maxAnswersPerPrompt;
+
+    @Value("${groq.batch-grading.max-prompt-tokens:6000}")
+    private int maxPromptTokens;
+
+    /**
+     * Emits a progress map after each pack is persisted. Submissions that were already graded are
+     * skipped unless {@code regrade} is set.
+     */
+    public Flux<Map<String, Object>> gradeAssignment(Long assignmentId, boolean regrade) {
+        return Mono.fromCallable(() -> loadSubmissions(assignmentId, regrade))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(submissions -> {
+                    Assignment assignment = submissions.assignment();
+                    List<AnswerClusterer.Cluster<Grade>> clusters =
+                            answerClusterer.cluster(submissions.grades(), Grade::getSubmissionText);
+                    List<List<AnswerClusterer.Cluster<Grade>>> packs = pack(assignment, clusters);
+                    int total = submissions.grades().size();
+                    AtomicInteger graded = new AtomicInteger();
+                    AtomicInteger failed = new AtomicInteger();
+                    log.info("Auto-grading {} submissions ({} distinct) for assignment {} in {} prompts",
+                            total, clusters.size(), assignmentId, packs.size());
+
+                    return Flux.fromIterable(packs)
+                            .flatMap(pack -> gradePack(assignment, pack, regrade), concurrency)
+                            .map(saved -> {
+                                graded.addAndGet(saved.graded());
+                                failed.addAndGet(saved.failed());
+                                return progress(assignmentId, total, clusters.size(), graded.get(), failed.get(), false);
+                            })
+                            .concatWith(Mono.fromSupplier(() ->
+                                    progress(assignmentId, total, clusters.size(), graded.get(), failed.get(), true)))
+                            .contextWrite(GroqRateLimiter.withPriority(AIRequestPriority.BACKGROUND));
+                });
+    }
+
+    private Submissions loadSubmissions(Long assignmentId, boolean regrade) {
+        Assignment assignment = entityCache.findAssignment(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        List<Grade> grades = gradeRepository.findByAssignmentId(assignmentId).stream()
+                .filter(grade -> grade.getSubmissionText() != null && !grade.getSubmissionText().isBlank())
+                .filter(grade -> regrade || grade.getGradedAt() == null)
+                .toList();
+        return new Submissions(assignment, grades);
+    }
+
+    /**
+     * Greedily fills each prompt with cluster representatives up to the token budget and answer cap,
+     * sizing each answer as it is rendered into the prompt, i.e. as a JSON entry with its quotes and
+     * escapes. An answer that does not fit alongside others is sent on its own, in full.
+     */
+    private List<List<AnswerClusterer.Cluster<Grade>>> pack(Assignment assignment,
+                                                            List<AnswerClusterer.Cluster<Grade>> clusters) {
+        int budget = (int) (maxPromptTokens * PACK_BUDGET_SHARE)
+                - PromptTemplates.estimateTokens(gradingPrompt(assignment, Map.of()));
+        List<List<AnswerClusterer.Cluster<Grade>>> packs = new ArrayList<>();
+        List<AnswerClusterer.Cluster<Grade>> current = new ArrayList<>();
+        int used = 0;
+
+        for (AnswerClusterer.Cluster<Grade> cluster : clusters) {
+            Grade representative = cluster.representative();
+            int size = promptTemplates.estimateRenderedTokens(Map.of(representative.getId(), representative.getSubmissionText()));
+            if (!current.isEmpty() && (used + size > budget || current.size() >= maxAnswersPerPrompt)) {
+                packs.add(current);
+                current = new ArrayList<>();
+                used = 0;
+            }
+            current.add(cluster);
+            used += size;
+        }
+        if (!current.isEmpty()) {
+            packs.add(current);
+        }
+        return packs;
+    }
+
+    /**
+     * A regrade skips the response cache; otherwise an unchanged pack would get its cached scores back.
+     */
+    private Mono<PackResult> gradePack(Assignment assignment, List<AnswerClusterer.Cluster<Grade>> pack, boolean regrade) {
+        Map<Long, String> answers = new LinkedHashMap<>();
+        Map<Long, List<Grade>> membersByRepresentative = new HashMap<>();
+        for (AnswerClusterer.Cluster<Grade> cluster : pack) {
+            Grade representative = cluster.representative();
+            answers.put(representative.getId(), representative.getSubmissionText());
+            membersByRepresentative.put(representative.getId(), cluster.members());
+        }
+        int submissions = pack.stream().mapToInt(cluster -> cluster.members().size()).sum();
+
+        return groqAIService.generateStructuredResponse(AITask.AUTO_GRADE, gradingPrompt(assignment, answers),
+                        GradingResponse.class, regrade)
+                .map(response -> fanOut(toGradeUpdates(assignment, answers, response), membersByRepresentative))
+                .flatMap(updates -> Mono.fromCallable(() -> gradebookService.applyGradeUpdates(assignment, updates))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .map(saved -> new PackResult(saved.size(), submissions - saved.size()))
+                .onErrorResume(error -> {
+                    log.error("Failed to auto-grade {} submissions for assignment {}", submissions, assignment.getId(), error);
+                    return Mono.just(new PackResult(0, submissions));
+                });
+    }
+
+    /**
+     * Copies each representative's score and feedback to the other members of its cluster, recording
+     * the representative as the source.
+     */
+    private static List<GradebookService.GradeUpdate> fanOut(List<GradebookService.GradeUpdate> updates,
+                                                             Map<Long, List<Grade>> membersByRepresentative) {
+        List<GradebookService.GradeUpdate> expanded = new ArrayList<>(updates);
+        for (GradebookService.GradeUpdate update : updates) {
+            for (Grade member : membersByRepresentative.getOrDefault(update.gradeId(), List.of())) {
+                if (!member.getId().equals(update.gradeId())) {
+                    expanded.add(new GradebookService.GradeUpdate(
+                            member.getId(), update.pointsEarned(), update.feedback(), update.gradeId()));
+                }
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Answers are sent verbatim, since trimming them would grade students on part of their work. The
+     * packer keeps prompts within budget instead.
+     */
+    private String gradingPrompt(Assignment assignment, Map<Long, String> answers) {
+        return promptTemplates.prompt(AITask.AUTO_GRADE, "auto-grade-batch")
+                .with("question", assignment.getDescription() != null ? assignment.getDescription() : assignment.getTitle())
+                .with("rubric", assignment.getRubric())
+                .verbatim("answers", answers)
+                .render();
+    }
+
+    private List<GradebookService.GradeUpdate> toGradeUpdates(Assignment assignment, Map<Long, String> answers,
+                                                             GradingResponse response) {
+        if (response == null || response.results() == null) {
+            throw new IllegalStateException("Grading response has no results");
+        }
+        double maxPoints = assignment.getMaxPoints() != null ? assignment.getMaxPoints() : 100.0;
+        List<GradebookService.GradeUpdate> updates = new ArrayList<>();
+
+        for (GradingResult result : response.results()) {
+            if (result == null || result.id() == null || result.score() == null || !answers.containsKey(result.id())) {
+                continue;
+            }
+            double clamped = Math.max(0, Math.min(100, result.score()));
+            updates.add(new GradebookService.GradeUpdate(result.id(), clamped / 100 * maxPoints, result.feedback()));
+        }
+        return updates;
+    }
+
+    private Map<String, Object> progress(Long assignmentId, int total, int distinct, int graded, int failed,
+                                         boolean complete) {
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("assignmentId", assignmentId);
+        progress.put("total", total);
+        progress.put("distinctAnswers", distinct);
+        progress.put("graded", graded);
+        progress.put("failed", failed);
+        progress.put("complete", complete);
+        return progress;
+    }
+
+    private record Submissions(Assignment assignment, List<Grade> grades) {
+    }
+
+    private record PackResult(int graded, int failed) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record GradingResponse(List<GradingResult> results) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record GradingResult(Long id, Double score, String feedback) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.eduai.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between application instances. Implementations also deliver an
+ * instance's own invalidations back to it, and may drop messages; a subscriber that is told it may
+ * have missed some receives an invalidation with a {@code null} cache and key.
+ */
+public interface CacheInvalidationBus {
+
+    void publish(Invalidation invalidation);
+
+    void subscribe(Consumer<Invalidation> subscriber);
+
+    /**
+     * Removes {@code key} from the cache named {@code cache}; a {@code null} key clears that cache and
+     * a {@code null} cache clears every cache.
+     */
+    record Invalidation(String cache, String key) {
+    }
+}
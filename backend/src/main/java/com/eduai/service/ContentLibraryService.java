@@ -0,0 +1,222 @@
+package com.eduai.service;
+
+import com.eduai.model.GeneratedContent;
+import com.eduai.model.enums.AITask;
+import com.eduai.repository.GeneratedContentRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Persistent library of generated lesson plans and assessments. Requests are normalized and hashed,
+ * so the same topic, grade and options asked for again in a later term are served from the database
+ * instead of Groq. Unlike {@link AIResponseCache} entries never expire; regenerating stores a new
+ * version next to the old ones.
+ */
+@Service
+@Slf4j
+public class ContentLibraryService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+    private static final int MAX_LIMIT = 100;
+
+    private final GeneratedContentRepository generatedContentRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public ContentLibraryService(GeneratedContentRepository generatedContentRepository, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry, @Value("${ai-library.enabled:true}") boolean enabled) {
+        this.generatedContentRepository = generatedContentRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the newest stored version for the request, or generates, stores and returns a new one.
+     * With {@code regenerate} the stored versions are skipped and the result becomes the next version.
+     * Results carrying an {@code error} entry are returned but never stored.
+     */
+    public Mono<Map<String, Object>> getOrGenerate(AITask task, Map<String, Object> request, boolean regenerate,
+                                                   Supplier<Mono<Map<String, Object>>> generator) {
+        if (!enabled) {
+            return generator.get();
+        }
+        String canonicalRequest = canonicalize(request);
+        String hash = hash(task, canonicalRequest);
+
+        Mono<Map<String, Object>> generate = Mono.defer(generator)
+                .flatMap(result -> result.get("error") != null
+                        ? Mono.just(result)
+                        : Mono.fromCallable(() -> store(task, hash, canonicalRequest, result))
+                                .subscribeOn(Schedulers.boundedElastic()));
+        if (regenerate) {
+            count(task, "regenerate");
+            return generate;
+        }
+        return Mono.fromCallable(() -> reuse(task, hash))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(stored -> count(task, "hit"))
+                .switchIfEmpty(Mono.defer(() -> {
+                    count(task, "miss");
+                    return generate;
+                }));
+    }
+
+    public Optional<GeneratedContent> getContent(Long id) {
+        return generatedContentRepository.findById(id);
+    }
+
+    /**
+     * Every stored version for the same request as the given entry, newest first.
+     */
+    public List<GeneratedContent> versions(Long id) {
+        return generatedContentRepository.findById(id)
+                .map(content -> generatedContentRepository.findByTaskAndContentHashOrderByVersionDesc(
+                        content.getTask(), content.getContentHash()))
+                .orElseThrow(() -> new RuntimeException("Library entry not found"));
+    }
+
+    public Map<String, Object> listContents(AITask task, int page, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Page<GeneratedContent> contents = generatedContentRepository.findByTask(task,
+                PageRequest.of(Math.max(page, 1) - 1, pageSize, Sort.by(Sort.Direction.DESC, "reuseCount", "id")));
+
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("page", Math.max(page, 1));
+        pagination.put("limit", pageSize);
+        pagination.put("total", contents.getTotalElements());
+        pagination.put("totalPages", contents.getTotalPages());
+        pagination.put("hasNextPage", contents.hasNext());
+        pagination.put("hasPrevPage", page > 1);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", contents.getContent());
+        response.put("pagination", pagination);
+        return response;
+    }
+
+    /**
+     * Lower-cases and collapses whitespace in every string and orders keys, so requests that differ
+     * only in spelling case, spacing or field order share an entry.
+     */
+    String canonicalize(Map<String, Object> request) {
+        Map<String, Object> normalized = new TreeMap<>();
+        request.forEach((key, value) -> {
+            Object canonical = value instanceof String text ? normalize(text) : value;
+            if (canonical != null) {
+                normalized.put(key, canonical);
+            }
+        });
+        return toJson(normalized);
+    }
+
+    private static String normalize(String text) {
+        String collapsed = WHITESPACE.matcher(text.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return collapsed.isEmpty() ? null : collapsed;
+    }
+
+    private static String hash(AITask task, String canonicalRequest) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((task.name() + '\u0000').getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Returns null, i.e. an empty Mono, on a miss.
+     */
+    private Map<String, Object> reuse(AITask task, String hash) {
+        GeneratedContent stored = generatedContentRepository.findFirstByTaskAndContentHashOrderByVersionDesc(task, hash)
+                .orElse(null);
+        if (stored == null) {
+            return null;
+        }
+        generatedContentRepository.recordReuse(stored.getId(), LocalDateTime.now());
+        stored.setReuseCount(stored.getReuseCount() + 1);
+        return withLibraryInfo(readContent(stored), stored, true);
+    }
+
+    private Map<String, Object> store(AITask task, String hash, String canonicalRequest, Map<String, Object> result) {
+        int version = generatedContentRepository.findFirstByTaskAndContentHashOrderByVersionDesc(task, hash)
+                .map(latest -> latest.getVersion() + 1)
+                .orElse(1);
+        GeneratedContent content = new GeneratedContent();
+        content.setTask(task);
+        content.setContentHash(hash);
+        content.setVersion(version);
+        content.setRequest(canonicalRequest);
+        content.setContent(toJson(result));
+        try {
+            GeneratedContent saved = generatedContentRepository.save(content);
+            log.info("Stored {} version {} in the content library", task, version);
+            return withLibraryInfo(result, saved, false);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request stored the same version first; the caller still gets its result.
+            log.warn("Could not store {} in the content library: {}", task, e.getMessage());
+            return result;
+        }
+    }
+
+    private String toJson(Map<String, Object> value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Library data is not serializable", e);
+        }
+    }
+
+    private Map<String, Object> readContent(GeneratedContent stored) {
+        try {
+            return objectMapper.readValue(stored.getContent(), MAP_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored library content is not valid JSON", e);
+        }
+    }
+
+    private static Map<String, Object> withLibraryInfo(Map<String, Object> result, GeneratedContent content, boolean reused) {
+        Map<String, Object> library = new LinkedHashMap<>();
+        library.put("id", content.getId());
+        library.put("version", content.getVersion());
+        library.put("reused", reused);
+        library.put("reuseCount", content.getReuseCount());
+        Map<String, Object> response = new LinkedHashMap<>(result);
+        response.put("library", library);
+        return response;
+    }
+
+    private void count(AITask task, String outcome) {
+        meterRegistry.counter("ai.library.requests", "task", task.name().toLowerCase(), "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,275 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.CourseGradeSummary;
+import com.eduai.model.Grade;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.CourseGradeSummaryRepository;
+import com.eduai.repository.GradeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains {@code course_grade_summary}, the materialized form of
+ * {@link GradebookService#calculateStudentGrade}. Grade changes are applied as deltas to the
+ * student's row; assignment changes adjust or rebuild the rows of the whole course. Rows are created
+ * on first use, so students graded before the table existed are picked up lazily or by
+ * {@link #verify}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourseGradeSummaryService {
+
+    private static final double TOLERANCE = 1e-6;
+
+    private final CourseGradeSummaryRepository courseGradeSummaryRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final GradeRepository gradeRepository;
+
+    /**
+     * What one grade adds to its student's summary. Weighted assignments are already counted in the
+     * course weight, so only a graded unweighted assignment adds weight of its own.
+     */
+    public record Contribution(double points, double weight, int completed) {
+
+        public static final Contribution NONE = new Contribution(0, 0, 0);
+
+        public static Contribution of(Grade grade, Assignment assignment) {
+            if (grade == null || assignment == null) {
+                return NONE;
+            }
+            if (grade.getPercentage() == null) {
+                return new Contribution(0, 0, 1);
+            }
+            double weight = assignment.getWeightPercentage() != null ? assignment.getWeightPercentage() : 1.0;
+            return new Contribution(grade.getPercentage() * weight, assignment.getWeightPercentage() == null ? 1.0 : 0, 1);
+        }
+    }
+
+    /**
+     * Applies the change of one grade from {@code before} to {@code after}. Must run in the
+     * transaction that saved the grade.
+     */
+    public void recordGradeChange(Long studentId, Assignment assignment, Contribution before, Contribution after) {
+        if (assignment == null || assignment.getCourseId() == null) {
+            return;
+        }
+        double points = after.points() - before.points();
+        double weight = after.weight() - before.weight();
+        int completed = after.completed() - before.completed();
+        if (points == 0 && weight == 0 && completed == 0) {
+            return;
+        }
+        if (courseGradeSummaryRepository.addGrade(studentId, assignment.getCourseId(), points, weight, completed) == 0
+                && insertIfAbsent(compute(studentId, assignment.getCourseId())) == 0) {
+            // A concurrent first write created the row from a snapshot without this change
+            courseGradeSummaryRepository.addGrade(studentId, assignment.getCourseId(), points, weight, completed);
+        }
+    }
+
+    public void recordAssignmentCreated(Assignment assignment) {
+        if (assignment.getCourseId() != null) {
+            double weight = assignment.getWeightPercentage() != null ? assignment.getWeightPercentage() : 0;
+            courseGradeSummaryRepository.addAssignment(assignment.getCourseId(), weight, 1);
+        }
+    }
+
+    /**
+     * Recomputes every row of the course, e.g. after an assignment's weight or max points changed.
+     */
+    public void rebuildCourse(Long courseId) {
+        if (courseId != null) {
+            reconcile(courseId, true, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Reads the student's final grade from the summary, creating the row on first use.
+     */
+    @Transactional
+    public Map<String, Object> studentGrade(Long studentId, Long courseId) {
+        Optional<CourseGradeSummary> stored = courseGradeSummaryRepository.findByStudentIdAndCourseId(studentId, courseId);
+        if (stored.isPresent()) {
+            return toResult(stored.get());
+        }
+        CourseGradeSummary computed = compute(studentId, courseId);
+        if (insertIfAbsent(computed) > 0) {
+            return toResult(computed);
+        }
+        return toResult(courseGradeSummaryRepository.findByStudentIdAndCourseId(studentId, courseId).orElse(computed));
+    }
+
+    /**
+     * Compares stored rows against a full recompute for one course, or every course if
+     * {@code courseId} is null, and optionally repairs the differences.
+     */
+    @Transactional
+    public Map<String, Object> verify(Long courseId, boolean repair) {
+        List<Long> courseIds = courseId != null ? List.of(courseId) : assignmentRepository.findCourseIds();
+        List<Map<String, Object>> mismatches = new ArrayList<>();
+        int checked = 0;
+        for (Long id : courseIds) {
+            checked += reconcile(id, repair, mismatches);
+        }
+        if (!mismatches.isEmpty()) {
+            log.warn("Found {} course grade summaries out of date{}", mismatches.size(), repair ? ", repaired" : "");
+        }
+        Map<String, Object> report = new HashMap<>();
+        report.put("courses", courseIds.size());
+        report.put("checked", checked);
+        report.put("mismatched", mismatches.size());
+        report.put("repaired", repair ? mismatches.size() : 0);
+        report.put("mismatches", mismatches);
+        return report;
+    }
+
+    /**
+     * Final grades of every student graded in the course, computed from the grades table with one
+     * aggregate query rather than read from the summary rows, ordered by student id.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> courseGrades(Long courseId) {
+        List<Assignment> assignments = assignmentRepository.findByCourseId(courseId);
+        List<Map<String, Object>> rows = computeCourse(courseId, assignments).values().stream()
+                .sorted(Comparator.comparing(CourseGradeSummary::getStudentId))
+                .map(CourseGradeSummaryService::toResult)
+                .toList();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("courseId", courseId);
+        response.put("assignmentsTotal", assignments.size());
+        response.put("data", rows);
+        return response;
+    }
+
+    private Map<Long, CourseGradeSummary> computeCourse(Long courseId, List<Assignment> assignments) {
+        Map<Long, CourseGradeSummary> summaries = new HashMap<>();
+        if (assignments.isEmpty()) {
+            return summaries;
+        }
+        for (GradeRepository.CourseTotals totals : gradeRepository.sumByStudentInCourse(courseId)) {
+            CourseGradeSummary summary = emptySummary(totals.getStudentId(), courseId, assignments);
+            add(summary, new Contribution(totals.getWeightedPoints(), totals.getUnweightedGraded(),
+                    totals.getCompleted().intValue()));
+            summaries.put(totals.getStudentId(), summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * Recomputes the course in two queries and compares the result with the stored rows, writing
+     * back the differences if {@code repair} is set.
+     */
+    private int reconcile(Long courseId, boolean repair, List<Map<String, Object>> mismatches) {
+        List<Assignment> assignments = assignmentRepository.findByCourseId(courseId);
+        Map<Long, CourseGradeSummary> expected = computeCourse(courseId, assignments);
+
+        List<CourseGradeSummary> stored = courseGradeSummaryRepository.findByCourseId(courseId);
+        Map<Long, CourseGradeSummary> storedByStudent = stored.stream()
+                .collect(Collectors.toMap(CourseGradeSummary::getStudentId, Function.identity()));
+        Set<Long> studentIds = new HashSet<>(storedByStudent.keySet());
+        studentIds.addAll(expected.keySet());
+
+        List<CourseGradeSummary> repaired = new ArrayList<>();
+        List<CourseGradeSummary> created = new ArrayList<>();
+        for (Long studentId : studentIds) {
+            CourseGradeSummary actual = storedByStudent.get(studentId);
+            CourseGradeSummary wanted = expected.getOrDefault(studentId, emptySummary(studentId, courseId, assignments));
+            if (actual != null && matches(actual, wanted)) {
+                continue;
+            }
+            Map<String, Object> mismatch = new HashMap<>();
+            mismatch.put("courseId", courseId);
+            mismatch.put("studentId", studentId);
+            mismatch.put("stored", actual != null ? toResult(actual) : null);
+            mismatch.put("expected", toResult(wanted));
+            mismatches.add(mismatch);
+            if (actual != null) {
+                actual.setWeightedPoints(wanted.getWeightedPoints());
+                actual.setTotalWeight(wanted.getTotalWeight());
+                actual.setCompletedCount(wanted.getCompletedCount());
+                actual.setAssignmentCount(wanted.getAssignmentCount());
+                repaired.add(actual);
+            } else {
+                created.add(wanted);
+            }
+        }
+        if (repair && !repaired.isEmpty()) {
+            courseGradeSummaryRepository.saveAll(repaired);
+        }
+        if (repair) {
+            created.forEach(this::insertIfAbsent);
+        }
+        return studentIds.size();
+    }
+
+    private int insertIfAbsent(CourseGradeSummary summary) {
+        return courseGradeSummaryRepository.insertIfAbsent(summary.getStudentId(), summary.getCourseId(),
+                summary.getWeightedPoints(), summary.getTotalWeight(), summary.getCompletedCount(),
+                summary.getAssignmentCount());
+    }
+
+    private CourseGradeSummary compute(Long studentId, Long courseId) {
+        List<Assignment> assignments = assignmentRepository.findByCourseId(courseId);
+        Map<Long, Assignment> assignmentsById = assignments.stream()
+                .collect(Collectors.toMap(Assignment::getId, Function.identity()));
+        CourseGradeSummary summary = emptySummary(studentId, courseId, assignments);
+        if (!assignmentsById.isEmpty()) {
+            for (Grade grade : gradeRepository.findByStudentIdAndAssignmentIdIn(studentId, new ArrayList<>(assignmentsById.keySet()))) {
+                add(summary, Contribution.of(grade, assignmentsById.get(grade.getAssignmentId())));
+            }
+        }
+        return summary;
+    }
+
+    private static CourseGradeSummary emptySummary(Long studentId, Long courseId, List<Assignment> assignments) {
+        CourseGradeSummary summary = new CourseGradeSummary();
+        summary.setStudentId(studentId);
+        summary.setCourseId(courseId);
+        summary.setTotalWeight(assignments.stream()
+                .filter(assignment -> assignment.getWeightPercentage() != null)
+                .mapToDouble(Assignment::getWeightPercentage)
+                .sum());
+        summary.setAssignmentCount(assignments.size());
+        return summary;
+    }
+
+    private static void add(CourseGradeSummary summary, Contribution contribution) {
+        summary.setWeightedPoints(summary.getWeightedPoints() + contribution.points());
+        summary.setTotalWeight(summary.getTotalWeight() + contribution.weight());
+        summary.setCompletedCount(summary.getCompletedCount() + contribution.completed());
+    }
+
+    private static boolean matches(CourseGradeSummary actual, CourseGradeSummary expected) {
+        return Math.abs(actual.getWeightedPoints() - expected.getWeightedPoints()) < TOLERANCE
+                && Math.abs(actual.getTotalWeight() - expected.getTotalWeight()) < TOLERANCE
+                && actual.getCompletedCount().equals(expected.getCompletedCount())
+                && actual.getAssignmentCount().equals(expected.getAssignmentCount());
+    }
+
+    static Map<String, Object> toResult(CourseGradeSummary summary) {
+        double finalPercentage = summary.getTotalWeight() > 0 ? summary.getWeightedPoints() / summary.getTotalWeight() : 0.0;
+        return Map.of(
+                "studentId", summary.getStudentId(),
+                "courseId", summary.getCourseId(),
+                "finalPercentage", finalPercentage,
+                "letterGrade", GradebookService.calculateLetterGrade(finalPercentage),
+                "assignmentsCompleted", summary.getCompletedCount(),
+                "assignmentsTotal", summary.getAssignmentCount()
+        );
+    }
+}
@@ -0,0 +1,95 @@
+package com.eduai.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: comma separated, double-quoted fields with {@code ""} escapes
+ * and line breaks inside quotes. Reads one record at a time, so memory does not depend on file size.
+ */
+final class CsvRecordReader {
+
+    private final Reader reader;
+    private int lineNumber = 1;
+    private int recordLine;
+    private boolean finished;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next record, or null at the end of input. Blank lines are skipped.
+     */
+    List<String> next() throws IOException {
+        while (!finished) {
+            List<String> record = readRecord();
+            if (record != null && !(record.size() == 1 && record.get(0).isEmpty())) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Line on which the last returned record started.
+     */
+    int recordLine() {
+        return recordLine;
+    }
+
+    private List<String> readRecord() throws IOException {
+        recordLine = lineNumber;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean sawAny = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            sawAny = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                lineNumber++;
+                fields.add(stripCarriageReturn(field));
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+        finished = true;
+        if (!sawAny) {
+            return null;
+        }
+        fields.add(stripCarriageReturn(field));
+        return fields;
+    }
+
+    private static String stripCarriageReturn(StringBuilder field) {
+        int length = field.length();
+        return length > 0 && field.charAt(length - 1) == '\r' ? field.substring(0, length - 1) : field.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.eduai.service;
+
+import com.eduai.config.NearCacheProperties;
+import com.eduai.model.Assignment;
+import com.eduai.model.User;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * Near cache of the entities read on every grading and login request. Hits are served from memory
+ * until the entry's TTL runs out or a write to the entity invalidates it on every instance through
+ * the {@link CacheInvalidationBus}. Cached entities are shared between requests and must not be
+ * modified; write paths load from the repository instead. Missing entities are not cached.
+ * Hit and miss counts are published as {@code cache.gets{cache=assignments|users}}, with the hit
+ * ratio as {@code cache.hit.ratio}.
+ */
+@Component
+public class EntityCache {
+
+    static final String ASSIGNMENTS = "assignments";
+    static final String USERS = "users";
+
+    private final boolean enabled;
+    private final AssignmentRepository assignmentRepository;
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus bus;
+    private final Cache<Long, Assignment> assignments;
+    private final Cache<String, User> users;
+
+    public EntityCache(NearCacheProperties properties, AssignmentRepository assignmentRepository,
+                       UserRepository userRepository, CacheInvalidationBus bus, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.assignmentRepository = assignmentRepository;
+        this.userRepository = userRepository;
+        this.bus = bus;
+        this.assignments = build(properties.getAssignments(), ASSIGNMENTS, meterRegistry);
+        this.users = build(properties.getUsers(), USERS, meterRegistry);
+        bus.subscribe(this::onInvalidation);
+    }
+
+    private static <K, V> Cache<K, V> build(NearCacheProperties.Spec spec, String name, MeterRegistry meterRegistry) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(spec.getMaxEntries())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", name)
+                .register(meterRegistry);
+        return cache;
+    }
+
+    public Optional<Assignment> findAssignment(Long id) {
+        if (!enabled) {
+            return assignmentRepository.findById(id);
+        }
+        return Optional.ofNullable(assignments.get(id, key -> assignmentRepository.findById(key).orElse(null)));
+    }
+
+    public Optional<User> findUserByEmail(String email) {
+        if (!enabled) {
+            return userRepository.findByEmail(email);
+        }
+        return Optional.ofNullable(users.get(email, key -> userRepository.findByEmail(key).orElse(null)));
+    }
+
+    public void evictAssignment(Long id) {
+        evict(ASSIGNMENTS, String.valueOf(id));
+    }
+
+    public void evictUser(String email) {
+        evict(USERS, email);
+    }
+
+    /**
+     * Drops the entry here at once and, when called inside a transaction, again once it completes,
+     * so a read made before the commit cannot leave the old entity behind. Other instances are told
+     * after the commit, when they can no longer read the old row.
+     */
+    private void evict(String cache, String key) {
+        CacheInvalidationBus.Invalidation invalidation = new CacheInvalidationBus.Invalidation(cache, key);
+        onInvalidation(invalidation);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    onInvalidation(invalidation);
+                    bus.publish(invalidation);
+                }
+            });
+        } else {
+            bus.publish(invalidation);
+        }
+    }
+
+    private void onInvalidation(CacheInvalidationBus.Invalidation invalidation) {
+        if (invalidation.cache() == null || ASSIGNMENTS.equals(invalidation.cache())) {
+            if (invalidation.key() == null) {
+                assignments.invalidateAll();
+            } else {
+                try {
+                    assignments.invalidate(Long.valueOf(invalidation.key()));
+                } catch (NumberFormatException e) {
+                    assignments.invalidateAll();
+                }
+            }
+        }
+        if (invalidation.cache() == null || USERS.equals(invalidation.cache())) {
+            if (invalidation.key() == null) {
+                users.invalidateAll();
+            } else {
+                users.invalidate(invalidation.key());
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.GradeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes grades to a CSV or NDJSON stream row by row. Grades are read through a database cursor
+ * {@link GradeRepository#EXPORT_FETCH_SIZE} rows at a time and the persistence context is cleared
+ * after every fetch, so memory use does not depend on how many rows are exported.
+ */
+@Service
+@Slf4j
+public class GradeExportService {
+
+    static final List<String> COLUMNS = List.of("gradeId", "studentId", "courseId", "assignmentId", "assignmentTitle",
+            "pointsEarned", "maxPoints", "percentage", "letterGrade", "isLate", "submittedAt", "gradedAt", "feedback");
+
+    private final GradeRepository gradeRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Counter exportedRows;
+    private final Timer exportTimer;
+
+    public GradeExportService(GradeRepository gradeRepository, AssignmentRepository assignmentRepository,
+                              EntityManager entityManager, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.gradeRepository = gradeRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.exportedRows = meterRegistry.counter("gradebook.export.rows");
+        this.exportTimer = meterRegistry.timer("gradebook.export.duration");
+    }
+
+    /**
+     * Which grades to export: one course, every assignment due in a term ({@code from} inclusive to
+     * {@code to} inclusive), or the whole school when nothing is set.
+     */
+    public record Scope(Long courseId, LocalDate from, LocalDate to) {
+
+        public Scope {
+            if (courseId != null && (from != null || to != null)) {
+                throw new IllegalArgumentException("Export either a course or a term, not both");
+            }
+            if ((from == null) != (to == null)) {
+                throw new IllegalArgumentException("A term needs both from and to");
+            }
+            if (from != null && to.isBefore(from)) {
+                throw new IllegalArgumentException("to must not be before from");
+            }
+        }
+
+        public String describe() {
+            if (courseId != null) {
+                return "course-" + courseId;
+            }
+            return from != null ? "term-" + from + "-to-" + to : "school";
+        }
+    }
+
+    /**
+     * Returns the number of rows written. The output is flushed after every fetch but not closed.
+     */
+    @Transactional(readOnly = true)
+    public long export(Scope scope, GradeImportService.Format format, OutputStream output) throws IOException {
+        long startedNanos = System.nanoTime();
+        Map<Long, Assignment> assignments = assignmentsIn(scope).stream()
+                .collect(Collectors.toMap(Assignment::getId, Function.identity()));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long rows = 0;
+
+        if (format == GradeImportService.Format.CSV) {
+            writeCsvRecord(writer, COLUMNS);
+        }
+        try (Stream<Grade> grades = streamGrades(scope)) {
+            Iterator<Grade> iterator = grades.iterator();
+            while (iterator.hasNext()) {
+                Grade grade = iterator.next();
+                List<Object> values = values(grade, assignments.get(grade.getAssignmentId()));
+                if (format == GradeImportService.Format.CSV) {
+                    writeCsvRecord(writer, values);
+                } else {
+                    writeJsonLine(writer, values);
+                }
+                if (++rows % GradeRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+
+        exportedRows.increment(rows);
+        exportTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        log.info("Exported {} grades for {}", rows, scope.describe());
+        return rows;
+    }
+
+    private List<Assignment> assignmentsIn(Scope scope) {
+        if (scope.courseId() != null) {
+            return assignmentRepository.findByCourseId(scope.courseId());
+        }
+        if (scope.from() != null) {
+            return assignmentRepository.findByDueDateGreaterThanEqualAndDueDateLessThan(
+                    scope.from().atStartOfDay(), scope.to().plusDays(1).atStartOfDay());
+        }
+        return assignmentRepository.findAll();
+    }
+
+    private Stream<Grade> streamGrades(Scope scope) {
+        if (scope.courseId() != null) {
+            return gradeRepository.streamByCourseId(scope.courseId());
+        }
+        if (scope.from() != null) {
+            return gradeRepository.streamByAssignmentDueBetween(
+                    scope.from().atStartOfDay(), scope.to().plusDays(1).atStartOfDay());
+        }
+        return gradeRepository.streamAll();
+    }
+
+    private static List<Object> values(Grade grade, Assignment assignment) {
+        return Arrays.asList(
+                grade.getId(),
+                grade.getStudentId(),
+                assignment != null ? assignment.getCourseId() : null,
+                grade.getAssignmentId(),
+                assignment != null ? assignment.getTitle() : null,
+                grade.getPointsEarned(),
+                assignment != null ? assignment.getMaxPoints() : null,
+                grade.getPercentage(),
+                grade.getLetterGrade(),
+                grade.getIsLate(),
+                grade.getSubmittedAt() != null ? grade.getSubmittedAt().toString() : null,
+                grade.getGradedAt() != null ? grade.getGradedAt().toString() : null,
+                grade.getFeedback());
+    }
+
+    private void writeJsonLine(Writer writer, List<Object> values) throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            row.put(COLUMNS.get(i), values.get(i));
+        }
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    /**
+     * RFC 4180: fields containing a comma, quote or line break are quoted, with quotes doubled.
+     */
+    static void writeCsvRecord(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
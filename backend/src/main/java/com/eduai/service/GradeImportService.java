@@ -0,0 +1,419 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.repository.AssignmentRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Imports grades from a CSV or NDJSON stream. Rows are read one at a time and written in batches:
+ * per batch, unseen assignments are loaded in one query, existing grades for the same student and
+ * assignment are found in one query, and inserts and updates go out as JDBC batches in their own
+ * transaction. A bad row is reported and skipped; a failed batch fails only its own rows. Course
+ * grade summaries and score statistics of the affected courses and assignments are rebuilt, and
+ * their students re-ranked, at the end.
+ */
+@Service
+@Slf4j
+public class GradeImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String INSERT_SQL = "INSERT INTO grades (student_id, assignment_id, points_earned, percentage, " +
+            "letter_grade, feedback, submission_text, submitted_at, graded_at, is_late, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    /** Empty fields leave the stored value unchanged. */
+    private static final String UPDATE_SQL = "UPDATE grades SET points_earned = COALESCE(?, points_earned), " +
+            "percentage = COALESCE(?, percentage), letter_grade = COALESCE(?, letter_grade), feedback = COALESCE(?, feedback), " +
+            "submission_text = COALESCE(?, submission_text), submitted_at = COALESCE(?, submitted_at), " +
+            "graded_at = COALESCE(?, graded_at), is_late = COALESCE(?, is_late), updated_at = ?, version = version + 1 WHERE id = ?";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final AssignmentRepository assignmentRepository;
+    private final CourseGradeSummaryService courseGradeSummaryService;
+    private final StudentRankingService studentRankingService;
+    private final ScoreStatisticsService scoreStatisticsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Counter importedRows;
+    private final Counter failedRows;
+    private final Timer importTimer;
+
+    public GradeImportService(AssignmentRepository assignmentRepository, CourseGradeSummaryService courseGradeSummaryService,
+                              StudentRankingService studentRankingService, ScoreStatisticsService scoreStatisticsService,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              @Value("${gradebook.import.batch-size:500}") int batchSize) {
+        this.assignmentRepository = assignmentRepository;
+        this.courseGradeSummaryService = courseGradeSummaryService;
+        this.studentRankingService = studentRankingService;
+        this.scoreStatisticsService = scoreStatisticsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(batchSize, 1);
+        this.importedRows = meterRegistry.counter("gradebook.import.rows", "outcome", "imported");
+        this.failedRows = meterRegistry.counter("gradebook.import.rows", "outcome", "failed");
+        this.importTimer = meterRegistry.timer("gradebook.import.duration");
+    }
+
+    /**
+     * Expected fields: {@code studentId}, {@code assignmentId}, and optionally {@code pointsEarned},
+     * {@code feedback}, {@code submissionText} and {@code submittedAt} (ISO-8601). A row for a
+     * student and assignment that already has a grade updates it; empty or missing fields keep the
+     * stored values. If the stream fails partway, the
+     * rows read so far are still written and the derived tables rebuilt before the error is rethrown.
+     */
+    public Map<String, Object> importGrades(InputStream input, Format format) throws IOException {
+        long startedNanos = System.nanoTime();
+        Run run = new Run();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Grade import stopped after {} rows ({} inserted, {} updated)", run.rowsRead, run.inserted, run.updated, e);
+            try {
+                finish(run);
+            } catch (RuntimeException finishError) {
+                e.addSuppressed(finishError);
+            }
+            throw e;
+        }
+        finish(run);
+
+        long elapsedNanos = System.nanoTime() - startedNanos;
+        importTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        double seconds = elapsedNanos / 1e9;
+        log.info("Imported {} grades ({} inserted, {} updated, {} failed) in {} s",
+                run.rowsRead, run.inserted, run.updated, run.failed, String.format("%.1f", seconds));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rowsRead", run.rowsRead);
+        report.put("inserted", run.inserted);
+        report.put("updated", run.updated);
+        report.put("superseded", run.superseded);
+        report.put("failed", run.failed);
+        report.put("durationMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.put("rowsPerSecond", seconds > 0 ? Math.round(run.rowsRead / seconds) : run.rowsRead);
+        report.put("errors", run.errors);
+        report.put("errorsTruncated", run.failed > run.errors.size());
+        return report;
+    }
+
+    /**
+     * Writes the rows still pending and rebuilds summaries, rankings and score statistics for
+     * everything that was committed.
+     */
+    private void finish(Run run) {
+        flush(run);
+        for (Long courseId : run.courseIds) {
+            transactionTemplate.executeWithoutResult(status -> courseGradeSummaryService.rebuildCourse(courseId));
+        }
+        if (!run.courseIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> studentRankingService.recordCourseChanges(run.courseIds));
+        }
+        for (Assignment assignment : run.assignments.values()) {
+            if (assignment != null) {
+                transactionTemplate.executeWithoutResult(status -> scoreStatisticsService.rebuildAssignment(assignment));
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, Run run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        // Spreadsheet exports often start with a byte order mark
+        if (!header.isEmpty() && header.get(0).startsWith("\uFEFF")) {
+            header.set(0, header.get(0).substring(1));
+        }
+        List<String> columns = header.stream().map(String::strip).toList();
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            Map<String, Object> fields = new HashMap<>();
+            for (int i = 0; i < columns.size() && i < record.size(); i++) {
+                fields.put(columns.get(i), record.get(i).isEmpty() ? null : record.get(i));
+            }
+            accept(run, csv.recordLine(), fields);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, Run run) throws IOException {
+        int line = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (line == 1 && text.startsWith("\uFEFF")) {
+                text = text.substring(1);
+            }
+            if (text.isBlank()) {
+                continue;
+            }
+            try {
+                accept(run, line, objectMapper.readValue(text, MAP_TYPE));
+            } catch (JsonProcessingException e) {
+                run.rowsRead++;
+                fail(run, line, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void accept(Run run, int line, Map<String, Object> fields) {
+        run.rowsRead++;
+        try {
+            run.pending.add(parse(line, fields));
+        } catch (IllegalArgumentException e) {
+            fail(run, line, e.getMessage());
+        }
+        if (run.pending.size() >= batchSize) {
+            flush(run);
+        }
+    }
+
+    private static ImportRow parse(int line, Map<String, Object> fields) {
+        Long studentId = parseLong(fields.get("studentId"), "studentId");
+        Long assignmentId = parseLong(fields.get("assignmentId"), "assignmentId");
+        if (studentId == null || assignmentId == null) {
+            throw new IllegalArgumentException("studentId and assignmentId are required");
+        }
+        Double pointsEarned = parseDouble(fields.get("pointsEarned"), "pointsEarned");
+        if (pointsEarned != null && (pointsEarned < 0 || pointsEarned.isNaN() || pointsEarned.isInfinite())) {
+            throw new IllegalArgumentException("pointsEarned must be a non-negative number");
+        }
+        return new ImportRow(line, studentId, assignmentId, pointsEarned,
+                text(fields.get("feedback")), text(fields.get("submissionText")),
+                parseDateTime(fields.get("submittedAt")));
+    }
+
+    private void flush(Run run) {
+        if (run.pending.isEmpty()) {
+            return;
+        }
+        List<ImportRow> batch = run.pending;
+        run.pending = new ArrayList<>(batchSize);
+        resolveAssignments(run, batch);
+
+        List<ImportRow> valid = new ArrayList<>(batch.size());
+        for (ImportRow row : batch) {
+            if (run.assignments.get(row.assignmentId()) == null) {
+                fail(run, row.line(), "Assignment " + row.assignmentId() + " not found");
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        try {
+            int[] written = transactionTemplate.execute(status -> write(run, valid));
+            run.inserted += written[0];
+            run.updated += written[1];
+            run.superseded += written[2];
+            importedRows.increment(valid.size());
+            valid.forEach(row -> run.courseIds.add(run.assignments.get(row.assignmentId()).getCourseId()));
+            run.courseIds.remove(null);
+        } catch (RuntimeException e) {
+            log.warn("Grade import batch of {} rows failed", valid.size(), e);
+            String message = "Batch write failed: " + e.getMessage();
+            valid.forEach(row -> fail(run, row.line(), message));
+        }
+    }
+
+    private void resolveAssignments(Run run, List<ImportRow> batch) {
+        Set<Long> unseen = batch.stream()
+                .map(ImportRow::assignmentId)
+                .filter(id -> !run.assignments.containsKey(id))
+                .collect(Collectors.toSet());
+        if (unseen.isEmpty()) {
+            return;
+        }
+        assignmentRepository.findAllById(unseen).forEach(assignment -> run.assignments.put(assignment.getId(), assignment));
+        unseen.forEach(id -> run.assignments.putIfAbsent(id, null));
+    }
+
+    /**
+     * Returns the number of inserted, updated and superseded rows. The last row wins if a batch
+     * contains the same student and assignment twice.
+     */
+    private int[] write(Run run, List<ImportRow> rows) {
+        Map<String, ImportRow> byKey = new LinkedHashMap<>();
+        rows.forEach(row -> byKey.put(row.studentId() + ":" + row.assignmentId(), row));
+        Map<String, Long> existing = existingGradeIds(byKey.values());
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTimestamp = Timestamp.valueOf(now);
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Map.Entry<String, ImportRow> entry : byKey.entrySet()) {
+            ImportRow row = entry.getValue();
+            Assignment assignment = run.assignments.get(row.assignmentId());
+            LocalDateTime submittedAt = row.submittedAt() != null ? row.submittedAt() : now;
+            boolean late = assignment.getDueDate() != null && submittedAt.isAfter(assignment.getDueDate());
+            Double percentage = null;
+            String letterGrade = null;
+            if (row.pointsEarned() != null && assignment.getMaxPoints() != null) {
+                percentage = (row.pointsEarned() / assignment.getMaxPoints()) * 100;
+                letterGrade = GradebookService.calculateLetterGrade(percentage);
+            }
+            Timestamp gradedAt = row.pointsEarned() != null ? nowTimestamp : null;
+
+            Long gradeId = existing.get(entry.getKey());
+            if (gradeId == null) {
+                inserts.add(new Object[]{row.studentId(), row.assignmentId(), row.pointsEarned(), percentage, letterGrade,
+                        row.feedback(), row.submissionText(), Timestamp.valueOf(submittedAt), gradedAt, late,
+                        nowTimestamp, nowTimestamp});
+            } else {
+                boolean resubmitted = row.submittedAt() != null;
+                updates.add(new Object[]{row.pointsEarned(), percentage, letterGrade, row.feedback(), row.submissionText(),
+                        resubmitted ? Timestamp.valueOf(submittedAt) : null, gradedAt, resubmitted ? late : null,
+                        nowTimestamp, gradeId});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+        return new int[]{inserts.size(), updates.size(), rows.size() - byKey.size()};
+    }
+
+    private Map<String, Long> existingGradeIds(Collection<ImportRow> rows) {
+        Set<Long> studentIds = new TreeSet<>();
+        Set<Long> assignmentIds = new TreeSet<>();
+        rows.forEach(row -> {
+            studentIds.add(row.studentId());
+            assignmentIds.add(row.assignmentId());
+        });
+        String sql = "SELECT id, student_id, assignment_id FROM grades WHERE student_id IN (" + placeholders(studentIds.size()) +
+                ") AND assignment_id IN (" + placeholders(assignmentIds.size()) + ")";
+        List<Object> parameters = new ArrayList<>(studentIds);
+        parameters.addAll(assignmentIds);
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(sql, resultSet -> {
+            ids.put(resultSet.getLong("student_id") + ":" + resultSet.getLong("assignment_id"), resultSet.getLong("id"));
+        }, parameters.toArray());
+        return ids;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static void fail(Run run, int line, String error) {
+        run.failed++;
+        if (run.errors.size() < MAX_REPORTED_ERRORS) {
+            run.errors.add(Map.of("line", line, "error", error));
+        }
+    }
+
+    private static Long parseLong(Object value, String field) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return Long.parseLong(value.toString().strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + value);
+        }
+    }
+
+    private static Double parseDouble(Object value, String field) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + value);
+        }
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static LocalDateTime parseDateTime(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString().strip();
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeParseException e) {
+            try {
+                return OffsetDateTime.parse(text).toLocalDateTime();
+            } catch (DateTimeParseException offsetError) {
+                throw new IllegalArgumentException("submittedAt is not an ISO-8601 date-time: " + text);
+            }
+        }
+    }
+
+    private record ImportRow(int line, Long studentId, Long assignmentId, Double pointsEarned, String feedback,
+                             String submissionText, LocalDateTime submittedAt) {
+    }
+
+    private static final class Run {
+        private final Map<Long, Assignment> assignments = new HashMap<>();
+        private final Set<Long> courseIds = new HashSet<>();
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+        private List<ImportRow> pending = new ArrayList<>();
+        private long rowsRead;
+        private long inserted;
+        private long updated;
+        private long superseded;
+        private long failed;
+    }
+}
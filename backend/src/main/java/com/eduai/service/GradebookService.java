@@ -5,31 +5,121 @@ import com.eduai.model.Grade;
 import com.eduai.repository.AssignmentRepository;
 import com.eduai.repository.GradeRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class GradebookService {
 
+    static final int MAX_BULK_GRADES = 2000;
+    private static final String BULK_GRADE_SQL = "UPDATE grades SET points_earned = ?, percentage = ?, letter_grade = ?, " +
+            "feedback = ?, graded_at = ?, graded_from_grade_id = NULL, updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND version = ?";
+
     private final GradeRepository gradeRepository;
     private final AssignmentRepository assignmentRepository;
+    private final CourseGradeSummaryService courseGradeSummaryService;
+    private final StudentRankingService studentRankingService;
+    private final ScoreStatisticsService scoreStatisticsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityCache entityCache;
 
+    @Transactional
     public Assignment createAssignment(Assignment assignment) {
-        return assignmentRepository.save(assignment);
+        Assignment created = assignmentRepository.save(assignment);
+        entityCache.evictAssignment(created.getId());
+        courseGradeSummaryService.recordAssignmentCreated(created);
+        scoreStatisticsService.recordAssignmentCreated(created);
+        if (created.getWeightPercentage() != null) {
+            studentRankingService.recordCourseChanges(Collections.singleton(created.getCourseId()));
+        }
+        return created;
     }
 
+    /**
+     * Updates an assignment. A new max points value rescales the stored percentages of its grades,
+     * and any change that affects final grades rebuilds the course summaries.
+     */
+    @Transactional
+    public Assignment updateAssignment(Long assignmentId, Assignment changes) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        Long previousCourseId = assignment.getCourseId();
+        boolean maxPointsChanged = !Objects.equals(assignment.getMaxPoints(), changes.getMaxPoints());
+        boolean affectsGrades = maxPointsChanged
+                || !Objects.equals(assignment.getWeightPercentage(), changes.getWeightPercentage())
+                || !Objects.equals(previousCourseId, changes.getCourseId());
+
+        assignment.setTitle(changes.getTitle());
+        assignment.setDescription(changes.getDescription());
+        assignment.setType(changes.getType());
+        assignment.setCourseId(changes.getCourseId());
+        assignment.setTeacherId(changes.getTeacherId());
+        assignment.setDueDate(changes.getDueDate());
+        assignment.setMaxPoints(changes.getMaxPoints());
+        assignment.setWeightPercentage(changes.getWeightPercentage());
+        assignment.setIsPublished(changes.getIsPublished());
+        assignment.setRubric(changes.getRubric());
+        Assignment saved = assignmentRepository.save(assignment);
+        entityCache.evictAssignment(saved.getId());
+
+        if (maxPointsChanged && saved.getMaxPoints() != null) {
+            List<Grade> grades = gradeRepository.findByAssignmentId(assignmentId);
+            for (Grade grade : grades) {
+                if (grade.getPointsEarned() != null) {
+                    grade.setPercentage((grade.getPointsEarned() / saved.getMaxPoints()) * 100);
+                    grade.setLetterGrade(calculateLetterGrade(grade.getPercentage()));
+                }
+            }
+            gradeRepository.saveAll(grades);
+        }
+        if (maxPointsChanged || !Objects.equals(previousCourseId, saved.getCourseId())) {
+            scoreStatisticsService.rebuildAssignment(saved);
+        }
+        if (affectsGrades) {
+            courseGradeSummaryService.rebuildCourse(saved.getCourseId());
+            if (!Objects.equals(previousCourseId, saved.getCourseId())) {
+                courseGradeSummaryService.rebuildCourse(previousCourseId);
+            }
+            studentRankingService.recordCourseChanges(Arrays.asList(saved.getCourseId(), previousCourseId));
+        }
+        return saved;
+    }
+
+    @Transactional
     public Grade submitGrade(Grade grade) {
         grade.setSubmittedAt(LocalDateTime.now());
         
-        Assignment assignment = assignmentRepository.findById(grade.getAssignmentId())
+        Assignment assignment = entityCache.findAssignment(grade.getAssignmentId())
                 .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        Optional<Grade> previous = grade.getId() != null ? gradeRepository.findById(grade.getId()) : Optional.empty();
+        Long previousStudentId = previous.map(Grade::getStudentId).orElse(null);
+        Assignment previousAssignment = previous
+                .map(existing -> existing.getAssignmentId().equals(assignment.getId())
+                        ? assignment
+                        : entityCache.findAssignment(existing.getAssignmentId()).orElse(null))
+                .orElse(null);
+        CourseGradeSummaryService.Contribution before = CourseGradeSummaryService.Contribution.of(previous.orElse(null), previousAssignment);
+        Double previousPercentage = previousAssignment != null ? previous.get().getPercentage() : null;
+        if (grade.getVersion() == null) {
+            previous.ifPresent(existing -> grade.setVersion(existing.getVersion()));
+        }
         
         if (assignment.getDueDate() != null && grade.getSubmittedAt().isAfter(assignment.getDueDate())) {
             grade.setIsLate(true);
@@ -40,66 +130,285 @@ public class GradebookService {
             grade.setLetterGrade(calculateLetterGrade(grade.getPercentage()));
         }
         
-        return gradeRepository.save(grade);
+        Grade saved = gradeRepository.save(grade);
+        CourseGradeSummaryService.Contribution after = CourseGradeSummaryService.Contribution.of(saved, assignment);
+        boolean sameSummary = previousAssignment != null && previousStudentId.equals(saved.getStudentId())
+                && Objects.equals(previousAssignment.getCourseId(), assignment.getCourseId());
+        if (previousAssignment != null && !sameSummary) {
+            courseGradeSummaryService.recordGradeChange(previousStudentId, previousAssignment,
+                    before, CourseGradeSummaryService.Contribution.NONE);
+            before = CourseGradeSummaryService.Contribution.NONE;
+        }
+        courseGradeSummaryService.recordGradeChange(saved.getStudentId(), assignment, before, after);
+        studentRankingService.recordGradeChanges(Arrays.asList(previousStudentId, saved.getStudentId()));
+        
+        boolean sameScore = previousAssignment == assignment && previousStudentId.equals(saved.getStudentId());
+        if (previousAssignment != null && !sameScore) {
+            scoreStatisticsService.recordScoreChanges(previousAssignment,
+                    List.of(new ScoreStatisticsService.ScoreChange(previousStudentId, previousPercentage, null)));
+            previousPercentage = null;
+        }
+        scoreStatisticsService.recordScoreChanges(assignment,
+                List.of(new ScoreStatisticsService.ScoreChange(saved.getStudentId(), previousPercentage, saved.getPercentage())));
+        return saved;
     }
 
+    @Transactional
     public Grade gradeAssignment(Long gradeId, Double pointsEarned, String feedback) {
         Grade grade = gradeRepository.findById(gradeId)
                 .orElseThrow(() -> new RuntimeException("Grade not found"));
+        Assignment assignment = entityCache.findAssignment(grade.getAssignmentId())
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        CourseGradeSummaryService.Contribution before = CourseGradeSummaryService.Contribution.of(grade, assignment);
+        Double previousPercentage = grade.getPercentage();
         
         grade.setPointsEarned(pointsEarned);
         grade.setFeedback(feedback);
         grade.setGradedAt(LocalDateTime.now());
         
-        Assignment assignment = assignmentRepository.findById(grade.getAssignmentId())
-                .orElseThrow(() -> new RuntimeException("Assignment not found"));
-        
         if (assignment.getMaxPoints() != null) {
             grade.setPercentage((pointsEarned / assignment.getMaxPoints()) * 100);
             grade.setLetterGrade(calculateLetterGrade(grade.getPercentage()));
         }
         
-        return gradeRepository.save(grade);
+        Grade saved = gradeRepository.save(grade);
+        courseGradeSummaryService.recordGradeChange(saved.getStudentId(), assignment,
+                before, CourseGradeSummaryService.Contribution.of(saved, assignment));
+        studentRankingService.recordGradeChanges(List.of(saved.getStudentId()));
+        scoreStatisticsService.recordScoreChanges(assignment,
+                List.of(new ScoreStatisticsService.ScoreChange(saved.getStudentId(), previousPercentage, saved.getPercentage())));
+        return saved;
     }
 
-    public Map<String, Object> calculateStudentGrade(Long studentId, Long courseId) {
-        List<Assignment> assignments = assignmentRepository.findByCourseId(courseId);
-        List<Long> assignmentIds = assignments.stream()
-                .map(Assignment::getId)
-                .collect(Collectors.toList());
+    /**
+     * Saves write-behind submissions in one transaction. Each is already stamped with
+     * {@code submittedAt} and {@code isLate}; a submission for a student and assignment that already
+     * has a grade updates that grade, so saving the same submission again changes nothing.
+     * Submissions for assignments that no longer exist are skipped.
+     */
+    @Transactional
+    public List<Grade> saveSubmissions(List<Grade> submissions) {
+        Set<Long> assignmentIds = submissions.stream().map(Grade::getAssignmentId).collect(Collectors.toSet());
+        Set<Long> studentIds = submissions.stream().map(Grade::getStudentId).collect(Collectors.toSet());
+        Map<Long, Assignment> assignments = assignmentRepository.findAllById(assignmentIds).stream()
+                .collect(Collectors.toMap(Assignment::getId, assignment -> assignment));
+        Map<String, Grade> existing = gradeRepository.findByAssignmentIdInAndStudentIdIn(assignmentIds, studentIds).stream()
+                .collect(Collectors.toMap(grade -> grade.getStudentId() + ":" + grade.getAssignmentId(), grade -> grade,
+                        (first, second) -> first));
         
-        List<Grade> grades = gradeRepository.findByStudentIdAndAssignmentIdIn(studentId, assignmentIds);
+        List<PendingSubmission> pending = new ArrayList<>();
+        for (Grade submission : submissions) {
+            Assignment assignment = assignments.get(submission.getAssignmentId());
+            if (assignment == null) {
+                continue;
+            }
+            Grade grade = existing.get(submission.getStudentId() + ":" + submission.getAssignmentId());
+            CourseGradeSummaryService.Contribution before = CourseGradeSummaryService.Contribution.of(grade, assignment);
+            Double previousPercentage = grade != null ? grade.getPercentage() : null;
+            if (grade == null) {
+                grade = submission;
+            } else {
+                grade.setSubmissionText(submission.getSubmissionText());
+                grade.setSubmittedAt(submission.getSubmittedAt());
+                grade.setIsLate(submission.getIsLate());
+                if (submission.getPointsEarned() != null) {
+                    grade.setPointsEarned(submission.getPointsEarned());
+                    grade.setFeedback(submission.getFeedback());
+                }
+            }
+            if (grade.getPointsEarned() != null && assignment.getMaxPoints() != null) {
+                grade.setPercentage((grade.getPointsEarned() / assignment.getMaxPoints()) * 100);
+                grade.setLetterGrade(calculateLetterGrade(grade.getPercentage()));
+            }
+            pending.add(new PendingSubmission(grade, assignment, before, previousPercentage));
+        }
+        
+        List<Grade> saved = gradeRepository.saveAll(pending.stream().map(PendingSubmission::grade).toList());
+        Map<Assignment, List<ScoreStatisticsService.ScoreChange>> scoreChanges = new HashMap<>();
+        for (PendingSubmission submission : pending) {
+            Grade grade = submission.grade();
+            courseGradeSummaryService.recordGradeChange(grade.getStudentId(), submission.assignment(),
+                    submission.before(), CourseGradeSummaryService.Contribution.of(grade, submission.assignment()));
+            scoreChanges.computeIfAbsent(submission.assignment(), assignment -> new ArrayList<>())
+                    .add(new ScoreStatisticsService.ScoreChange(grade.getStudentId(), submission.previousPercentage(), grade.getPercentage()));
+        }
+        studentRankingService.recordGradeChanges(studentIds);
+        scoreChanges.forEach(scoreStatisticsService::recordScoreChanges);
+        return saved;
+    }
+
+    /**
+     * Applies scores to existing grades of one assignment in a single transaction, so the updates
+     * are flushed together as JDBC batches.
+     */
+    @Transactional
+    public List<Grade> applyGradeUpdates(Assignment assignment, List<GradeUpdate> updates) {
+        Map<Long, GradeUpdate> updatesById = updates.stream()
+                .collect(Collectors.toMap(GradeUpdate::gradeId, update -> update, (first, second) -> second));
+        List<Grade> grades = gradeRepository.findAllById(updatesById.keySet()).stream()
+                .filter(grade -> grade.getAssignmentId().equals(assignment.getId()))
+                .collect(Collectors.toList());
+        LocalDateTime gradedAt = LocalDateTime.now();
         
-        double totalWeightedPoints = 0.0;
-        double totalWeight = 0.0;
+        Map<Long, CourseGradeSummaryService.Contribution> before = grades.stream()
+                .collect(Collectors.toMap(Grade::getId, grade -> CourseGradeSummaryService.Contribution.of(grade, assignment)));
+        Map<Long, Double> previousPercentages = new HashMap<>();
+        grades.forEach(grade -> previousPercentages.put(grade.getId(), grade.getPercentage()));
         
-        for (Assignment assignment : assignments) {
-            Optional<Grade> gradeOpt = grades.stream()
-                    .filter(g -> g.getAssignmentId().equals(assignment.getId()))
-                    .findFirst();
+        for (Grade grade : grades) {
+            GradeUpdate update = updatesById.get(grade.getId());
+            grade.setPointsEarned(update.pointsEarned());
+            grade.setFeedback(update.feedback());
+            grade.setGradedAt(gradedAt);
+            grade.setGradedFromGradeId(update.gradedFromGradeId());
             
-            if (gradeOpt.isPresent() && gradeOpt.get().getPercentage() != null) {
-                double weight = assignment.getWeightPercentage() != null ? assignment.getWeightPercentage() : 1.0;
-                totalWeightedPoints += gradeOpt.get().getPercentage() * weight;
-                totalWeight += weight;
-            } else if (assignment.getWeightPercentage() != null) {
-                totalWeight += assignment.getWeightPercentage();
+            if (assignment.getMaxPoints() != null && update.pointsEarned() != null) {
+                grade.setPercentage((update.pointsEarned() / assignment.getMaxPoints()) * 100);
+                grade.setLetterGrade(calculateLetterGrade(grade.getPercentage()));
             }
         }
         
-        double finalPercentage = totalWeight > 0 ? totalWeightedPoints / totalWeight : 0.0;
+        List<Grade> saved = gradeRepository.saveAll(grades);
+        for (Grade grade : saved) {
+            courseGradeSummaryService.recordGradeChange(grade.getStudentId(), assignment,
+                    before.get(grade.getId()), CourseGradeSummaryService.Contribution.of(grade, assignment));
+        }
+        studentRankingService.recordGradeChanges(saved.stream().map(Grade::getStudentId).toList());
+        scoreStatisticsService.recordScoreChanges(assignment, saved.stream()
+                .map(grade -> new ScoreStatisticsService.ScoreChange(
+                        grade.getStudentId(), previousPercentages.get(grade.getId()), grade.getPercentage()))
+                .toList());
+        return saved;
+    }
+
+    /**
+     * Grades many submissions of one assignment in a single transaction. Entries name their grade by
+     * {@code gradeId} or {@code studentId}; the assignment is loaded once, the targeted grades in one
+     * query, and the new scores are written as one JDBC batch whose rows only apply if the grade's
+     * version is unchanged. An entry carrying a {@code version} that is no longer current, or whose
+     * grade changes between the read and the write, is reported as a conflict and left untouched.
+     * Results are returned in request order.
+     */
+    @Transactional
+    public List<BulkGradeResult> gradeInBulk(Long assignmentId, List<BulkGradeEntry> entries) {
+        if (entries.size() > MAX_BULK_GRADES) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_GRADES + " grades can be submitted at once");
+        }
+        Assignment assignment = entityCache.findAssignment(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        Set<Long> gradeIds = new HashSet<>();
+        Set<Long> studentIds = new HashSet<>();
+        for (BulkGradeEntry entry : entries) {
+            if (entry.gradeId() != null) {
+                gradeIds.add(entry.gradeId());
+            } else if (entry.studentId() != null) {
+                studentIds.add(entry.studentId());
+            }
+        }
+        Map<Long, Grade> gradesById = new HashMap<>();
+        Map<Long, Grade> gradesByStudent = new HashMap<>();
+        if (!gradeIds.isEmpty() || !studentIds.isEmpty()) {
+            for (Grade grade : gradeRepository.findForBulkGrading(assignmentId, gradeIds, studentIds)) {
+                gradesById.put(grade.getId(), grade);
+                gradesByStudent.putIfAbsent(grade.getStudentId(), grade);
+            }
+        }
+        
+        LocalDateTime gradedAt = LocalDateTime.now();
+        Timestamp gradedAtTimestamp = Timestamp.valueOf(gradedAt);
+        BulkGradeResult[] results = new BulkGradeResult[entries.size()];
+        Set<Long> targeted = new HashSet<>();
+        List<Integer> batched = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            BulkGradeEntry entry = entries.get(i);
+            if (entry.gradeId() == null && entry.studentId() == null) {
+                results[i] = BulkGradeResult.failed(entry, BulkGradeStatus.INVALID, null, "gradeId or studentId is required");
+                continue;
+            }
+            if (entry.pointsEarned() == null || entry.pointsEarned() < 0) {
+                results[i] = BulkGradeResult.failed(entry, BulkGradeStatus.INVALID, null, "pointsEarned must be zero or more");
+                continue;
+            }
+            Grade grade = entry.gradeId() != null ? gradesById.get(entry.gradeId()) : gradesByStudent.get(entry.studentId());
+            if (grade == null) {
+                results[i] = BulkGradeResult.failed(entry, BulkGradeStatus.NOT_FOUND, null, "No submission for this assignment");
+                continue;
+            }
+            if (!targeted.add(grade.getId())) {
+                results[i] = BulkGradeResult.failed(entry, BulkGradeStatus.INVALID, grade, "Grade appears more than once in this request");
+                continue;
+            }
+            if (entry.version() != null && !entry.version().equals(grade.getVersion())) {
+                results[i] = BulkGradeResult.failed(entry, BulkGradeStatus.CONFLICT, grade, "Grade was changed since version " + entry.version());
+                continue;
+            }
+            Double percentage = null;
+            String letterGrade = null;
+            if (assignment.getMaxPoints() != null) {
+                percentage = (entry.pointsEarned() / assignment.getMaxPoints()) * 100;
+                letterGrade = calculateLetterGrade(percentage);
+            }
+            rows.add(new Object[]{entry.pointsEarned(), percentage, letterGrade, entry.feedback(),
+                    gradedAtTimestamp, gradedAtTimestamp, grade.getId(), grade.getVersion()});
+            batched.add(i);
+        }
+        if (rows.isEmpty()) {
+            return Arrays.asList(results);
+        }
+        
+        int[] counts = jdbcTemplate.batchUpdate(BULK_GRADE_SQL, rows);
+        List<Grade> updated = new ArrayList<>();
+        Map<Long, CourseGradeSummaryService.Contribution> before = new HashMap<>();
+        Map<Long, Double> previousPercentages = new HashMap<>();
+        for (int j = 0; j < batched.size(); j++) {
+            int i = batched.get(j);
+            BulkGradeEntry entry = entries.get(i);
+            Object[] row = rows.get(j);
+            Grade grade = entry.gradeId() != null ? gradesById.get(entry.gradeId()) : gradesByStudent.get(entry.studentId());
+            if (counts[j] == 0) {
+                results[i] = BulkGradeResult.failed(entry, BulkGradeStatus.CONFLICT, null, "Grade was changed by another request");
+                continue;
+            }
+            // The loaded entities are read-only, so bringing them up to date does not write them again
+            before.put(grade.getId(), CourseGradeSummaryService.Contribution.of(grade, assignment));
+            previousPercentages.put(grade.getId(), grade.getPercentage());
+            grade.setPointsEarned(entry.pointsEarned());
+            grade.setPercentage((Double) row[1]);
+            grade.setLetterGrade((String) row[2]);
+            grade.setFeedback(entry.feedback());
+            grade.setGradedAt(gradedAt);
+            grade.setUpdatedAt(gradedAt);
+            grade.setGradedFromGradeId(null);
+            grade.setVersion(grade.getVersion() + 1);
+            updated.add(grade);
+            results[i] = BulkGradeResult.updated(grade);
+        }
         
-        return Map.of(
-                "studentId", studentId,
-                "courseId", courseId,
-                "finalPercentage", finalPercentage,
-                "letterGrade", calculateLetterGrade(finalPercentage),
-                "assignmentsCompleted", grades.size(),
-                "assignmentsTotal", assignments.size()
-        );
+        for (Grade grade : updated) {
+            courseGradeSummaryService.recordGradeChange(grade.getStudentId(), assignment,
+                    before.get(grade.getId()), CourseGradeSummaryService.Contribution.of(grade, assignment));
+        }
+        studentRankingService.recordGradeChanges(updated.stream().map(Grade::getStudentId).toList());
+        scoreStatisticsService.recordScoreChanges(assignment, updated.stream()
+                .map(grade -> new ScoreStatisticsService.ScoreChange(
+                        grade.getStudentId(), previousPercentages.get(grade.getId()), grade.getPercentage()))
+                .toList());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Reads the final grade from the materialized course summary.
+     */
+    public Map<String, Object> calculateStudentGrade(Long studentId, Long courseId) {
+        return courseGradeSummaryService.studentGrade(studentId, courseId);
     }
 
-    private String calculateLetterGrade(Double percentage) {
+    public Map<String, Object> calculateCourseGrades(Long courseId) {
+        return courseGradeSummaryService.courseGrades(courseId);
+    }
+
+    static String calculateLetterGrade(Double percentage) {
         if (percentage >= 97) return "A+";
         if (percentage >= 93) return "A";
         if (percentage >= 90) return "A-";
@@ -118,5 +427,52 @@ public class GradebookService {
     public List<Grade> getStudentGrades(Long studentId) {
         return gradeRepository.findByStudentId(studentId);
     }
+
+    private record PendingSubmission(Grade grade, Assignment assignment,
+                                     CourseGradeSummaryService.Contribution before, Double previousPercentage) {
+    }
+
+    /**
+     * {@code gradedFromGradeId} records the submission whose grading was reused for this one, if any.
+     */
+    public record GradeUpdate(Long gradeId, Double pointsEarned, String feedback, Long gradedFromGradeId) {
+
+        public GradeUpdate(Long gradeId, Double pointsEarned, String feedback) {
+            this(gradeId, pointsEarned, feedback, null);
+        }
+    }
+
+    public enum BulkGradeStatus {
+        UPDATED,
+        CONFLICT,
+        NOT_FOUND,
+        INVALID
+    }
+
+    /**
+     * One score in a bulk grading request. {@code version}, when given, must match the grade's
+     * current version for the update to apply.
+     */
+    public record BulkGradeEntry(Long gradeId, Long studentId, Double pointsEarned, String feedback, Long version) {
+    }
+
+    /**
+     * Outcome of one entry. {@code version} is the grade's version after the update, or its current
+     * version when the entry was rejected, if known.
+     */
+    public record BulkGradeResult(Long gradeId, Long studentId, BulkGradeStatus status, Long version,
+                                  Double percentage, String letterGrade, String error) {
+
+        static BulkGradeResult updated(Grade grade) {
+            return new BulkGradeResult(grade.getId(), grade.getStudentId(), BulkGradeStatus.UPDATED, grade.getVersion(),
+                    grade.getPercentage(), grade.getLetterGrade(), null);
+        }
+
+        static BulkGradeResult failed(BulkGradeEntry entry, BulkGradeStatus status, Grade grade, String error) {
+            return new BulkGradeResult(grade != null ? grade.getId() : entry.gradeId(),
+                    grade != null ? grade.getStudentId() : entry.studentId(), status,
+                    grade != null ? grade.getVersion() : null, null, null, error);
+        }
+    }
 }
 
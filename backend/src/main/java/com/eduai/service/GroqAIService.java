@@ -1,85 +1,429 @@
 package com.eduai.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.eduai.config.GroqResilienceProperties;
+import com.eduai.model.enums.AITask;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
 public class GroqAIService {
 
+    private static final String JSON_INSTRUCTION = "\n\nPlease respond in valid JSON format.";
+    private static final String STREAM_DONE = "[DONE]";
+    private static final String UNAVAILABLE_MESSAGE = "AI service temporarily unavailable";
+    private static final Map<String, Object> JSON_OBJECT_FORMAT = Map.of("type", "json_object");
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
     private final WebClient groqWebClient;
     private final ObjectMapper objectMapper;
+    private final AIResponseCache responseCache;
+    private final GroqRateLimiter rateLimiter;
+    private final GroqCircuitBreaker circuitBreaker;
+    private final GroqModelRouter modelRouter;
+    private final GroqResilienceProperties resilience;
+    private final JavaType mapType;
+    private final ConcurrentMap<String, Mono<String>> inFlightRequests = new ConcurrentHashMap<>();
+    private final Counter coalescedRequests;
+    private final Counter retries;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
     
-    @Value("${groq.api.model}")
-    private String defaultModel;
+    @Value("${groq.api.timeout:30000}")
+    private long timeoutMillis = 30000;
 
-    public GroqAIService(WebClient groqWebClient, ObjectMapper objectMapper) {
+    public GroqAIService(WebClient groqWebClient, ObjectMapper objectMapper, AIResponseCache responseCache,
+                         GroqRateLimiter rateLimiter, GroqCircuitBreaker circuitBreaker, GroqModelRouter modelRouter,
+                         GroqResilienceProperties resilience, MeterRegistry meterRegistry) {
         this.groqWebClient = groqWebClient;
         this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.modelRouter = modelRouter;
+        this.resilience = resilience;
+        this.mapType = objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+        this.coalescedRequests = meterRegistry.counter("groq.requests.coalesced");
+        this.retries = meterRegistry.counter("groq.requests.retries");
+        this.hedgesSent = meterRegistry.counter("groq.hedge.sent");
+        this.hedgesWon = meterRegistry.counter("groq.hedge.won");
+        meterRegistry.gauge("groq.requests.inflight", inFlightRequests, Map::size);
     }
 
     public Mono<String> generateText(String prompt) {
-        return generateText(prompt, defaultModel);
+        return completion(prompt, modelRouter.defaultRoute(), false)
+                .onErrorResume(error -> Mono.just(UNAVAILABLE_MESSAGE));
     }
 
     public Mono<String> generateText(String prompt, String model) {
+        return completion(prompt, modelRouter.defaultRoute().withModel(model), false)
+                .onErrorResume(error -> Mono.just(UNAVAILABLE_MESSAGE));
+    }
+
+    /**
+     * Identical requests of the same priority that arrive while one is already in flight share its
+     * upstream call instead of issuing their own. Requests of different priorities are not shared, as
+     * the shared call waits in the rate limiter lane of whichever caller started it. Errors are
+     * propagated so callers can decide how to degrade.
+     */
+    private Mono<String> completion(String prompt, ModelRoute route, boolean jsonMode) {
+        String promptKey = (jsonMode ? "json:" : "text:") + responseCache.key(prompt, route);
+        return Mono.deferContextual(context -> {
+            String requestKey = GroqRateLimiter.priorityOf(context) + ":" + promptKey;
+            Mono<String> call = singleFlight(requestKey, hedgedCompletion(prompt, route, jsonMode));
+            Mono<String> existing = inFlightRequests.putIfAbsent(requestKey, call);
+            if (existing != null) {
+                coalescedRequests.increment();
+                return existing;
+            }
+            return call;
+        });
+    }
+
+    /**
+     * When hedging is enabled, a second attempt against the fallback model starts if the primary
+     * has not answered within the primary model's observed p95 latency (the configured delay until
+     * calls to it have been timed); whichever returns a value first wins and the other is cancelled.
+     * A primary failure that retrying would not fix, such as a rejected request or an open circuit,
+     * fails the call at once and cancels the hedge.
+     */
+    private Mono<String> hedgedCompletion(String prompt, ModelRoute route, boolean jsonMode) {
+        GroqResilienceProperties.Hedge hedge = resilience.getHedge();
+        Mono<String> primary = resilientCompletion(prompt, route, jsonMode);
+        if (!hedge.isEnabled() || hedge.getFallbackModel() == null || hedge.getFallbackModel().equals(route.model())) {
+            return primary;
+        }
+        return Mono.defer(() -> {
+            Duration delay = modelRouter.p95Latency(route.model()).orElse(hedge.getDelay());
+            Sinks.Empty<String> rejected = Sinks.empty();
+            Mono<String> fallback = Mono.delay(delay)
+                    .doOnNext(tick -> hedgesSent.increment())
+                    .then(resilientCompletion(prompt, route.withModel(hedge.getFallbackModel()), jsonMode))
+                    .doOnNext(response -> hedgesWon.increment());
+            Mono<String> race = Mono.firstWithValue(primary.doOnError(error -> {
+                if (!isRetryable(error)) {
+                    rejected.tryEmitError(error);
+                }
+            }), fallback);
+            return Mono.firstWithSignal(race, rejected.asMono());
+        });
+    }
+
+    /**
+     * One logical attempt: guarded by the circuit breaker and retried with exponential backoff and
+     * jitter on throttling, server errors and timeouts.
+     */
+    private Mono<String> resilientCompletion(String prompt, ModelRoute route, boolean jsonMode) {
+        GroqResilienceProperties.Retry retry = resilience.getRetry();
+        return circuitBreaker.protect(requestCompletion(prompt, route, jsonMode), GroqAIService::isUpstreamFailure)
+                .retryWhen(Retry.backoff(retry.getMaxRetries(), retry.getInitialBackoff())
+                        .maxBackoff(retry.getMaxBackoff())
+                        .jitter(retry.getJitter())
+                        .filter(GroqAIService::isRetryable)
+                        .doBeforeRetry(signal -> retries.increment())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private Mono<String> requestCompletion(String prompt, ModelRoute route, boolean jsonMode) {
+        return rateLimiter.acquire(estimateTokens(prompt, route))
+                .flatMap(permit -> {
+                    long startedNanos = System.nanoTime();
+                    return groqWebClient.post()
+                            .uri("/chat/completions")
+                            .bodyValue(buildRequestBody(prompt, route, jsonMode))
+                            .retrieve()
+                            .toEntity(DataBuffer.class)
+                            .timeout(Duration.ofMillis(timeoutMillis))
+                            .doOnNext(response -> {
+                                permit.onResponse(response.getHeaders());
+                                modelRouter.recordLatency(route.model(), Duration.ofNanos(System.nanoTime() - startedNanos));
+                            })
+                            .doOnError(error -> {
+                                permit.onError(error);
+                                if (error instanceof TimeoutException) {
+                                    modelRouter.recordLatency(route.model(), Duration.ofNanos(System.nanoTime() - startedNanos));
+                                }
+                            })
+                            .doFinally(signal -> permit.release());
+                })
+                .map(response -> extractContent(response.getBody()))
+                .doOnDiscard(ResponseEntity.class, response -> {
+                    if (response.getBody() instanceof DataBuffer body) {
+                        DataBufferUtils.release(body);
+                    }
+                })
+                .doOnError(error -> log.error("Error calling Groq API", error));
+    }
+
+    /**
+     * Streams the completion as it is generated. Each element is a content delta from one
+     * {@code chat.completion.chunk} event; the timeout applies to the gap between chunks.
+     */
+    public Flux<String> streamText(String prompt, String model) {
+        return streamText(prompt, modelRouter.defaultRoute().withModel(model));
+    }
+
+    public Flux<String> streamStructuredText(AITask task, String prompt) {
+        return streamText(prompt + JSON_INSTRUCTION, modelRouter.route(task));
+    }
+
+    private Flux<String> streamText(String prompt, ModelRoute route) {
+        Map<String, Object> requestBody = buildRequestBody(prompt, route, false);
+        requestBody.put("stream", true);
+
+        Flux<String> stream = rateLimiter.acquire(estimateTokens(prompt, route))
+                .flatMapMany(permit -> groqWebClient.post()
+                        .uri("/chat/completions")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .bodyValue(requestBody)
+                        .retrieve()
+                        .toEntityFlux(SSE_TYPE)
+                        .doOnNext(response -> permit.onResponse(response.getHeaders()))
+                        .flatMapMany(response -> response.hasBody() ? response.getBody() : Flux.<ServerSentEvent<String>>empty())
+                        .mapNotNull(ServerSentEvent::data)
+                        .takeWhile(data -> !STREAM_DONE.equals(data))
+                        .map(this::extractDelta)
+                        .filter(delta -> !delta.isEmpty())
+                        .timeout(Duration.ofMillis(timeoutMillis))
+                        .doOnError(permit::onError)
+                        .doFinally(signal -> permit.release()));
+
+        return circuitBreaker.protect(stream, GroqAIService::isUpstreamFailure)
+                .doOnError(error -> log.error("Error streaming from Groq API", error));
+    }
+
+    public Mono<Map<String, Object>> generateStructuredResponse(AITask task, String prompt) {
+        return generateStructuredResponse(task, prompt, false);
+    }
+
+    /**
+     * Generates a JSON response for the given task using the task's routed model and budget.
+     * Successfully parsed responses are cached for the task's configured TTL; pass
+     * {@code bypassCache} for calls that must always reach the model.
+     */
+    public Mono<Map<String, Object>> generateStructuredResponse(AITask task, String prompt, boolean bypassCache) {
+        return this.<Map<String, Object>>structuredResponse(task, prompt, bypassCache, mapType)
+                .onErrorResume(MalformedResponseException.class, error -> Mono.just(parseErrorResponse(error.getRawResponse())))
+                .onErrorResume(error -> Mono.just(unavailableResponse()));
+    }
+
+    /**
+     * Same as the map variant but binds the model's JSON directly to {@code resultType}. Failures are
+     * propagated instead of being turned into an error map.
+     */
+    public <T> Mono<T> generateStructuredResponse(AITask task, String prompt, Class<T> resultType) {
+        return generateStructuredResponse(task, prompt, resultType, false);
+    }
+
+    public <T> Mono<T> generateStructuredResponse(AITask task, String prompt, Class<T> resultType, boolean bypassCache) {
+        return structuredResponse(task, prompt, bypassCache, objectMapper.constructType(resultType));
+    }
+
+    private <T> Mono<T> structuredResponse(AITask task, String prompt, boolean bypassCache, JavaType resultType) {
+        String structuredPrompt = prompt + JSON_INSTRUCTION;
+        ModelRoute route = modelRouter.route(task);
+        Duration ttl = bypassCache ? Duration.ZERO : responseCache.ttlFor(task);
+        if (ttl.isZero()) {
+            return completion(structuredPrompt, route, true)
+                    .map(content -> this.<T>decodeStructured(content, resultType));
+        }
+
+        String cacheKey = responseCache.key(structuredPrompt, route);
+        return Mono.defer(() -> responseCache.get(cacheKey)
+                .map(cached -> Mono.fromCallable(() -> this.<T>decodeStructured(cached, resultType)))
+                .orElseGet(() -> completion(structuredPrompt, route, true)
+                        .map(content -> {
+                            T result = decodeStructured(content, resultType);
+                            responseCache.put(cacheKey, content, ttl);
+                            return result;
+                        })));
+    }
+
+    /**
+     * Shares one subscription to {@code upstream} between every caller that joins while it is running.
+     * The upstream call is only cancelled once all callers have cancelled, and the entry is removed
+     * as soon as it terminates so later callers start a fresh request.
+     */
+    private Mono<String> singleFlight(String requestKey, Mono<String> upstream) {
+        AtomicReference<Mono<String>> self = new AtomicReference<>();
+        Mono<String> shared = upstream
+                .doOnTerminate(() -> inFlightRequests.remove(requestKey, self.get()))
+                .doOnCancel(() -> inFlightRequests.remove(requestKey, self.get()))
+                .flux()
+                .replay(1)
+                .refCount(1)
+                .singleOrEmpty();
+        self.set(shared);
+        return shared;
+    }
+
+    /**
+     * JSON mode makes Groq reject completions that are not a single JSON object, so structured calls
+     * never come back wrapped in prose or code fences. Groq does not support it when streaming.
+     */
+    private Map<String, Object> buildRequestBody(String prompt, ModelRoute route, boolean jsonMode) {
         Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", model);
+        requestBody.put("model", route.model());
         requestBody.put("messages", new Object[]{
             Map.of("role", "user", "content", prompt)
         });
-        requestBody.put("temperature", 0.7);
-        requestBody.put("max_tokens", 2000);
-
-        return groqWebClient.post()
-                .uri("/chat/completions")
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(String.class)
-                .timeout(Duration.ofSeconds(30))
-                .map(response -> {
-                    try {
-                        JsonNode jsonNode = objectMapper.readTree(response);
-                        return jsonNode.path("choices")
-                                .get(0)
-                                .path("message")
-                                .path("content")
-                                .asText();
-                    } catch (Exception e) {
-                        log.error("Error parsing Groq API response", e);
-                        return "Error processing AI response";
-                    }
-                })
-                .onErrorResume(error -> {
-                    log.error("Error calling Groq API", error);
-                    return Mono.just("AI service temporarily unavailable");
-                });
-    }
-
-    public Mono<Map<String, Object>> generateStructuredResponse(String prompt, String model) {
-        String structuredPrompt = prompt + "\n\nPlease respond in valid JSON format.";
-        
-        return generateText(structuredPrompt, model)
-                .map(response -> {
-                    try {
-                        return objectMapper.readValue(response, Map.class);
-                    } catch (Exception e) {
-                        log.error("Error parsing structured response", e);
-                        Map<String, Object> errorResponse = new HashMap<>();
-                        errorResponse.put("error", "Failed to parse structured response");
-                        errorResponse.put("raw_response", response);
-                        return errorResponse;
-                    }
-                });
+        requestBody.put("temperature", route.temperature());
+        requestBody.put("max_tokens", route.maxTokens());
+        if (jsonMode) {
+            requestBody.put("response_format", JSON_OBJECT_FORMAT);
+        }
+        return requestBody;
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseError) {
+            int status = responseError.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+
+    private static boolean isUpstreamFailure(Throwable error) {
+        if (error instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().is5xxServerError();
+        }
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+
+    /**
+     * Reservation for the limiter: the local prompt estimate plus the full completion budget, which
+     * Groq counts against the per-minute quota up front.
+     */
+    private int estimateTokens(String prompt, ModelRoute route) {
+        return PromptTemplates.estimateTokens(prompt) + 1 + route.maxTokens();
+    }
+
+    /**
+     * Reads {@code choices[0].message.content} straight off the response bytes without building a tree
+     * or copying the body into a string first. The buffer is released when the parser closes.
+     */
+    private String extractContent(DataBuffer body) {
+        if (body == null) {
+            throw new IllegalStateException("Empty Groq API response");
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(body.asInputStream(true))) {
+            String content = readChoiceContent(parser, "message");
+            if (content == null) {
+                throw new IllegalStateException("Groq API response has no message content");
+            }
+            return content;
+        } catch (IOException e) {
+            throw new IllegalStateException("Error parsing Groq API response", e);
+        }
     }
-}
 
+    private String extractDelta(String chunk) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(chunk)) {
+            String content = readChoiceContent(parser, "delta");
+            return content != null ? content : "";
+        } catch (IOException e) {
+            log.warn("Skipping unparseable Groq stream chunk: {}", chunk);
+            return "";
+        }
+    }
+
+    /**
+     * Walks a completion envelope token by token to {@code choices[0].<choiceField>.content}, skipping
+     * every other value. Returns null if the path is missing or the content is not a string.
+     */
+    private static String readChoiceContent(JsonParser parser, String choiceField) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT
+                || !seekField(parser, "choices") || parser.currentToken() != JsonToken.START_ARRAY
+                || parser.nextToken() != JsonToken.START_OBJECT
+                || !seekField(parser, choiceField) || parser.currentToken() != JsonToken.START_OBJECT
+                || !seekField(parser, "content")) {
+            return null;
+        }
+        return parser.currentToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+
+    /**
+     * Advances through the fields of the current object until {@code name}, leaving the parser on its
+     * value. Returns false once the object ends without a match.
+     */
+    private static boolean seekField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            boolean match = name.equals(parser.currentName());
+            parser.nextToken();
+            if (match) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private <T> T decodeStructured(String content, JavaType resultType) {
+        try {
+            return objectMapper.readValue(content, resultType);
+        } catch (JsonProcessingException e) {
+            log.error("Error parsing structured response", e);
+            throw new MalformedResponseException(content, e);
+        }
+    }
+
+    private Map<String, Object> parseErrorResponse(String rawResponse) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Failed to parse structured response");
+        errorResponse.put("raw_response", rawResponse);
+        return errorResponse;
+    }
+
+    private Map<String, Object> unavailableResponse() {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", UNAVAILABLE_MESSAGE);
+        return errorResponse;
+    }
+
+    /**
+     * The model answered, but not with JSON matching the requested shape.
+     */
+    public static class MalformedResponseException extends RuntimeException {
+        private final String rawResponse;
+
+        MalformedResponseException(String rawResponse, Throwable cause) {
+            super("Failed to parse structured response", cause);
+            this.rawResponse = rawResponse;
+        }
+
+        public String getRawResponse() {
+            return rawResponse;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqResilienceProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Count-based circuit breaker for the Groq upstream. Opens when the failure rate over the last
+ * {@code window-size} calls crosses the threshold, fails fast for {@code open-duration}, then lets a
+ * few trial calls through before closing again.
+ */
+@Component
+@Slf4j
+public class GroqCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final GroqResilienceProperties.CircuitBreaker config;
+    private final boolean[] outcomes;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAtNanos;
+    private int halfOpenInFlight;
+
+    public GroqCircuitBreaker(GroqResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getCircuitBreaker();
+        this.outcomes = new boolean[config.getWindowSize()];
+        Gauge.builder("groq.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call} if the breaker admits it, otherwise fails immediately. Errors matching
+     * {@code isFailure} count against the upstream; other errors and cancellations are ignored.
+     */
+    public <T> Mono<T> protect(Mono<T> call, Predicate<Throwable> isFailure) {
+        return protect(call.flux(), isFailure).singleOrEmpty();
+    }
+
+    public <T> Flux<T> protect(Flux<T> call, Predicate<Throwable> isFailure) {
+        return Flux.defer(() -> {
+            if (!tryAcquire()) {
+                return Flux.error(new RuntimeException("Groq circuit breaker is open"));
+            }
+            AtomicBoolean settled = new AtomicBoolean();
+            return call
+                    .doOnComplete(() -> settle(settled, this::onSuccess))
+                    .doOnError(error -> settle(settled, isFailure.test(error) ? this::onFailure : this::onIgnored))
+                    .doOnCancel(() -> settle(settled, this::onIgnored));
+        });
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && openDurationElapsed()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (!openDurationElapsed()) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= config.getHalfOpenCalls()) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true);
+        if (recorded >= config.getMinimumCalls() && failures >= config.getFailureRateThreshold() * recorded) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    private static void settle(AtomicBoolean settled, Runnable outcome) {
+        if (settled.compareAndSet(false, true)) {
+            outcome.run();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private boolean openDurationElapsed() {
+        return System.nanoTime() - openedAtNanos >= TimeUnit.NANOSECONDS.convert(config.getOpenDuration());
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("Groq circuit breaker {} -> {}", state, newState);
+        state = newState;
+        halfOpenInFlight = 0;
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        if (newState != State.HALF_OPEN) {
+            recorded = 0;
+            next = 0;
+            failures = 0;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqRoutingProperties;
+import com.eduai.model.enums.AITask;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves which model, token budget and temperature each AI task runs with. The table starts from
+ * {@code groq.routing.tasks} and can be changed at runtime; with the latency budget enabled, tasks
+ * are temporarily moved to a smaller model while their usual model is slow.
+ */
+@Component
+@Slf4j
+public class GroqModelRouter {
+
+    static final int DEFAULT_MAX_TOKENS = 2000;
+    static final double DEFAULT_TEMPERATURE = 0.7;
+
+    private final GroqRoutingProperties.LatencyBudget latencyBudget;
+    private final MeterRegistry meterRegistry;
+    private final ModelRoute defaultRoute;
+    private final ConcurrentMap<String, Timer> latencyByModel = new ConcurrentHashMap<>();
+
+    private volatile Map<AITask, ModelRoute> routes;
+
+    public GroqModelRouter(GroqRoutingProperties properties, @Value("${groq.api.model}") String defaultModel,
+                           MeterRegistry meterRegistry) {
+        this.latencyBudget = properties.getLatencyBudget();
+        this.meterRegistry = meterRegistry;
+        this.defaultRoute = new ModelRoute(defaultModel, DEFAULT_MAX_TOKENS, DEFAULT_TEMPERATURE);
+        Map<AITask, ModelRoute> initial = new EnumMap<>(AITask.class);
+        for (AITask task : AITask.values()) {
+            initial.put(task, resolve(properties.getTasks().get(task)));
+        }
+        this.routes = Collections.unmodifiableMap(initial);
+    }
+
+    public ModelRoute defaultRoute() {
+        return defaultRoute;
+    }
+
+    /**
+     * The route to use for the next call of {@code task}, after any latency-budget downgrade.
+     */
+    public ModelRoute route(AITask task) {
+        ModelRoute route = routes.get(task);
+        if (latencyBudget.isEnabled() && !route.model().equals(latencyBudget.getDowngradeModel())
+                && p95(route.model()) > latencyBudget.getP95Sla().toNanos()) {
+            meterRegistry.counter("groq.routing.downgraded", "task", task.name().toLowerCase()).increment();
+            return route.withModel(latencyBudget.getDowngradeModel());
+        }
+        return route;
+    }
+
+    public Map<AITask, ModelRoute> routes() {
+        return routes;
+    }
+
+    /**
+     * Replaces the configured route of one task; unset fields fall back to the defaults. Takes effect
+     * for the next call.
+     */
+    public synchronized ModelRoute update(AITask task, GroqRoutingProperties.Route route) {
+        ModelRoute resolved = resolve(route);
+        if (resolved.maxTokens() <= 0) {
+            throw new IllegalArgumentException("maxTokens must be positive");
+        }
+        if (resolved.temperature() < 0 || resolved.temperature() > 2) {
+            throw new IllegalArgumentException("temperature must be between 0 and 2");
+        }
+        Map<AITask, ModelRoute> updated = new EnumMap<>(routes);
+        updated.put(task, resolved);
+        routes = Collections.unmodifiableMap(updated);
+        log.info("Routing {} to {}", task, resolved);
+        return resolved;
+    }
+
+    public void recordLatency(String model, Duration latency) {
+        latencyByModel.computeIfAbsent(model, this::latencyTimer).record(latency);
+    }
+
+    /**
+     * The p95 upstream latency of {@code model} over the latency window, or empty before any call to
+     * it has been timed.
+     */
+    public Optional<Duration> p95Latency(String model) {
+        double p95 = p95(model);
+        return p95 > 0 ? Optional.of(Duration.ofNanos((long) p95)) : Optional.empty();
+    }
+
+    private Timer latencyTimer(String model) {
+        return Timer.builder("groq.upstream.latency")
+                .tag("model", model)
+                .publishPercentiles(0.95)
+                .distributionStatisticExpiry(latencyBudget.getWindow())
+                .distributionStatisticBufferLength(3)
+                .register(meterRegistry);
+    }
+
+    private double p95(String model) {
+        Timer timer = latencyByModel.get(model);
+        if (timer == null) {
+            return 0;
+        }
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.95) {
+                return percentile.value(TimeUnit.NANOSECONDS);
+            }
+        }
+        return 0;
+    }
+
+    private ModelRoute resolve(GroqRoutingProperties.Route route) {
+        if (route == null) {
+            return defaultRoute;
+        }
+        return new ModelRoute(
+                route.getModel() != null && !route.getModel().isBlank() ? route.getModel() : defaultRoute.model(),
+                route.getMaxTokens() != null ? route.getMaxTokens() : defaultRoute.maxTokens(),
+                route.getTemperature() != null ? route.getTemperature() : defaultRoute.temperature());
+    }
+}
@@ -0,0 +1,322 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqRateLimitProperties;
+import com.eduai.model.enums.AIRequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Admission control for Groq calls. Combines a token bucket sized from the account's tokens-per-minute
+ * budget with an AIMD concurrency limit, both corrected from the {@code x-ratelimit-*} response headers.
+ * Requests that cannot start immediately wait in one of two lanes; the interactive lane is always
+ * drained before the background lane.
+ */
+@Component
+@Slf4j
+public class GroqRateLimiter {
+
+    private static final String PRIORITY_KEY = GroqRateLimiter.class.getName() + ".priority";
+    private static final Pattern RESET_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private final GroqRateLimitProperties properties;
+    private final Map<AIRequestPriority, Deque<Waiter>> lanes = new EnumMap<>(AIRequestPriority.class);
+    private final double tokensPerNano;
+
+    private double concurrencyLimit;
+    private int inFlight;
+    private double availableTokens;
+    private long lastRefillNanos;
+    private long blockedUntilNanos;
+    private boolean dispatchScheduled;
+
+    private final Counter throttledResponses;
+    private final Counter rejectedRequests;
+    private final Timer queueWait;
+
+    public GroqRateLimiter(GroqRateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tokensPerNano = properties.getTokensPerMinute() / (double) TimeUnit.MINUTES.toNanos(1);
+        this.concurrencyLimit = properties.getInitialConcurrency();
+        this.availableTokens = properties.getTokensPerMinute();
+        this.lastRefillNanos = System.nanoTime();
+        for (AIRequestPriority priority : AIRequestPriority.values()) {
+            lanes.put(priority, new ArrayDeque<>());
+            Gauge.builder("groq.limiter.queued", this, limiter -> limiter.queuedIn(priority))
+                    .tag("lane", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("groq.limiter.concurrency", this, limiter -> limiter.concurrencyLimit).register(meterRegistry);
+        Gauge.builder("groq.limiter.inflight", this, limiter -> limiter.inFlight).register(meterRegistry);
+        Gauge.builder("groq.limiter.tokens.available", this, limiter -> limiter.availableTokens).register(meterRegistry);
+        this.throttledResponses = meterRegistry.counter("groq.limiter.throttled");
+        this.rejectedRequests = meterRegistry.counter("groq.limiter.rejected");
+        this.queueWait = meterRegistry.timer("groq.limiter.wait");
+    }
+
+    /**
+     * Marks every Groq call made by the subscribing pipeline with the given priority, e.g.
+     * {@code .contextWrite(GroqRateLimiter.withPriority(AIRequestPriority.BACKGROUND))}.
+     * Calls without a priority are treated as interactive.
+     */
+    public static Context withPriority(AIRequestPriority priority) {
+        return Context.of(PRIORITY_KEY, priority);
+    }
+
+    /**
+     * The priority set by {@link #withPriority} for the pipeline with this context.
+     */
+    public static AIRequestPriority priorityOf(ContextView context) {
+        return context.getOrDefault(PRIORITY_KEY, AIRequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Waits for capacity to send a request expected to consume {@code estimatedTokens}. The returned
+     * permit must be released once the call finishes; feeding it the response headers or the error
+     * lets the limiter adapt.
+     */
+    public Mono<Permit> acquire(int estimatedTokens) {
+        if (!properties.isEnabled()) {
+            return Mono.just(new Permit(false));
+        }
+        int cost = (int) Math.min(Math.max(estimatedTokens, 1), properties.getTokensPerMinute());
+        return Mono.deferContextual(context -> {
+                    AIRequestPriority priority = priorityOf(context);
+                    return Mono.<Permit>create(sink -> enqueue(new Waiter(priority, cost, sink)));
+                })
+                .timeout(properties.getMaxWait(), Mono.error(() -> new RuntimeException("Timed out waiting for Groq rate limit")))
+                .doOnDiscard(Permit.class, Permit::release);
+    }
+
+    private void enqueue(Waiter waiter) {
+        synchronized (this) {
+            if (queuedIn(AIRequestPriority.INTERACTIVE) + queuedIn(AIRequestPriority.BACKGROUND) >= properties.getMaxQueueSize()) {
+                rejectedRequests.increment();
+                waiter.sink.error(new RuntimeException("Groq request queue is full"));
+                return;
+            }
+            lanes.get(waiter.priority).addLast(waiter);
+            waiter.sink.onCancel(() -> cancel(waiter));
+        }
+        dispatch();
+    }
+
+    private synchronized void cancel(Waiter waiter) {
+        lanes.get(waiter.priority).remove(waiter);
+    }
+
+    private void dispatch() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            refill();
+            long now = System.nanoTime();
+            Waiter next;
+            while ((next = nextWaiter()) != null) {
+                if (now < blockedUntilNanos) {
+                    scheduleDispatch(blockedUntilNanos - now);
+                    break;
+                }
+                if (inFlight >= (int) concurrencyLimit) {
+                    break;
+                }
+                if (availableTokens < next.cost) {
+                    scheduleDispatch((long) ((next.cost - availableTokens) / tokensPerNano));
+                    break;
+                }
+                lanes.get(next.priority).pollFirst();
+                inFlight++;
+                availableTokens -= next.cost;
+                granted.add(next);
+            }
+        }
+        for (Waiter waiter : granted) {
+            queueWait.record(System.nanoTime() - waiter.enqueuedNanos, TimeUnit.NANOSECONDS);
+            waiter.sink.success(new Permit(true));
+        }
+    }
+
+    private Waiter nextWaiter() {
+        Waiter interactive = lanes.get(AIRequestPriority.INTERACTIVE).peekFirst();
+        return interactive != null ? interactive : lanes.get(AIRequestPriority.BACKGROUND).peekFirst();
+    }
+
+    private void scheduleDispatch(long delayNanos) {
+        if (!dispatchScheduled) {
+            dispatchScheduled = true;
+            Schedulers.parallel().schedule(() -> {
+                synchronized (this) {
+                    dispatchScheduled = false;
+                }
+                dispatch();
+            }, Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        availableTokens = Math.min(properties.getTokensPerMinute(),
+                availableTokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    private synchronized int queuedIn(AIRequestPriority priority) {
+        return lanes.get(priority).size();
+    }
+
+    synchronized double concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    private synchronized void onSuccess(HttpHeaders headers) {
+        applyRateLimitHeaders(headers);
+        concurrencyLimit = Math.min(properties.getMaxConcurrency(), concurrencyLimit + 1.0 / concurrencyLimit);
+    }
+
+    private synchronized void onCongestion(HttpHeaders headers) {
+        applyRateLimitHeaders(headers);
+        concurrencyLimit = Math.max(properties.getMinConcurrency(), concurrencyLimit * properties.getBackoffRatio());
+        Duration retryAfter = headers != null ? parseRetryAfter(headers) : null;
+        if (retryAfter != null) {
+            blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + retryAfter.toNanos());
+        }
+        log.warn("Groq is throttling requests, concurrency limit reduced to {}", String.format("%.2f", concurrencyLimit));
+    }
+
+    private void applyRateLimitHeaders(HttpHeaders headers) {
+        if (headers == null) {
+            return;
+        }
+        Long remainingTokens = parseLong(headers.getFirst("x-ratelimit-remaining-tokens"));
+        if (remainingTokens != null) {
+            availableTokens = Math.min(properties.getTokensPerMinute(), remainingTokens);
+            lastRefillNanos = System.nanoTime();
+        }
+        Long remainingRequests = parseLong(headers.getFirst("x-ratelimit-remaining-requests"));
+        Duration requestsReset = parseReset(headers.getFirst("x-ratelimit-reset-requests"));
+        if (remainingRequests != null && remainingRequests <= 0 && requestsReset != null) {
+            blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + requestsReset.toNanos());
+        }
+    }
+
+    private static Duration parseRetryAfter(HttpHeaders headers) {
+        Long seconds = parseLong(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        if (seconds != null) {
+            return Duration.ofSeconds(seconds);
+        }
+        return parseReset(headers.getFirst("x-ratelimit-reset-tokens"));
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses Groq's reset durations, e.g. {@code 7.66s}, {@code 2m59.56s} or {@code 120ms}.
+     */
+    static Duration parseReset(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Matcher matcher = RESET_PART.matcher(value);
+        double millis = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1_000;
+                default -> amount;
+            };
+        }
+        return matched ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+    }
+
+    private static final class Waiter {
+        private final AIRequestPriority priority;
+        private final int cost;
+        private final MonoSink<Permit> sink;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private Waiter(AIRequestPriority priority, int cost, MonoSink<Permit> sink) {
+            this.priority = priority;
+            this.cost = cost;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * A reserved slot for one upstream call. Releasing is idempotent.
+     */
+    public final class Permit {
+        private final boolean tracked;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(boolean tracked) {
+            this.tracked = tracked;
+        }
+
+        public void onResponse(HttpHeaders headers) {
+            if (tracked) {
+                onSuccess(headers);
+            }
+        }
+
+        public void onError(Throwable error) {
+            if (!tracked) {
+                return;
+            }
+            if (error instanceof WebClientResponseException responseError) {
+                int status = responseError.getStatusCode().value();
+                if (status == 429) {
+                    throttledResponses.increment();
+                    onCongestion(responseError.getHeaders());
+                } else if (status == 503) {
+                    onCongestion(responseError.getHeaders());
+                }
+            } else if (error instanceof TimeoutException) {
+                onCongestion(null);
+            }
+        }
+
+        public void release() {
+            if (tracked && released.compareAndSet(false, true)) {
+                synchronized (GroqRateLimiter.this) {
+                    inFlight--;
+                }
+                dispatch();
+            }
+        }
+    }
+}
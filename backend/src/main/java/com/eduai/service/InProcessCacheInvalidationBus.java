@@ -0,0 +1,23 @@
+package com.eduai.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations synchronously to subscribers in the same JVM.
+ */
+public class InProcessCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
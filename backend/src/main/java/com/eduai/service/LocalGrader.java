@@ -0,0 +1,283 @@
+package com.eduai.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Grades objective questions in-process against the answer key that {@code generateAssessment}
+ * produces: multiple choice and true/false, exact answers, numbers within a tolerance, and keyword
+ * sets. Results have the same shape as the LLM grader's. Anything open-ended, or an answer this
+ * grader cannot interpret, is left to the LLM.
+ */
+@Component
+public class LocalGrader {
+
+    public static final String LLM = "llm";
+
+    private static final Pattern CHOICE_LABEL = Pattern.compile("^\\(?([a-z])[).:]?(?:\\s+(.*))?$");
+    private static final Pattern NUMBER = Pattern.compile("-?\\d[\\d,]*(?:\\.\\d+)?(?:\\s*/\\s*\\d+(?:\\.\\d+)?)?|-?\\.\\d+");
+    // Periods are kept only between digits, so "light." matches the keyword "light" but 3.14 stays a number
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}.\\-]+|(?<!\\d)\\.|\\.(?!\\d)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public enum QuestionType {
+        MULTIPLE_CHOICE("multiple-choice"),
+        TRUE_FALSE("true-false"),
+        EXACT("exact"),
+        NUMERIC("numeric"),
+        KEYWORDS("keywords");
+
+        private final String grader;
+
+        QuestionType(String grader) {
+            this.grader = grader;
+        }
+
+        public String grader() {
+            return grader;
+        }
+    }
+
+    /**
+     * The parts of a generated assessment question needed to grade it locally. {@code answer} is the
+     * key as generated: a choice letter or text, a number, or a list of keywords.
+     */
+    public record AnswerKey(String type, Object answer, List<String> options, Double tolerance) {
+    }
+
+    private final double relativeTolerance;
+    private final MeterRegistry meterRegistry;
+
+    public LocalGrader(@Value("${groq.local-grading.numeric-relative-tolerance:0.01}") double relativeTolerance,
+                       MeterRegistry meterRegistry) {
+        this.relativeTolerance = relativeTolerance;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the grading result, or empty if the question has to go to the LLM.
+     */
+    public Optional<Map<String, Object>> grade(AnswerKey key, String studentAnswer) {
+        if (key == null || key.answer() == null || studentAnswer == null || studentAnswer.isBlank()) {
+            return Optional.empty();
+        }
+        QuestionType type = questionType(key);
+        if (type == null) {
+            return Optional.empty();
+        }
+        Optional<Map<String, Object>> result = switch (type) {
+            case MULTIPLE_CHOICE, TRUE_FALSE -> gradeChoice(type, key, studentAnswer);
+            case EXACT -> gradeExact(key, studentAnswer);
+            case NUMERIC -> gradeNumeric(key, studentAnswer);
+            case KEYWORDS -> gradeKeywords(key, studentAnswer);
+        };
+        result.ifPresent(graded -> countGraded(type.grader()));
+        return result;
+    }
+
+    public void countGraded(String grader) {
+        meterRegistry.counter("ai.grading.graded", "grader", grader).increment();
+    }
+
+    /**
+     * Maps the free-form type names the assessment prompt produces ("Multiple choice", "true/false",
+     * "numerical", ...) onto a question type. Without a type, a key with options is treated as
+     * multiple choice, a numeric key as numeric and a list key as keywords.
+     */
+    static QuestionType questionType(AnswerKey key) {
+        String type = key.type() != null ? key.type().toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "") : "";
+        if (type.contains("multiple") || type.equals("mcq") || type.equals("choice")) {
+            return QuestionType.MULTIPLE_CHOICE;
+        }
+        if (type.contains("truefalse") || type.equals("boolean")) {
+            return QuestionType.TRUE_FALSE;
+        }
+        if (type.startsWith("numer") || type.equals("number") || type.equals("calculation")) {
+            return QuestionType.NUMERIC;
+        }
+        if (type.equals("exact") || type.contains("fillintheblank") || type.equals("fillin")) {
+            return QuestionType.EXACT;
+        }
+        if (type.startsWith("keyword")) {
+            return QuestionType.KEYWORDS;
+        }
+        if (!type.isEmpty()) {
+            return null;
+        }
+        if (key.options() != null && !key.options().isEmpty()) {
+            return QuestionType.MULTIPLE_CHOICE;
+        }
+        if (key.answer() instanceof Number) {
+            return QuestionType.NUMERIC;
+        }
+        return key.answer() instanceof List<?> ? QuestionType.KEYWORDS : null;
+    }
+
+    private Optional<Map<String, Object>> gradeChoice(QuestionType type, AnswerKey key, String studentAnswer) {
+        List<String> options = type == QuestionType.TRUE_FALSE && (key.options() == null || key.options().isEmpty())
+                ? List.of("True", "False")
+                : key.options() != null ? key.options() : List.of();
+        int correct = choiceIndex(String.valueOf(key.answer()), options, type);
+        int chosen = choiceIndex(studentAnswer, options, type);
+        if (chosen < 0 || correct < 0) {
+            return Optional.empty();
+        }
+        boolean right = chosen == correct;
+        String correctOption = options.isEmpty() ? String.valueOf(key.answer()) : options.get(correct);
+        return Optional.of(result(right ? 100 : 0,
+                right ? "Correct." : "Incorrect. The correct answer is " + correctOption + ".",
+                right ? List.of("Selected the correct answer") : List.of(),
+                right ? List.of() : List.of("Review why " + correctOption + " is correct"),
+                Map.of("correctChoice", right ? 100 : 0),
+                type.grader()));
+    }
+
+    /**
+     * Resolves an answer to an option index by its letter ("b", "B)", "(b) ...") or its text. Without
+     * options, letters and texts are compared through their position in the alphabet or true/false.
+     */
+    private static int choiceIndex(String answer, List<String> options, QuestionType type) {
+        String normalized = normalize(answer);
+        if (type == QuestionType.TRUE_FALSE && options.size() == 2) {
+            if (normalized.equals("t") || normalized.equals("yes")) {
+                normalized = normalize(options.get(0));
+            } else if (normalized.equals("f") || normalized.equals("no")) {
+                normalized = normalize(options.get(1));
+            }
+        }
+        for (int i = 0; i < options.size(); i++) {
+            String option = normalize(options.get(i));
+            if (normalized.equals(option) || normalized.equals(stripLabel(option))) {
+                return i;
+            }
+        }
+        Matcher label = CHOICE_LABEL.matcher(normalized);
+        if (!label.matches()) {
+            return -1;
+        }
+        int index = label.group(1).charAt(0) - 'a';
+        if (options.isEmpty()) {
+            return label.group(2) == null ? index : -1;
+        }
+        if (index >= options.size()) {
+            return -1;
+        }
+        // "b" or "b) mitosis" select option b, but "a cell divides" is prose, not a choice.
+        String text = label.group(2);
+        return text == null || text.equals(stripLabel(normalize(options.get(index)))) ? index : -1;
+    }
+
+    private static String stripLabel(String option) {
+        Matcher label = CHOICE_LABEL.matcher(option);
+        return label.matches() && label.group(2) != null ? label.group(2) : option;
+    }
+
+    private Optional<Map<String, Object>> gradeExact(AnswerKey key, String studentAnswer) {
+        List<String> accepted = key.answer() instanceof List<?> list
+                ? list.stream().map(String::valueOf).toList()
+                : List.of(String.valueOf(key.answer()));
+        boolean right = accepted.stream().map(LocalGrader::normalize).anyMatch(normalize(studentAnswer)::equals);
+        return Optional.of(result(right ? 100 : 0,
+                right ? "Correct." : "Incorrect. The expected answer is " + accepted.get(0) + ".",
+                right ? List.of("Gave the expected answer") : List.of(),
+                right ? List.of() : List.of("The expected answer is " + accepted.get(0)),
+                Map.of("exactMatch", right ? 100 : 0),
+                QuestionType.EXACT.grader()));
+    }
+
+    private Optional<Map<String, Object>> gradeNumeric(AnswerKey key, String studentAnswer) {
+        Double expected = key.answer() instanceof Number number ? Double.valueOf(number.doubleValue())
+                : firstNumber(String.valueOf(key.answer()));
+        Double actual = firstNumber(studentAnswer);
+        if (expected == null || actual == null) {
+            return Optional.empty();
+        }
+        double tolerance = key.tolerance() != null ? key.tolerance() : Math.abs(expected) * relativeTolerance;
+        boolean right = Math.abs(actual - expected) <= tolerance + 1e-9;
+        return Optional.of(result(right ? 100 : 0,
+                right ? "Correct." : "Incorrect. The expected value is " + format(expected) + ".",
+                right ? List.of("Computed the correct value") : List.of(),
+                right ? List.of() : List.of("Check the calculation; " + format(actual) + " is outside the accepted range"),
+                Map.of("value", right ? 100 : 0),
+                QuestionType.NUMERIC.grader()));
+    }
+
+    private Optional<Map<String, Object>> gradeKeywords(AnswerKey key, String studentAnswer) {
+        List<String> keywords = key.answer() instanceof List<?> list
+                ? list.stream().map(String::valueOf).toList()
+                : Arrays.stream(String.valueOf(key.answer()).split("[,;]")).toList();
+        keywords = keywords.stream().map(String::strip).filter(keyword -> !keyword.isEmpty()).toList();
+        if (keywords.isEmpty()) {
+            return Optional.empty();
+        }
+        String answer = " " + normalize(studentAnswer) + " ";
+        List<String> found = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        Map<String, Object> breakdown = new LinkedHashMap<>();
+        double perKeyword = 100.0 / keywords.size();
+        for (String keyword : keywords) {
+            boolean present = answer.contains(" " + normalize(keyword) + " ");
+            (present ? found : missing).add(keyword);
+            breakdown.put(keyword, present ? Math.round(perKeyword * 100) / 100.0 : 0);
+        }
+        int score = (int) Math.round(found.size() * perKeyword);
+        String feedback = missing.isEmpty()
+                ? "Covers all key points."
+                : "Covers " + found.size() + " of " + keywords.size() + " key points.";
+        return Optional.of(result(score, feedback,
+                found.stream().map(keyword -> "Mentions " + keyword).toList(),
+                missing.stream().map(keyword -> "Address " + keyword).toList(),
+                breakdown,
+                QuestionType.KEYWORDS.grader()));
+    }
+
+    private static Double firstNumber(String text) {
+        Matcher matcher = NUMBER.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        String number = matcher.group().replace(",", "").replace(" ", "");
+        try {
+            int slash = number.indexOf('/');
+            if (slash > 0) {
+                double denominator = Double.parseDouble(number.substring(slash + 1));
+                return denominator == 0 ? null : Double.parseDouble(number.substring(0, slash)) / denominator;
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String normalize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT).strip();
+        return WHITESPACE.matcher(NON_WORD.matcher(lower).replaceAll(" ")).replaceAll(" ").strip();
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private static Map<String, Object> result(int score, String feedback, List<String> strengths,
+                                              List<String> improvements, Map<String, Object> breakdown, String grader) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("score", score);
+        result.put("feedback", feedback);
+        result.put("strengths", strengths);
+        result.put("improvements", improvements);
+        result.put("partialCreditBreakdown", breakdown);
+        result.put("grader", grader);
+        return result;
+    }
+}
@@ -0,0 +1,11 @@
+package com.eduai.service;
+
+/**
+ * The model and completion budget a Groq call is sent with.
+ */
+public record ModelRoute(String model, int maxTokens, double temperature) {
+
+    public ModelRoute withModel(String otherModel) {
+        return new ModelRoute(otherModel, maxTokens, temperature);
+    }
+}
@@ -0,0 +1,168 @@
+package com.eduai.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Broadcasts invalidations to every instance sharing the database with {@code NOTIFY}. A daemon
+ * thread keeps one pooled connection listening on the channel; notifications sent while it is
+ * reconnecting are lost, so after a reconnect subscribers are told to clear everything.
+ */
+@Slf4j
+public class PostgresCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final char SEPARATOR = '\t';
+    private static final int POLL_MILLIS = 1000;
+
+    private final DataSource dataSource;
+    private final String channel;
+    private final Duration reconnectInterval;
+    private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    private Thread listener;
+    private volatile boolean running;
+
+    public PostgresCacheInvalidationBus(DataSource dataSource, String channel, Duration reconnectInterval) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.channel = channel;
+        this.reconnectInterval = reconnectInterval;
+    }
+
+    /**
+     * Sends on its own connection rather than the caller's: invalidations are published after the
+     * caller's transaction commits, and a notification only goes out when its transaction does.
+     */
+    @Override
+    public void publish(Invalidation invalidation) {
+        String payload = invalidation.cache() == null ? ""
+                : invalidation.key() == null ? invalidation.cache()
+                : invalidation.cache() + SEPARATOR + invalidation.key();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select pg_notify(?, ?)")) {
+            statement.setString(1, channel);
+            statement.setString(2, payload);
+            statement.execute();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to publish cache invalidation {}; other instances keep it until it expires", payload, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = listener;
+        }
+        if (thread != null) {
+            thread.join(POLL_MILLIS * 2L);
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try {
+                    listen(connection, reconnecting);
+                } finally {
+                    // The connection goes back to the pool, so stop it collecting notifications
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("UNLISTEN *");
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Lost cache invalidation channel {}, reconnecting in {}", channel, reconnectInterval, e);
+                    sleep(reconnectInterval);
+                }
+            }
+            reconnecting = true;
+        }
+    }
+
+    private void listen(Connection connection, boolean reconnecting) throws SQLException {
+        PGConnection notifications = connection.unwrap(PGConnection.class);
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + channel);
+        }
+        if (reconnecting) {
+            deliver(new Invalidation(null, null));
+        }
+        while (running) {
+            PGNotification[] received = notifications.getNotifications(POLL_MILLIS);
+            if (received != null) {
+                for (PGNotification notification : received) {
+                    deliver(parse(notification.getParameter()));
+                }
+            }
+        }
+    }
+
+    static Invalidation parse(String payload) {
+        if (payload == null || payload.isEmpty()) {
+            return new Invalidation(null, null);
+        }
+        int separator = payload.indexOf(SEPARATOR);
+        return separator < 0
+                ? new Invalidation(payload, null)
+                : new Invalidation(payload.substring(0, separator), payload.substring(separator + 1));
+    }
+
+    private void deliver(Invalidation invalidation) {
+        for (Consumer<Invalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.error("Cache invalidation subscriber failed for {}", invalidation, e);
+            }
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,12 +1,26 @@
 package com.eduai.service;
 
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import com.eduai.model.enums.AITask;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.GradeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -14,66 +28,113 @@ import java.util.Map;
 public class PredictiveAnalyticsService {
 
     private final GroqAIService groqAIService;
+    private final PromptTemplates promptTemplates;
+    private final GradeRepository gradeRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final RiskScoringEngine riskScoringEngine;
 
-    public Mono<Map<String, Object>> calculateRiskScore(Long studentId, Map<String, Object> metrics) {
-        String prompt = String.format(
-            "Calculate at-risk student score (0-100) based on:\n" +
-            "Student ID: %d\n" +
-            "Metrics: %s\n\n" +
-            "Consider:\n" +
-            "- Attendance patterns\n" +
-            "- Assignment submission rates\n" +
-            "- Grade trajectory\n" +
-            "- Engagement metrics\n" +
-            "- Quiz performance\n" +
-            "- Social interaction\n\n" +
-            "Respond with JSON: riskScore (0-100), riskLevel (low/medium/high/critical), " +
-            "primaryConcerns (array), recommendedActions (array), predictedOutcome, interventionUrgency.",
-            studentId, metrics
-        );
-
-        return groqAIService.generateStructuredResponse(prompt, "llama-3.1-70b-versatile")
-                .doOnNext(result -> {
-                    log.info("Calculated risk score for student {}: {}", studentId, result.get("riskScore"));
+    /**
+     * Scores the student locally from their gradebook. With {@code narrative} set, the model is also
+     * asked for recommended actions; if that call fails the local score is still returned.
+     */
+    public Mono<Map<String, Object>> calculateRiskScore(Long studentId, Map<String, Object> context, boolean narrative) {
+        return Mono.fromCallable(() -> scoreStudents(List.of(studentId)).get(0))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(assessment -> log.info("Calculated risk score for student {}: {}", studentId, assessment.riskScore()))
+                .flatMap(assessment -> narrative ? withNarrative(assessment, context) : Mono.just(assessment.toMap()));
+    }
+
+    /**
+     * Scores many students with two queries and no model calls, highest risk first.
+     */
+    public Mono<List<Map<String, Object>>> calculateRiskScores(Collection<Long> studentIds) {
+        return Mono.fromCallable(() -> scoreStudents(studentIds).stream()
+                        .sorted(Comparator.comparingDouble(RiskScoringEngine.RiskAssessment::riskScore).reversed())
+                        .map(RiskScoringEngine.RiskAssessment::toMap)
+                        .collect(Collectors.toList()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public List<RiskScoringEngine.RiskAssessment> scoreStudents(Collection<Long> studentIds) {
+        List<Long> ids = studentIds.stream().distinct().collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<Grade>> gradesByStudent = gradeRepository.findByStudentIdIn(ids).stream()
+                .collect(Collectors.groupingBy(Grade::getStudentId));
+        Map<Long, Assignment> assignmentsById = new HashMap<>();
+        Map<Long, List<Assignment>> assignmentsByCourse = new HashMap<>();
+        for (Assignment assignment : assignmentRepository.findAllInCoursesOfStudents(ids)) {
+            assignmentsById.put(assignment.getId(), assignment);
+            if (assignment.getCourseId() != null) {
+                assignmentsByCourse.computeIfAbsent(assignment.getCourseId(), course -> new ArrayList<>()).add(assignment);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<RiskScoringEngine.RiskAssessment> assessments = new ArrayList<>();
+        for (Long studentId : ids) {
+            List<Grade> grades = gradesByStudent.getOrDefault(studentId, List.of());
+            Set<Assignment> relevant = new LinkedHashSet<>();
+            for (Grade grade : grades) {
+                Assignment assignment = assignmentsById.get(grade.getAssignmentId());
+                if (assignment == null) {
+                    continue;
+                }
+                relevant.add(assignment);
+                if (assignment.getCourseId() != null) {
+                    relevant.addAll(assignmentsByCourse.get(assignment.getCourseId()));
+                }
+            }
+            assessments.add(riskScoringEngine.score(studentId, new ArrayList<>(relevant), grades, now));
+        }
+        return assessments;
+    }
+
+    /**
+     * Adds AI-written {@code recommendedActions} and {@code predictedOutcome} to a local assessment.
+     */
+    public Mono<Map<String, Object>> withNarrative(RiskScoringEngine.RiskAssessment assessment, Map<String, Object> context) {
+        Map<String, Object> result = assessment.toMap();
+        String prompt = promptTemplates.prompt(AITask.RISK_SCORE)
+                .with("assessment", result)
+                .with("context", context)
+                .render();
+
+        return groqAIService.generateStructuredResponse(AITask.RISK_SCORE, prompt)
+                .map(response -> {
+                    if (!response.containsKey("error")) {
+                        result.put("recommendedActions", response.get("recommendedActions"));
+                        result.put("predictedOutcome", response.get("predictedOutcome"));
+                    }
+                    return result;
                 });
     }
 
     public Mono<Map<String, Object>> predictFinalGrade(Long studentId, Map<String, Object> currentData) {
-        String prompt = String.format(
-            "Predict final grade based on current performance:\n" +
-            "Student ID: %d\n" +
-            "Current Data: %s\n\n" +
-            "Analyze trends and predict final grade. " +
-            "Respond with JSON: predictedGrade, confidence (0-100), " +
-            "requiredPerformance (what they need to achieve target), timelineProjection.",
-            studentId, currentData
-        );
-
-        return groqAIService.generateStructuredResponse(prompt, "llama-3.1-70b-versatile");
+        String prompt = promptTemplates.prompt(AITask.GRADE_PREDICTION)
+                .with("studentId", studentId)
+                .with("currentData", currentData)
+                .render();
+
+        return groqAIService.generateStructuredResponse(AITask.GRADE_PREDICTION, prompt);
     }
 
     public Mono<Map<String, Object>> generateEarlyWarning(Long studentId, Map<String, Object> indicators) {
-        String prompt = String.format(
-            "Generate early warning report for student %d:\n" +
-            "Indicators: %s\n\n" +
-            "Identify problems before they escalate. " +
-            "Provide: warningLevel, identifiedRisks (array), timeline (when issues will escalate), " +
-            "interventionStrategies (array), parentNotification (boolean), counselorEscalation (boolean).",
-            studentId, indicators
-        );
-
-        return groqAIService.generateStructuredResponse(prompt, "llama-3.1-70b-versatile");
+        String prompt = promptTemplates.prompt(AITask.EARLY_WARNING)
+                .with("studentId", studentId)
+                .with("indicators", indicators)
+                .render();
+
+        return groqAIService.generateStructuredResponse(AITask.EARLY_WARNING, prompt);
     }
 
     public Mono<Map<String, Object>> analyzeClassPerformance(Map<String, Object> classData) {
-        String prompt = String.format(
-            "Analyze class-level performance:\n%s\n\n" +
-            "Provide: averageRiskScore, highRiskStudents (count), " +
-            "classTrend (improving/declining/stable), cohortComparison, recommendations.",
-            classData
-        );
-
-        return groqAIService.generateStructuredResponse(prompt, "llama-3.1-70b-versatile");
+        String prompt = promptTemplates.prompt(AITask.CLASS_PERFORMANCE)
+                .with("classData", classData)
+                .render();
+
+        return groqAIService.generateStructuredResponse(AITask.CLASS_PERFORMANCE, prompt);
     }
 }
 
@@ -0,0 +1,334 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqPromptProperties;
+import com.eduai.model.enums.AITask;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prompt templates loaded from {@code groq.prompts.location} and parsed once at startup. Placeholders
+ * are written {@code {{name}}}; maps, collections and other objects are rendered as compact JSON.
+ * When a rendered prompt would exceed its task's input budget, the large values are trimmed to fit:
+ * long arrays are cut down (numeric ones are summarized), long strings are shortened, and as a last
+ * resort the value is cut off. Values set with {@link Prompt#verbatim} are never trimmed.
+ */
+@Component
+@Slf4j
+public class PromptTemplates {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*(\\w+)\\s*}}");
+    private static final int ELASTIC_STRING_TOKENS = 256;
+    private static final int[] ARRAY_CAPS = {50, 20, 10, 5, 2};
+    private static final int[] STRING_CAPS = {1000, 400, 160, 60, 20};
+    private static final String ELLIPSIS = "…";
+
+    private final GroqPromptProperties properties;
+    private final ObjectMapper jsonWriter;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Template> templates;
+
+    public PromptTemplates(GroqPromptProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry)
+            throws IOException {
+        this.properties = properties;
+        this.jsonWriter = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.meterRegistry = meterRegistry;
+        this.templates = load(properties.getLocation());
+        log.info("Loaded {} prompt templates from {}", templates.size(), properties.getLocation());
+    }
+
+    /**
+     * Starts a prompt from the template named after {@code task}, e.g. {@code risk-score.txt}.
+     */
+    public Prompt prompt(AITask task) {
+        return prompt(task, task.name().toLowerCase().replace('_', '-'));
+    }
+
+    public Prompt prompt(AITask task, String templateName) {
+        Template template = templates.get(templateName);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown prompt template: " + templateName);
+        }
+        return new Prompt(task, template);
+    }
+
+    /**
+     * Local token estimate, close enough for budgeting: a word of up to six letters or digits is about
+     * one token and longer ones about one more per four characters; every other visible character is
+     * about one token.
+     */
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                run++;
+                continue;
+            }
+            tokens += wordTokens(run);
+            run = 0;
+            if (!Character.isWhitespace(c)) {
+                tokens++;
+            }
+        }
+        return tokens + wordTokens(run);
+    }
+
+    /**
+     * Estimated tokens of a value as it would be rendered into a prompt, e.g. a map as JSON.
+     */
+    public int estimateRenderedTokens(Object value) {
+        return estimateTokens(toText(value));
+    }
+
+    private static int wordTokens(int length) {
+        return length == 0 ? 0 : 1 + Math.max(0, length - 3) / 4;
+    }
+
+    private String render(AITask task, Template template, Map<String, Object> values, Set<String> verbatim) {
+        Map<String, String> rendered = new HashMap<>();
+        Map<String, Integer> elasticTokens = new LinkedHashMap<>();
+        int fixedTokens = template.literalTokens();
+        for (String variable : template.variables()) {
+            if (rendered.containsKey(variable)) {
+                continue;
+            }
+            if (!values.containsKey(variable)) {
+                throw new IllegalArgumentException("No value for {{" + variable + "}} in prompt template " + template.name());
+            }
+            Object value = values.get(variable);
+            String text = toText(value);
+            int tokens = estimateTokens(text) * template.occurrences(variable);
+            rendered.put(variable, text);
+            if (verbatim.contains(variable)) {
+                continue;
+            }
+            if (isStructured(value) || tokens > ELASTIC_STRING_TOKENS) {
+                elasticTokens.put(variable, tokens);
+            } else {
+                fixedTokens += tokens;
+            }
+        }
+
+        int budget = properties.maxInputTokensFor(task);
+        int elasticTotal = elasticTokens.values().stream().mapToInt(Integer::intValue).sum();
+        if (fixedTokens + elasticTotal > budget && elasticTotal > 0) {
+            int available = Math.max(budget - fixedTokens, 0);
+            for (Map.Entry<String, Integer> entry : elasticTokens.entrySet()) {
+                String variable = entry.getKey();
+                int share = (int) ((long) available * entry.getValue() / elasticTotal / template.occurrences(variable));
+                rendered.put(variable, shrink(task, values.get(variable), rendered.get(variable), share));
+            }
+        }
+
+        StringBuilder prompt = new StringBuilder();
+        for (int i = 0; i < template.variables().size(); i++) {
+            prompt.append(template.literals().get(i)).append(rendered.get(template.variables().get(i)));
+        }
+        prompt.append(template.literals().get(template.literals().size() - 1));
+        String result = prompt.toString();
+        meterRegistry.summary("ai.prompt.tokens", "task", metricTag(task)).record(estimateTokens(result));
+        return result;
+    }
+
+    private String shrink(AITask task, Object value, String text, int tokenBudget) {
+        if (estimateTokens(text) <= tokenBudget) {
+            return text;
+        }
+        if (isStructured(value)) {
+            JsonNode tree = jsonWriter.valueToTree(value);
+            for (int level = 0; level < ARRAY_CAPS.length; level++) {
+                String trimmed = writeJson(trim(tree, ARRAY_CAPS[level], STRING_CAPS[level]));
+                text = trimmed;
+                if (estimateTokens(trimmed) <= tokenBudget) {
+                    meterRegistry.counter("ai.prompt.truncated", "task", metricTag(task), "method", "trimmed").increment();
+                    return trimmed;
+                }
+            }
+        }
+        meterRegistry.counter("ai.prompt.truncated", "task", metricTag(task), "method", "cut").increment();
+        return cut(text, tokenBudget);
+    }
+
+    private static JsonNode trim(JsonNode node, int arrayCap, int stringCap) {
+        if (node.isObject()) {
+            ObjectNode trimmed = JsonNodeFactory.instance.objectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                trimmed.set(field.getKey(), trim(field.getValue(), arrayCap, stringCap));
+            }
+            return trimmed;
+        }
+        if (node.isArray()) {
+            if (node.size() > arrayCap && isNumeric(node)) {
+                return summarize(node);
+            }
+            ArrayNode trimmed = JsonNodeFactory.instance.arrayNode();
+            for (int i = 0; i < Math.min(node.size(), arrayCap); i++) {
+                trimmed.add(trim(node.get(i), arrayCap, stringCap));
+            }
+            if (node.size() > arrayCap) {
+                trimmed.add(ELLIPSIS + " " + (node.size() - arrayCap) + " more");
+            }
+            return trimmed;
+        }
+        if (node.isTextual() && node.textValue().length() > stringCap) {
+            return TextNode.valueOf(node.textValue().substring(0, stringCap) + ELLIPSIS);
+        }
+        return node;
+    }
+
+    private static boolean isNumeric(JsonNode array) {
+        for (JsonNode element : array) {
+            if (!element.isNumber()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ObjectNode summarize(JsonNode numbers) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (JsonNode number : numbers) {
+            double value = number.doubleValue();
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        ObjectNode summary = JsonNodeFactory.instance.objectNode();
+        summary.put("count", numbers.size());
+        summary.put("min", min);
+        summary.put("max", max);
+        summary.put("mean", Math.round(sum / numbers.size() * 100) / 100.0);
+        return summary;
+    }
+
+    private static String cut(String text, int tokenBudget) {
+        int end = Math.min(text.length(), tokenBudget * 3);
+        while (end > 0 && estimateTokens(text.substring(0, end)) > tokenBudget) {
+            end = end * 9 / 10;
+        }
+        return text.substring(0, end) + ELLIPSIS;
+    }
+
+    private String toText(Object value) {
+        if (value == null || value instanceof CharSequence || value instanceof Number
+                || value instanceof Boolean || value instanceof Enum<?>) {
+            return String.valueOf(value);
+        }
+        return writeJson(value);
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return jsonWriter.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to render prompt value as JSON", e);
+        }
+    }
+
+    private static boolean isStructured(Object value) {
+        return value instanceof Map<?, ?> || value instanceof Collection<?> || value instanceof Object[]
+                || value instanceof JsonNode;
+    }
+
+    private static String metricTag(AITask task) {
+        return task.name().toLowerCase();
+    }
+
+    private static Map<String, Template> load(String location) throws IOException {
+        Map<String, Template> loaded = new HashMap<>();
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "*.txt");
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            String name = filename.substring(0, filename.length() - ".txt".length());
+            String source = resource.getContentAsString(StandardCharsets.UTF_8).replace("\r\n", "\n").strip();
+            loaded.put(name, parse(name, source));
+        }
+        return loaded;
+    }
+
+    private static Template parse(String name, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(source);
+        int last = 0;
+        while (matcher.find()) {
+            literals.add(source.substring(last, matcher.start()));
+            variables.add(matcher.group(1));
+            last = matcher.end();
+        }
+        literals.add(source.substring(last));
+        int literalTokens = literals.stream().mapToInt(PromptTemplates::estimateTokens).sum();
+        return new Template(name, List.copyOf(literals), List.copyOf(variables), literalTokens);
+    }
+
+    private record Template(String name, List<String> literals, List<String> variables, int literalTokens) {
+
+        int occurrences(String variable) {
+            return (int) variables.stream().filter(variable::equals).count();
+        }
+    }
+
+    /**
+     * A prompt being filled in. Values may be null.
+     */
+    public final class Prompt {
+        private final AITask task;
+        private final Template template;
+        private final Map<String, Object> values = new HashMap<>();
+        private final Set<String> verbatim = new HashSet<>();
+
+        private Prompt(AITask task, Template template) {
+            this.task = task;
+            this.template = template;
+        }
+
+        public Prompt with(String name, Object value) {
+            values.put(name, value);
+            return this;
+        }
+
+        /**
+         * Sets a value that is never trimmed and does not count against the budget, e.g. student work
+         * that must be graded in full. The caller is responsible for its size.
+         */
+        public Prompt verbatim(String name, Object value) {
+            values.put(name, value);
+            verbatim.add(name);
+            return this;
+        }
+
+        public String render() {
+            return PromptTemplates.this.render(task, template, values, verbatim);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.eduai.service;
+
+import com.eduai.config.RiskScanProperties;
+import com.eduai.model.RiskScan;
+import com.eduai.model.RiskScore;
+import com.eduai.model.enums.AIRequestPriority;
+import com.eduai.model.enums.RiskScanStatus;
+import com.eduai.repository.RiskScanRepository;
+import com.eduai.repository.RiskScoreRepository;
+import com.eduai.repository.StudentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Scores every student on a schedule and stores the results, so dashboards read precomputed scores
+ * instead of scoring on request. Students are walked in id order in pages; pages are scored in
+ * parallel but checkpointed in order, so a scan interrupted by a crash resumes after the last
+ * committed page.
+ *
+ * <p>With several instances, only one runs a scan at a time: starting or resuming happens under a
+ * Postgres advisory lock, the owning instance keeps renewing its scan, and another instance resumes
+ * it only once it has gone {@code stale-after} without being renewed.
+ */
+@Service
+@Slf4j
+public class RiskScanService {
+
+    private static final Set<String> SORTABLE_FIELDS = Set.of(
+            "riskScore", "studentId", "averagePercentage", "missingAssignments", "lateRate", "trend");
+    private static final int MAX_LIMIT = 100;
+    private static final long SCAN_LOCK_KEY = 7_204_311_001L;
+
+    private final StudentRepository studentRepository;
+    private final RiskScanRepository riskScanRepository;
+    private final RiskScoreRepository riskScoreRepository;
+    private final PredictiveAnalyticsService predictiveAnalyticsService;
+    private final RiskScanProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong currentScored = new AtomicLong();
+    private final AtomicLong currentTotal = new AtomicLong();
+    private final Counter studentsScored;
+    private final Timer pageTimer;
+    private final Timer scanTimer;
+
+    public RiskScanService(StudentRepository studentRepository, RiskScanRepository riskScanRepository,
+                           RiskScoreRepository riskScoreRepository, PredictiveAnalyticsService predictiveAnalyticsService,
+                           RiskScanProperties properties, PlatformTransactionManager transactionManager,
+                           JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.studentRepository = studentRepository;
+        this.riskScanRepository = riskScanRepository;
+        this.riskScoreRepository = riskScoreRepository;
+        this.predictiveAnalyticsService = predictiveAnalyticsService;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.studentsScored = meterRegistry.counter("risk.scan.students");
+        this.pageTimer = meterRegistry.timer("risk.scan.page");
+        this.scanTimer = meterRegistry.timer("risk.scan.duration");
+        Gauge.builder("risk.scan.running", running, flag -> flag.get() ? 1 : 0).register(meterRegistry);
+        Gauge.builder("risk.scan.progress", this, service -> service.progress())
+                .description("Fraction of students scored by the current or last scan")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${risk-scan.cron:0 0 5 * * *}")
+    public void scheduledScan() {
+        if (properties.isEnabled() && startScan().isEmpty()) {
+            log.info("Skipping scheduled risk scan, one is already running");
+        }
+    }
+
+    /**
+     * Checks for an abandoned scan now and then every {@code stale-after}, since a scan left by a
+     * process that just restarted is not stale yet, and an instance may die while others keep running.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedScan() {
+        if (properties.isEnabled() && properties.isResumeOnStartup()) {
+            Flux.interval(Duration.ZERO, properties.getStaleAfter(), Schedulers.boundedElastic())
+                    .filter(tick -> !running.get())
+                    .subscribe(tick -> {
+                        try {
+                            start(true);
+                        } catch (RuntimeException e) {
+                            log.warn("Could not check for an interrupted risk scan", e);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Starts a scan in the background, or resumes one whose instance stopped. Returns empty if a scan
+     * is already running here or on another live instance.
+     */
+    public Optional<RiskScan> startScan() {
+        return start(false);
+    }
+
+    private Optional<RiskScan> start(boolean resumeOnly) {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        try {
+            Optional<RiskScan> acquired = transactionTemplate.execute(status -> acquire(resumeOnly));
+            if (acquired == null || acquired.isEmpty()) {
+                running.set(false);
+                return Optional.empty();
+            }
+            RiskScan scan = acquired.get();
+            currentScored.set(scan.getScoredStudents());
+            currentTotal.set(scan.getTotalStudents() != null ? scan.getTotalStudents() : 0);
+            run(scan).subscribe();
+            return acquired;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    public Optional<RiskScan> latestScan() {
+        return riskScanRepository.findFirstByOrderByIdDesc();
+    }
+
+    /**
+     * Scores from the latest completed scan, or from the running one if none has completed yet.
+     */
+    public Map<String, Object> latestScores(String riskLevel, double minScore, int page, int limit,
+                                            String sortBy, String sortOrder) {
+        if (!SORTABLE_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentException("Cannot sort by " + sortBy);
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Sort sort = Sort.by("asc".equalsIgnoreCase(sortOrder) ? Sort.Direction.ASC : Sort.Direction.DESC, sortBy);
+        Optional<RiskScan> scan = riskScanRepository.findFirstByStatusOrderByIdDesc(RiskScanStatus.COMPLETED)
+                .or(riskScanRepository::findFirstByOrderByIdDesc);
+        Page<RiskScore> scores = scan
+                .map(found -> riskScoreRepository.search(found.getId(), riskLevel, minScore,
+                        PageRequest.of(Math.max(page, 1) - 1, pageSize, sort)))
+                .orElse(Page.empty());
+
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("page", Math.max(page, 1));
+        pagination.put("limit", pageSize);
+        pagination.put("total", scores.getTotalElements());
+        pagination.put("totalPages", scores.getTotalPages());
+        pagination.put("hasNextPage", scores.hasNext());
+        pagination.put("hasPrevPage", page > 1);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("scanId", scan.map(RiskScan::getId).orElse(null));
+        response.put("scannedAt", scan.map(RiskScan::getStartedAt).orElse(null));
+        response.put("data", scores.getContent());
+        response.put("pagination", pagination);
+        return response;
+    }
+
+    public List<RiskScore> studentHistory(Long studentId) {
+        return riskScoreRepository.findByStudentIdOrderByCreatedAtDesc(studentId);
+    }
+
+    /**
+     * Runs under a transaction-scoped advisory lock, so instances firing the same cron decide one at
+     * a time. A running scan is resumed only if its owner has stopped renewing it.
+     */
+    private Optional<RiskScan> acquire(boolean resumeOnly) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, SCAN_LOCK_KEY))) {
+            return Optional.empty();
+        }
+        Optional<RiskScan> current = riskScanRepository.findFirstByStatusOrderByIdDesc(RiskScanStatus.RUNNING);
+        if (current.isEmpty()) {
+            return resumeOnly ? Optional.empty() : Optional.of(newScan());
+        }
+        RiskScan scan = current.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (riskScanRepository.takeOver(scan.getId(), instanceId, now.minus(properties.getStaleAfter()), now) == 0) {
+            return Optional.empty();
+        }
+        scan.setOwner(instanceId);
+        log.info("Resuming risk scan {} after student {}", scan.getId(), scan.getLastStudentId());
+        return Optional.of(scan);
+    }
+
+    private RiskScan newScan() {
+        RiskScan scan = new RiskScan();
+        scan.setStatus(RiskScanStatus.RUNNING);
+        scan.setOwner(instanceId);
+        scan.setStartedAt(LocalDateTime.now());
+        scan.setTotalStudents(studentRepository.count());
+        log.info("Starting risk scan of {} students", scan.getTotalStudents());
+        return riskScanRepository.save(scan);
+    }
+
+    private Mono<Void> run(RiskScan scan) {
+        long startedNanos = System.nanoTime();
+        AtomicLong persisted = new AtomicLong();
+        Long resumeAfter = scan.getLastStudentId() != null ? scan.getLastStudentId() : 0L;
+        Duration renewEvery = properties.getStaleAfter().dividedBy(3);
+        Disposable renewal = Flux.interval(renewEvery, renewEvery, Schedulers.boundedElastic())
+                .subscribe(tick -> renew(scan.getId()));
+
+        return Flux.<List<Long>, Long>generate(() -> resumeAfter, (afterId, sink) -> {
+                    List<Long> ids = studentRepository.findIdsAfter(afterId, PageRequest.of(0, properties.getPageSize()));
+                    if (ids.isEmpty()) {
+                        sink.complete();
+                        return afterId;
+                    }
+                    sink.next(ids);
+                    return ids.get(ids.size() - 1);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapSequential(ids -> scorePage(scan.getId(), ids), properties.getConcurrency())
+                .concatMap(page -> Mono.fromRunnable(() -> checkpoint(scan.getId(), page))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .then(pace(startedNanos, persisted.addAndGet(page.scores().size()))))
+                .then(Mono.fromRunnable(() -> finish(scan.getId(), RiskScanStatus.COMPLETED, null)))
+                .onErrorResume(ScanTakenOverException.class, error -> {
+                    log.warn("Stopping risk scan {}, another instance took it over", scan.getId());
+                    return Mono.empty();
+                })
+                .onErrorResume(error -> {
+                    log.error("Risk scan {} failed", scan.getId(), error);
+                    return Mono.fromRunnable(() -> finish(scan.getId(), RiskScanStatus.FAILED, error.getMessage()));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> {
+                    renewal.dispose();
+                    scanTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+                    running.set(false);
+                })
+                .contextWrite(GroqRateLimiter.withPriority(AIRequestPriority.BACKGROUND))
+                .then();
+    }
+
+    private Mono<ScoredPage> scorePage(Long scanId, List<Long> studentIds) {
+        return Mono.fromCallable(() -> {
+                    long pageStarted = System.nanoTime();
+                    List<RiskScoringEngine.RiskAssessment> assessments = predictiveAnalyticsService.scoreStudents(studentIds);
+                    pageTimer.record(System.nanoTime() - pageStarted, TimeUnit.NANOSECONDS);
+                    return assessments;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(assessment -> toRiskScore(scanId, assessment))
+                .collectList()
+                .map(scores -> new ScoredPage(studentIds.get(studentIds.size() - 1), scores));
+    }
+
+    private Mono<RiskScore> toRiskScore(Long scanId, RiskScoringEngine.RiskAssessment assessment) {
+        RiskScore score = new RiskScore();
+        score.setScanId(scanId);
+        score.setStudentId(assessment.studentId());
+        score.setRiskScore(assessment.riskScore());
+        score.setRiskLevel(assessment.riskLevel());
+        score.setPrimaryConcerns(assessment.primaryConcerns());
+        score.setInterventionUrgency(assessment.interventionUrgency());
+        score.setAveragePercentage(assessment.averagePercentage());
+        score.setMissingAssignments(assessment.missingAssignments());
+        score.setDueAssignments(assessment.dueAssignments());
+        score.setLateRate(assessment.lateRate());
+        score.setTrend(assessment.trend());
+        if (!properties.getNarrativeLevels().contains(assessment.riskLevel())) {
+            return Mono.just(score);
+        }
+        return predictiveAnalyticsService.withNarrative(assessment, null)
+                .map(result -> {
+                    if (result.get("recommendedActions") instanceof List<?> actions) {
+                        score.setRecommendedActions(actions.stream().map(String::valueOf).collect(Collectors.toList()));
+                    }
+                    return score;
+                })
+                .onErrorReturn(score);
+    }
+
+    /**
+     * Moves the checkpoint before saving the page, so a scan another instance has taken over writes
+     * no scores.
+     */
+    private void checkpoint(Long scanId, ScoredPage page) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (riskScanRepository.checkpoint(scanId, instanceId, page.lastStudentId(), page.scores().size(),
+                    LocalDateTime.now()) == 0) {
+                throw new ScanTakenOverException();
+            }
+            riskScoreRepository.saveAll(page.scores());
+        });
+        studentsScored.increment(page.scores().size());
+        currentScored.addAndGet(page.scores().size());
+    }
+
+    /**
+     * Holds the scan back to {@code max-students-per-second} by delaying until the persisted count
+     * is no longer ahead of schedule.
+     */
+    private Mono<Void> pace(long startedNanos, long persisted) {
+        long dueNanos = persisted * TimeUnit.SECONDS.toNanos(1) / Math.max(properties.getMaxStudentsPerSecond(), 1);
+        long aheadNanos = dueNanos - (System.nanoTime() - startedNanos);
+        return aheadNanos > 0 ? Mono.delay(Duration.ofNanos(aheadNanos)).then() : Mono.empty();
+    }
+
+    private void renew(Long scanId) {
+        try {
+            if (riskScanRepository.renew(scanId, instanceId, LocalDateTime.now()) == 0) {
+                log.warn("Risk scan {} is no longer owned by this instance", scanId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not renew risk scan {}", scanId, e);
+        }
+    }
+
+    private void finish(Long scanId, RiskScanStatus status, String errorMessage) {
+        RiskScan scan = riskScanRepository.findById(scanId)
+                .orElseThrow(() -> new RuntimeException("Risk scan not found"));
+        scan.setStatus(status);
+        scan.setFinishedAt(LocalDateTime.now());
+        scan.setErrorMessage(errorMessage);
+        riskScanRepository.save(scan);
+        log.info("Risk scan {} {} after scoring {} students", scanId, status, scan.getScoredStudents());
+    }
+
+    private double progress() {
+        long total = currentTotal.get();
+        return total > 0 ? Math.min(1.0, (double) currentScored.get() / total) : 0;
+    }
+
+    private record ScoredPage(Long lastStudentId, List<RiskScore> scores) {
+    }
+
+    private static class ScanTakenOverException extends RuntimeException {
+    }
+}
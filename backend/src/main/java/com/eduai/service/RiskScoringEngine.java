@@ -0,0 +1,217 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores how likely a student is to fail from their gradebook alone: average grade, missing work,
+ * late submissions and the recent grade trend. Pure arithmetic over already loaded rows, so a whole
+ * school can be scored without calling the model.
+ */
+@Component
+public class RiskScoringEngine {
+
+    /**
+     * Level of a student with no grade rows at all. Enrollment is only known through grade rows, so
+     * such a student has no due or missing work to count and would otherwise look like low risk.
+     */
+    public static final String INSUFFICIENT_DATA = "insufficient_data";
+
+    private static final double PASSING_PERCENTAGE = 60.0;
+
+    private static final double TARGET_PERCENTAGE = 85.0;
+    private static final double PERFORMANCE_WEIGHT = 35.0;
+    private static final double MISSING_WEIGHT = 30.0;
+    private static final double LATE_WEIGHT = 15.0;
+    private static final double TREND_WEIGHT = 20.0;
+    private static final double MISSING_RATE_CEILING = 0.3;
+    private static final double LATE_RATE_CEILING = 0.5;
+    private static final double DECLINE_CEILING = 5.0;
+    private static final int TREND_WINDOW = 10;
+    private static final int TREND_MIN_POINTS = 3;
+
+    /**
+     * @param assignments every assignment of the student's courses
+     * @param grades      the student's grade rows for those assignments
+     */
+    public RiskAssessment score(Long studentId, List<Assignment> assignments, List<Grade> grades, LocalDateTime now) {
+        if (grades.isEmpty()) {
+            return new RiskAssessment(studentId, 0, INSUFFICIENT_DATA,
+                    List.of("No grades recorded, so missing work cannot be counted; check the student's enrollment"),
+                    null, 0, 0, 0, null);
+        }
+        Map<Long, Assignment> assignmentsById = new HashMap<>();
+        for (Assignment assignment : assignments) {
+            assignmentsById.put(assignment.getId(), assignment);
+        }
+        Map<Long, Grade> gradesByAssignment = new HashMap<>();
+        for (Grade grade : grades) {
+            gradesByAssignment.put(grade.getAssignmentId(), grade);
+        }
+
+        int due = 0;
+        int missing = 0;
+        for (Assignment assignment : assignments) {
+            if (assignment.getDueDate() == null || !assignment.getDueDate().isBefore(now)) {
+                continue;
+            }
+            Grade grade = gradesByAssignment.get(assignment.getId());
+            if (grade == null && !Boolean.TRUE.equals(assignment.getIsPublished())) {
+                continue;
+            }
+            due++;
+            if (grade == null || (grade.getSubmittedAt() == null && grade.getPercentage() == null)) {
+                missing++;
+            }
+        }
+
+        int submitted = 0;
+        int late = 0;
+        double weightedSum = 0;
+        double totalWeight = 0;
+        List<Grade> graded = new ArrayList<>();
+        for (Grade grade : grades) {
+            if (grade.getSubmittedAt() != null || grade.getPercentage() != null) {
+                submitted++;
+                if (Boolean.TRUE.equals(grade.getIsLate())) {
+                    late++;
+                }
+            }
+            if (grade.getPercentage() != null) {
+                Assignment assignment = assignmentsById.get(grade.getAssignmentId());
+                double weight = assignment != null && assignment.getWeightPercentage() != null
+                        ? assignment.getWeightPercentage() : 1.0;
+                weightedSum += grade.getPercentage() * weight;
+                totalWeight += weight;
+                graded.add(grade);
+            }
+        }
+
+        Double average = totalWeight > 0 ? weightedSum / totalWeight : null;
+        double missingRate = due > 0 ? (double) missing / due : 0;
+        double lateRate = submitted > 0 ? (double) late / submitted : 0;
+        Double trend = trend(graded, assignmentsById);
+
+        double performanceRisk = average != null ? clamp((TARGET_PERCENTAGE - average) / (TARGET_PERCENTAGE - 40)) : 0;
+        double missingRisk = clamp(missingRate / MISSING_RATE_CEILING);
+        double lateRisk = clamp(lateRate / LATE_RATE_CEILING);
+        double trendRisk = trend != null ? clamp(-trend / DECLINE_CEILING) : 0;
+        double score = PERFORMANCE_WEIGHT * performanceRisk + MISSING_WEIGHT * missingRisk
+                + LATE_WEIGHT * lateRisk + TREND_WEIGHT * trendRisk;
+
+        List<String> concerns = new ArrayList<>();
+        if (average != null && average < PASSING_PERCENTAGE) {
+            concerns.add(String.format("Average grade of %.0f%% is below passing", average));
+        } else if (performanceRisk >= 0.5) {
+            concerns.add(String.format("Average grade of %.0f%% is well below target", average));
+        }
+        if (missing > 0) {
+            concerns.add(missing + " of " + due + " assignments past due are missing");
+        }
+        if (lateRisk >= 0.4) {
+            concerns.add(String.format("%.0f%% of submissions were late", lateRate * 100));
+        }
+        if (trendRisk >= 0.2) {
+            concerns.add(String.format("Grades are declining by about %.1f points per assignment", -trend));
+        }
+
+        return new RiskAssessment(studentId, round(score, 1), riskLevel(score), concerns,
+                average != null ? round(average, 1) : null, missing, due, round(lateRate, 3),
+                trend != null ? round(trend, 2) : null);
+    }
+
+    /**
+     * Least-squares slope of the most recent grades in percentage points per assignment, oldest
+     * first; null when there are too few graded assignments to tell.
+     */
+    private static Double trend(List<Grade> graded, Map<Long, Assignment> assignmentsById) {
+        if (graded.size() < TREND_MIN_POINTS) {
+            return null;
+        }
+        List<Grade> ordered = new ArrayList<>(graded);
+        ordered.sort(Comparator.comparing(grade -> timeOf(grade, assignmentsById),
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        List<Grade> recent = ordered.subList(Math.max(0, ordered.size() - TREND_WINDOW), ordered.size());
+
+        int n = recent.size();
+        double meanX = (n - 1) / 2.0;
+        double meanY = recent.stream().mapToDouble(Grade::getPercentage).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            covariance += (i - meanX) * (recent.get(i).getPercentage() - meanY);
+            variance += (i - meanX) * (i - meanX);
+        }
+        return covariance / variance;
+    }
+
+    private static LocalDateTime timeOf(Grade grade, Map<Long, Assignment> assignmentsById) {
+        if (grade.getSubmittedAt() != null) {
+            return grade.getSubmittedAt();
+        }
+        Assignment assignment = assignmentsById.get(grade.getAssignmentId());
+        return assignment != null && assignment.getDueDate() != null ? assignment.getDueDate() : grade.getGradedAt();
+    }
+
+    static String riskLevel(double score) {
+        if (score >= 75) return "critical";
+        if (score >= 50) return "high";
+        if (score >= 25) return "medium";
+        return "low";
+    }
+
+    private static String urgency(String riskLevel) {
+        return switch (riskLevel) {
+            case "critical" -> "immediate";
+            case "high" -> "within a week";
+            case "medium" -> "monitor";
+            case INSUFFICIENT_DATA -> "review";
+            default -> "routine";
+        };
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0, Math.min(1, value));
+    }
+
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    public record RiskAssessment(Long studentId, double riskScore, String riskLevel, List<String> primaryConcerns,
+                                 Double averagePercentage, int missingAssignments, int dueAssignments,
+                                 double lateRate, Double trend) {
+
+        public String interventionUrgency() {
+            return urgency(riskLevel);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("averagePercentage", averagePercentage);
+            metrics.put("missingAssignments", missingAssignments);
+            metrics.put("dueAssignments", dueAssignments);
+            metrics.put("lateRate", lateRate);
+            metrics.put("trend", trend);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("studentId", studentId);
+            result.put("riskScore", riskScore);
+            result.put("riskLevel", riskLevel);
+            result.put("primaryConcerns", primaryConcerns);
+            result.put("interventionUrgency", interventionUrgency());
+            result.put("metrics", metrics);
+            return result;
+        }
+    }
+}
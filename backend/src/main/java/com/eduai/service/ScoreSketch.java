@@ -0,0 +1,185 @@
+package com.eduai.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mergeable summary of a set of percentage scores. Moments are kept with Welford's method and
+ * quantiles are read from fixed half-point buckets over 0-125%. Unlike a t-digest or KLL sketch,
+ * bucket counts can also take a score away again, which regrades need, and two sketches merge by
+ * adding their counts. Scores outside the bucket range are clamped to the edge buckets for
+ * quantiles but count exactly in the moments.
+ */
+public final class ScoreSketch {
+
+    static final double BUCKET_WIDTH = 0.5;
+    static final double MAX_SCORE = 125.0;
+    static final int BUCKETS = (int) (MAX_SCORE / BUCKET_WIDTH);
+    private static final int HISTOGRAM_BIN = 10;
+
+    private long count;
+    private double mean;
+    private double m2;
+    private final long[] buckets = new long[BUCKETS];
+
+    public long count() {
+        return count;
+    }
+
+    public void add(double score) {
+        count++;
+        double delta = score - mean;
+        mean += delta / count;
+        m2 += delta * (score - mean);
+        buckets[bucket(score)]++;
+    }
+
+    /**
+     * Reverses {@link #add} for a score that was added before.
+     */
+    public void remove(double score) {
+        int bucket = bucket(score);
+        if (count == 0 || buckets[bucket] == 0) {
+            throw new IllegalStateException("Score " + score + " is not in the sketch");
+        }
+        buckets[bucket]--;
+        if (--count == 0) {
+            mean = 0;
+            m2 = 0;
+            return;
+        }
+        double previousMean = mean;
+        mean = (previousMean * (count + 1) - score) / count;
+        m2 = Math.max(0, m2 - (score - previousMean) * (score - mean));
+    }
+
+    /**
+     * Combines another sketch into this one (Chan et al. for the moments).
+     */
+    public void merge(ScoreSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        mean += delta * other.count / total;
+        count = total;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] += other.buckets[i];
+        }
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double standardDeviation() {
+        return count > 1 ? Math.sqrt(m2 / count) : 0.0;
+    }
+
+    /**
+     * Interpolates within the bucket holding the q-th score, so the error is under half a point.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = q * count;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (buckets[i] > 0 && seen + buckets[i] >= rank) {
+                double within = Math.max(0, rank - seen) / buckets[i];
+                return (i + within) * BUCKET_WIDTH;
+            }
+            seen += buckets[i];
+        }
+        return MAX_SCORE;
+    }
+
+    /**
+     * Counts per ten-point bin; the last bin also holds everything from 100% up.
+     */
+    public List<Map<String, Object>> histogram() {
+        int bucketsPerBin = (int) (HISTOGRAM_BIN / BUCKET_WIDTH);
+        int bins = 100 / HISTOGRAM_BIN;
+        long[] counts = new long[bins + 1];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[Math.min(i / bucketsPerBin, bins)] += buckets[i];
+        }
+        List<Map<String, Object>> histogram = new ArrayList<>();
+        for (int bin = 0; bin <= bins; bin++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("from", bin * HISTOGRAM_BIN);
+            entry.put("to", bin < bins ? (bin + 1) * HISTOGRAM_BIN : null);
+            entry.put("count", counts[bin]);
+            histogram.add(entry);
+        }
+        return histogram;
+    }
+
+    /**
+     * Moments followed by the non-empty buckets as varint (gap, count) pairs, typically well under
+     * a hundred bytes per assignment.
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer moments = ByteBuffer.allocate(Long.BYTES + 2 * Double.BYTES);
+        moments.putLong(count).putDouble(mean).putDouble(m2);
+        out.writeBytes(moments.array());
+        int previous = -1;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (buckets[i] > 0) {
+                writeVarint(out, i - previous);
+                writeVarint(out, buckets[i]);
+                previous = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static ScoreSketch decode(byte[] data) {
+        ScoreSketch sketch = new ScoreSketch();
+        if (data == null || data.length == 0) {
+            return sketch;
+        }
+        ByteBuffer in = ByteBuffer.wrap(data);
+        sketch.count = in.getLong();
+        sketch.mean = in.getDouble();
+        sketch.m2 = in.getDouble();
+        int bucket = -1;
+        while (in.hasRemaining()) {
+            bucket += (int) readVarint(in);
+            sketch.buckets[bucket] = readVarint(in);
+        }
+        return sketch;
+    }
+
+    private static int bucket(double score) {
+        return (int) Math.max(0, Math.min(BUCKETS - 1, Math.floor(score / BUCKET_WIDTH)));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,268 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.AssignmentScoreStats;
+import com.eduai.model.Grade;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.AssignmentScoreStatsRepository;
+import com.eduai.repository.GradeRepository;
+import com.eduai.repository.StudentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains per-assignment score distributions in {@code assignment_score_stats}, one row per
+ * assignment and grade level, updated in the transaction that changes the grades. Reading a
+ * distribution merges a handful of stored sketches instead of loading and sorting the grades.
+ * Assignments graded before the table existed are built from their grades on first use.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScoreStatisticsService {
+
+    static final String NO_GRADE_LEVEL = "";
+
+    private final AssignmentScoreStatsRepository assignmentScoreStatsRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final GradeRepository gradeRepository;
+    private final StudentRepository studentRepository;
+
+    /**
+     * One student's percentage on an assignment going from {@code before} to {@code after}; either
+     * is null when there was or is no score.
+     */
+    public record ScoreChange(Long studentId, Double before, Double after) {
+    }
+
+    /**
+     * Applies score changes for one assignment. Must run in the transaction that saved the grades.
+     */
+    public void recordScoreChanges(Assignment assignment, List<ScoreChange> changes) {
+        List<ScoreChange> effective = changes.stream()
+                .filter(change -> !Objects.equals(change.before(), change.after()))
+                .toList();
+        if (effective.isEmpty()) {
+            return;
+        }
+        if (!assignmentScoreStatsRepository.existsByAssignmentId(assignment.getId())) {
+            rebuildAssignment(assignment);
+            return;
+        }
+        Map<Long, String> gradeLevels = gradeLevels(effective.stream().map(ScoreChange::studentId).toList());
+        // Sorted so concurrent transactions lock the rows of one assignment in the same order
+        Map<String, List<ScoreChange>> byGradeLevel = effective.stream()
+                .collect(Collectors.groupingBy(change -> gradeLevels.getOrDefault(change.studentId(), NO_GRADE_LEVEL),
+                        TreeMap::new, Collectors.toList()));
+        try {
+            for (Map.Entry<String, List<ScoreChange>> entry : byGradeLevel.entrySet()) {
+                AssignmentScoreStats stats = lockedStats(assignment, entry.getKey());
+                ScoreSketch sketch = ScoreSketch.decode(stats.getSketch());
+                for (ScoreChange change : entry.getValue()) {
+                    if (change.before() != null) {
+                        sketch.remove(change.before());
+                    }
+                    if (change.after() != null) {
+                        sketch.add(change.after());
+                    }
+                }
+                save(stats, sketch);
+            }
+        } catch (IllegalStateException e) {
+            log.warn("Score statistics of assignment {} were out of date, rebuilding: {}", assignment.getId(), e.getMessage());
+            rebuildAssignment(assignment);
+        }
+    }
+
+    /**
+     * Moves a student's scores to another grade level's rows after the student changed grade level.
+     */
+    public void recordGradeLevelChange(Long studentId, String previousGradeLevel, String gradeLevel) {
+        String from = previousGradeLevel != null ? previousGradeLevel : NO_GRADE_LEVEL;
+        String to = gradeLevel != null ? gradeLevel : NO_GRADE_LEVEL;
+        if (from.equals(to)) {
+            return;
+        }
+        List<Grade> scored = gradeRepository.findByStudentId(studentId).stream()
+                .filter(grade -> grade.getPercentage() != null)
+                .toList();
+        Map<Long, Assignment> assignments = assignmentRepository.findAllById(
+                        scored.stream().map(Grade::getAssignmentId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Assignment::getId, assignment -> assignment));
+        for (Grade grade : scored) {
+            Assignment assignment = assignments.get(grade.getAssignmentId());
+            if (assignment == null || !assignmentScoreStatsRepository.existsByAssignmentId(assignment.getId())) {
+                continue;
+            }
+            try {
+                for (String gradeLevelKey : from.compareTo(to) < 0 ? List.of(from, to) : List.of(to, from)) {
+                    AssignmentScoreStats stats = lockedStats(assignment, gradeLevelKey);
+                    ScoreSketch sketch = ScoreSketch.decode(stats.getSketch());
+                    if (gradeLevelKey.equals(from)) {
+                        sketch.remove(grade.getPercentage());
+                    } else {
+                        sketch.add(grade.getPercentage());
+                    }
+                    save(stats, sketch);
+                }
+            } catch (IllegalStateException e) {
+                rebuildAssignment(assignment);
+            }
+        }
+    }
+
+    /**
+     * Creates the empty row that marks a new assignment as tracked, so its first grades are applied
+     * as deltas rather than by a rebuild.
+     */
+    public void recordAssignmentCreated(Assignment assignment) {
+        assignmentScoreStatsRepository.insertIfAbsent(assignment.getId(), assignment.getCourseId(), NO_GRADE_LEVEL,
+                new ScoreSketch().encode());
+    }
+
+    /**
+     * Recomputes the rows of one assignment from its grades, e.g. after its max points or course
+     * changed. The row without a grade level is always kept and locked first, so concurrent rebuilds
+     * of the same assignment run one after another instead of inserting the same rows twice.
+     */
+    public void rebuildAssignment(Assignment assignment) {
+        lockedStats(assignment, NO_GRADE_LEVEL);
+        List<Grade> scored = gradeRepository.findByAssignmentId(assignment.getId()).stream()
+                .filter(grade -> grade.getPercentage() != null)
+                .toList();
+        Map<Long, String> gradeLevels = gradeLevels(scored.stream().map(Grade::getStudentId).toList());
+        Map<String, ScoreSketch> sketches = new TreeMap<>();
+        for (Grade grade : scored) {
+            sketches.computeIfAbsent(gradeLevels.getOrDefault(grade.getStudentId(), NO_GRADE_LEVEL), level -> new ScoreSketch())
+                    .add(grade.getPercentage());
+        }
+        // Even when empty, this row marks the assignment as tracked, so later changes are applied as deltas
+        sketches.putIfAbsent(NO_GRADE_LEVEL, new ScoreSketch());
+        List<AssignmentScoreStats> stale = assignmentScoreStatsRepository.findByAssignmentId(assignment.getId()).stream()
+                .filter(stats -> !sketches.containsKey(stats.getGradeLevel()))
+                .toList();
+        if (!stale.isEmpty()) {
+            assignmentScoreStatsRepository.deleteAll(stale);
+        }
+        for (Map.Entry<String, ScoreSketch> entry : sketches.entrySet()) {
+            AssignmentScoreStats stats = lockedStats(assignment, entry.getKey());
+            stats.setCourseId(assignment.getCourseId());
+            save(stats, entry.getValue());
+        }
+    }
+
+    /**
+     * Rebuilds every assignment of a course, or of every course if {@code courseId} is null.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(Long courseId) {
+        List<Assignment> assignments = courseId != null
+                ? assignmentRepository.findByCourseId(courseId)
+                : assignmentRepository.findAll();
+        assignments.forEach(this::rebuildAssignment);
+        log.info("Rebuilt score statistics of {} assignments", assignments.size());
+        return Map.of("assignments", assignments.size());
+    }
+
+    @Transactional
+    public Map<String, Object> assignmentStatistics(Long assignmentId) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        if (!assignmentScoreStatsRepository.existsByAssignmentId(assignmentId)) {
+            rebuildAssignment(assignment);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("assignmentId", assignmentId);
+        response.putAll(describe(merge(assignmentScoreStatsRepository.findByAssignmentId(assignmentId))));
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> courseStatistics(Long courseId) {
+        List<AssignmentScoreStats> rows = assignmentScoreStatsRepository.findByCourseId(courseId);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("courseId", courseId);
+        response.put("assignments", rows.stream().map(AssignmentScoreStats::getAssignmentId).distinct().count());
+        response.putAll(describe(merge(rows)));
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> gradeLevelStatistics(String gradeLevel) {
+        List<AssignmentScoreStats> rows = assignmentScoreStatsRepository.findByGradeLevel(gradeLevel);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("gradeLevel", gradeLevel);
+        response.put("assignments", rows.stream().map(AssignmentScoreStats::getAssignmentId).distinct().count());
+        response.putAll(describe(merge(rows)));
+        return response;
+    }
+
+    /**
+     * Locks the row, creating it first if this is the grade level's first score. The insert skips a
+     * row another transaction created meanwhile, and the lock then waits for that transaction.
+     */
+    private AssignmentScoreStats lockedStats(Assignment assignment, String gradeLevel) {
+        Optional<AssignmentScoreStats> stats = assignmentScoreStatsRepository.findForUpdate(assignment.getId(), gradeLevel);
+        if (stats.isPresent()) {
+            return stats.get();
+        }
+        assignmentScoreStatsRepository.insertIfAbsent(assignment.getId(), assignment.getCourseId(), gradeLevel,
+                new ScoreSketch().encode());
+        return assignmentScoreStatsRepository.findForUpdate(assignment.getId(), gradeLevel)
+                .orElseThrow(() -> new RuntimeException("Score statistics row of assignment " + assignment.getId() + " not found"));
+    }
+
+    private void save(AssignmentScoreStats stats, ScoreSketch sketch) {
+        stats.setScoreCount(sketch.count());
+        stats.setSketch(sketch.encode());
+        assignmentScoreStatsRepository.save(stats);
+    }
+
+    private Map<Long, String> gradeLevels(Collection<Long> studentIds) {
+        Map<Long, String> gradeLevels = new HashMap<>();
+        List<Long> ids = studentIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (!ids.isEmpty()) {
+            for (StudentRepository.Standing standing : studentRepository.findStandingsByIdIn(ids)) {
+                if (standing.getGradeLevel() != null) {
+                    gradeLevels.put(standing.getId(), standing.getGradeLevel());
+                }
+            }
+        }
+        return gradeLevels;
+    }
+
+    private static ScoreSketch merge(List<AssignmentScoreStats> rows) {
+        ScoreSketch merged = new ScoreSketch();
+        for (AssignmentScoreStats row : rows) {
+            merged.merge(ScoreSketch.decode(row.getSketch()));
+        }
+        return merged;
+    }
+
+    static Map<String, Object> describe(ScoreSketch sketch) {
+        boolean empty = sketch.count() == 0;
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("count", sketch.count());
+        description.put("mean", empty ? null : sketch.mean());
+        description.put("standardDeviation", empty ? null : sketch.standardDeviation());
+        description.put("p10", empty ? null : sketch.quantile(0.10));
+        description.put("p25", empty ? null : sketch.quantile(0.25));
+        description.put("median", empty ? null : sketch.quantile(0.50));
+        description.put("p75", empty ? null : sketch.quantile(0.75));
+        description.put("p90", empty ? null : sketch.quantile(0.90));
+        description.put("histogram", sketch.histogram());
+        return description;
+    }
+}
@@ -0,0 +1,277 @@
+package com.eduai.service;
+
+import com.eduai.repository.CourseGradeSummaryRepository;
+import com.eduai.repository.StudentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Derives {@code Student.gpa} from the student's final course grades and {@code Student.classRank}
+ * within their grade level. Ranks use standard competition ranking: a student's rank is one more
+ * than the number of students in the same grade level with a higher GPA, so ties share a rank.
+ *
+ * <p>A change to one student's GPA only moves the ranks of the students between the old and new
+ * GPA, which is done with one update. Changes touching many students re-rank their grade levels by
+ * sorting packed primitive keys in memory. Concurrent changes in the same grade level can leave
+ * ranks slightly off; {@link #rebuild} recomputes everything.
+ */
+@Service
+@Slf4j
+public class StudentRankingService {
+
+    private static final double UNRANKED = -1.0;
+
+    private final StudentRepository studentRepository;
+    private final CourseGradeSummaryRepository courseGradeSummaryRepository;
+    private final CourseGradeSummaryService courseGradeSummaryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter incrementalUpdates;
+    private final Timer rankingTimer;
+
+    public StudentRankingService(StudentRepository studentRepository,
+                                 CourseGradeSummaryRepository courseGradeSummaryRepository,
+                                 CourseGradeSummaryService courseGradeSummaryService,
+                                 JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.studentRepository = studentRepository;
+        this.courseGradeSummaryRepository = courseGradeSummaryRepository;
+        this.courseGradeSummaryService = courseGradeSummaryService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.incrementalUpdates = meterRegistry.counter("students.ranking.incremental");
+        this.rankingTimer = meterRegistry.timer("students.ranking.duration");
+    }
+
+    /**
+     * Recomputes the GPA and rank of students whose grades changed. Must run in the transaction
+     * that updated their course grade summaries.
+     */
+    @Transactional
+    public void recordGradeChanges(Collection<Long> studentIds) {
+        Set<Long> ids = new HashSet<>(studentIds);
+        ids.remove(null);
+        if (ids.size() == 1) {
+            recordGradeChange(ids.iterator().next());
+        } else if (!ids.isEmpty()) {
+            Map<Long, Double> gpas = gpas(courseGradeSummaryRepository.findFinalGradesByStudentIdIn(ids));
+            List<Object[]> changed = new ArrayList<>();
+            Set<String> gradeLevels = new HashSet<>();
+            for (StudentRepository.Standing standing : studentRepository.findStandingsByIdIn(ids)) {
+                Double gpa = gpas.get(standing.getId());
+                if (!Objects.equals(gpa, standing.getGpa())) {
+                    changed.add(new Object[]{gpa, standing.getId()});
+                    gradeLevels.add(standing.getGradeLevel());
+                }
+            }
+            if (!changed.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE students SET gpa = ? WHERE id = ?", changed);
+                rankGradeLevels(gradeLevels);
+            }
+        }
+    }
+
+    /**
+     * Re-ranks every student with a grade in the given courses, e.g. after an assignment's weight
+     * changed or grades were imported.
+     */
+    @Transactional
+    public void recordCourseChanges(Collection<Long> courseIds) {
+        List<Long> ids = courseIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (!ids.isEmpty()) {
+            recordGradeChanges(courseGradeSummaryRepository.findStudentIdsByCourseIdIn(ids));
+        }
+    }
+
+    private void recordGradeChange(Long studentId) {
+        StudentRepository.Standing standing = studentRepository.findStandingById(studentId).orElse(null);
+        if (standing == null) {
+            return;
+        }
+        Double gpa = gpas(courseGradeSummaryRepository.findFinalGradesByStudentIdIn(List.of(studentId))).get(studentId);
+        String gradeLevel = standing.getGradeLevel();
+        boolean wasRanked = standing.getGpa() != null && gradeLevel != null;
+        if (wasRanked != (standing.getClassRank() != null)) {
+            // Never ranked, e.g. a GPA entered by hand: shifting from a rank that is not there would be wrong
+            studentRepository.updateStanding(studentId, gpa, null);
+            rankGradeLevels(Collections.singleton(gradeLevel));
+            return;
+        }
+        if (Objects.equals(gpa, standing.getGpa())) {
+            return;
+        }
+        incrementalUpdates.increment();
+        if (gradeLevel == null) {
+            studentRepository.updateStanding(studentId, gpa, null);
+            return;
+        }
+        double before = standing.getGpa() != null ? standing.getGpa() : UNRANKED;
+        double after = gpa != null ? gpa : UNRANKED;
+        studentRepository.shiftRanks(gradeLevel, Math.min(before, after), Math.max(before, after), studentId,
+                after > before ? 1 : -1);
+        Integer rank = gpa != null ? (int) studentRepository.countRankedAbove(gradeLevel, gpa, studentId) + 1 : null;
+        studentRepository.updateStanding(studentId, gpa, rank);
+    }
+
+    /**
+     * Re-ranks whole grade levels from the GPAs already stored, writing only ranks that changed.
+     */
+    @Transactional
+    public void rankGradeLevels(Collection<String> gradeLevels) {
+        List<Object[]> changed = new ArrayList<>();
+        for (String gradeLevel : new HashSet<>(gradeLevels)) {
+            if (gradeLevel == null) {
+                continue;
+            }
+            List<StudentRepository.Standing> standings = studentRepository.findStandingsByGradeLevel(gradeLevel);
+            double[] gpas = new double[standings.size()];
+            for (int i = 0; i < gpas.length; i++) {
+                gpas[i] = standings.get(i).getGpa() != null ? standings.get(i).getGpa() : Double.NaN;
+            }
+            int[] ranks = rank(gpas);
+            for (int i = 0; i < ranks.length; i++) {
+                Integer rank = ranks[i] > 0 ? ranks[i] : null;
+                if (!Objects.equals(rank, standings.get(i).getClassRank())) {
+                    changed.add(new Object[]{rank, standings.get(i).getId()});
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE students SET class_rank = ? WHERE id = ?", changed);
+        }
+    }
+
+    /**
+     * Recomputes every student's GPA and rank. With {@code repairSummaries}, the course grade
+     * summaries are first checked against the grades table and fixed, so the result reflects every
+     * grade even if a summary drifted.
+     */
+    @Transactional
+    public Map<String, Object> rebuild(boolean repairSummaries) {
+        long startedNanos = System.nanoTime();
+        if (repairSummaries) {
+            courseGradeSummaryService.verify(null, true);
+        }
+        Map<Long, Double> gpas = gpas(courseGradeSummaryRepository.findAllFinalGrades());
+        Map<String, List<StudentRepository.Standing>> byGradeLevel = new HashMap<>();
+        List<Object[]> changed = new ArrayList<>();
+        int students = 0;
+
+        for (StudentRepository.Standing standing : studentRepository.findAllStandings()) {
+            students++;
+            if (standing.getGradeLevel() != null) {
+                byGradeLevel.computeIfAbsent(standing.getGradeLevel(), level -> new ArrayList<>()).add(standing);
+            } else {
+                collectChange(changed, standing, gpas.get(standing.getId()), null);
+            }
+        }
+        for (List<StudentRepository.Standing> standings : byGradeLevel.values()) {
+            double[] levelGpas = new double[standings.size()];
+            for (int i = 0; i < levelGpas.length; i++) {
+                Double gpa = gpas.get(standings.get(i).getId());
+                levelGpas[i] = gpa != null ? gpa : Double.NaN;
+            }
+            int[] ranks = rank(levelGpas);
+            for (int i = 0; i < ranks.length; i++) {
+                collectChange(changed, standings.get(i), gpas.get(standings.get(i).getId()), ranks[i] > 0 ? ranks[i] : null);
+            }
+        }
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE students SET gpa = ?, class_rank = ? WHERE id = ?", changed);
+        }
+
+        long elapsedNanos = System.nanoTime() - startedNanos;
+        rankingTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("Ranked {} students in {} grade levels, {} changed, in {} ms",
+                students, byGradeLevel.size(), changed.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("students", students);
+        report.put("gradeLevels", byGradeLevel.size());
+        report.put("updated", changed.size());
+        report.put("durationMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return report;
+    }
+
+    private static void collectChange(List<Object[]> changed, StudentRepository.Standing standing, Double gpa, Integer rank) {
+        if (!Objects.equals(gpa, standing.getGpa()) || !Objects.equals(rank, standing.getClassRank())) {
+            changed.add(new Object[]{gpa, rank, standing.getId()});
+        }
+    }
+
+    /**
+     * Competition ranks for the given GPAs, highest first; {@code NaN} means no GPA and gets rank 0.
+     * Each GPA is packed with its index into one {@code long} (inverted hundredths in the high bits)
+     * so a single parallel primitive sort orders them without boxing.
+     */
+    static int[] rank(double[] gpas) {
+        int[] ranks = new int[gpas.length];
+        long[] keys = new long[gpas.length];
+        int count = 0;
+        for (int i = 0; i < gpas.length; i++) {
+            if (!Double.isNaN(gpas[i])) {
+                keys[count++] = (Integer.MAX_VALUE - hundredths(gpas[i])) << 32 | i;
+            }
+        }
+        Arrays.parallelSort(keys, 0, count);
+        long previousGpa = -1;
+        int previousRank = 0;
+        for (int position = 0; position < count; position++) {
+            long gpa = keys[position] >>> 32;
+            int rank = gpa == previousGpa ? previousRank : position + 1;
+            ranks[(int) keys[position]] = rank;
+            previousGpa = gpa;
+            previousRank = rank;
+        }
+        return ranks;
+    }
+
+    private static long hundredths(double gpa) {
+        return Math.round(gpa * 100);
+    }
+
+    /**
+     * Unweighted 4.0-scale GPA per student, averaging the grade points of each course's final grade
+     * and rounded to two decimals.
+     */
+    static Map<Long, Double> gpas(List<CourseGradeSummaryRepository.FinalGrade> finalGrades) {
+        return finalGrades.stream().collect(Collectors.groupingBy(
+                CourseGradeSummaryRepository.FinalGrade::getStudentId,
+                Collectors.collectingAndThen(
+                        Collectors.averagingDouble(grade -> gradePoints(grade.getFinalPercentage())),
+                        average -> hundredths(average) / 100.0)));
+    }
+
+    static double gradePoints(double percentage) {
+        return switch (GradebookService.calculateLetterGrade(percentage)) {
+            case "A+", "A" -> 4.0;
+            case "A-" -> 3.7;
+            case "B+" -> 3.3;
+            case "B" -> 3.0;
+            case "B-" -> 2.7;
+            case "C+" -> 2.3;
+            case "C" -> 2.0;
+            case "C-" -> 1.7;
+            case "D+" -> 1.3;
+            case "D" -> 1.0;
+            case "D-" -> 0.7;
+            default -> 0.0;
+        };
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -18,6 +20,8 @@ public class StudentService {
 
     private final StudentRepository studentRepository;
     private final UserRepository userRepository;
+    private final StudentRankingService studentRankingService;
+    private final ScoreStatisticsService scoreStatisticsService;
 
     @Transactional
     public Student createStudent(Long userId, String studentId, LocalDate dateOfBirth,
@@ -59,12 +63,10 @@ public class StudentService {
         Student student = studentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
+        String previousGradeLevel = student.getGradeLevel();
         if (updatedData.getGradeLevel() != null) {
             student.setGradeLevel(updatedData.getGradeLevel());
         }
-        if (updatedData.getGpa() != null) {
-            student.setGpa(updatedData.getGpa());
-        }
         if (updatedData.getMedicalConditions() != null) {
             student.setMedicalConditions(updatedData.getMedicalConditions());
         }
@@ -72,6 +74,15 @@ public class StudentService {
             student.setAllergies(updatedData.getAllergies());
         }
 
+        // GPA, class rank and score statistics depend on the grade level; a move updates both levels
+        if (!Objects.equals(previousGradeLevel, student.getGradeLevel())) {
+            student.setClassRank(null);
+            Student saved = studentRepository.saveAndFlush(student);
+            studentRankingService.rankGradeLevels(Arrays.asList(previousGradeLevel, saved.getGradeLevel()));
+            scoreStatisticsService.recordGradeLevelChange(id, previousGradeLevel, saved.getGradeLevel());
+            studentRepository.findStandingById(id).ifPresent(standing -> saved.setClassRank(standing.getClassRank()));
+            return saved;
+        }
         return studentRepository.save(student);
     }
 }
@@ -0,0 +1,303 @@
+package com.eduai.service;
+
+import com.eduai.config.SubmissionBufferProperties;
+import com.eduai.model.Grade;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind path for grade submissions. A submission is stamped with {@code submittedAt} and
+ * {@code isLate}, appended to a local {@link SubmissionLog} and acknowledged; a single drainer thread
+ * then saves waiting submissions to the database in batches, keeping only the latest per student and
+ * assignment. Everything acknowledged is in the log until its batch commits, so a crash loses
+ * nothing: the log is replayed on startup, and saving a submission twice is harmless. Once
+ * {@code max-pending} submissions are waiting, new ones are refused.
+ */
+@Service
+@Slf4j
+public class SubmissionBuffer {
+
+    private final SubmissionBufferProperties properties;
+    private final GradebookService gradebookService;
+    private final EntityCache entityCache;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<SubmissionLog.Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter acceptedSubmissions;
+    private final Counter rejectedSubmissions;
+    private final Counter savedSubmissions;
+    private final Counter deadLetteredSubmissions;
+    private final Timer appendTimer;
+    private final Timer flushTimer;
+
+    private SubmissionLog submissionLog;
+    private Thread drainer;
+    private volatile boolean running;
+
+    public SubmissionBuffer(SubmissionBufferProperties properties, GradebookService gradebookService,
+                            EntityCache entityCache, ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.gradebookService = gradebookService;
+        this.entityCache = entityCache;
+        this.objectMapper = objectMapper;
+        this.acceptedSubmissions = meterRegistry.counter("gradebook.submissions", "outcome", "accepted");
+        this.rejectedSubmissions = meterRegistry.counter("gradebook.submissions", "outcome", "rejected");
+        this.savedSubmissions = meterRegistry.counter("gradebook.submissions", "outcome", "saved");
+        this.deadLetteredSubmissions = meterRegistry.counter("gradebook.submissions", "outcome", "dead_lettered");
+        this.appendTimer = meterRegistry.timer("gradebook.submissions.append");
+        this.flushTimer = meterRegistry.timer("gradebook.submissions.flush");
+        Gauge.builder("gradebook.submissions.pending", queue, BlockingQueue::size)
+                .description("Acknowledged submissions not yet saved to the database")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Replays submissions left in the log by a previous process, then starts the drainer.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        submissionLog = new SubmissionLog(Path.of(properties.getDirectory()),
+                properties.getSegmentSize().toBytes(), objectMapper);
+        List<SubmissionLog.Entry> recovered = submissionLog.recover();
+        pending.addAndGet(recovered.size());
+        queue.addAll(recovered);
+        if (!recovered.isEmpty()) {
+            log.info("Replaying {} buffered submissions", recovered.size());
+        }
+        running = true;
+        drainer = new Thread(this::drain, "submission-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Durably buffers a new submission and returns its acknowledgement, or empty if the buffer is
+     * full or not running.
+     */
+    public Optional<Map<String, Object>> accept(Grade grade) throws IOException {
+        if (grade.getStudentId() == null || grade.getAssignmentId() == null) {
+            throw new IllegalArgumentException("studentId and assignmentId are required");
+        }
+        LocalDateTime submittedAt = LocalDateTime.now();
+        LocalDateTime dueDate = entityCache.findAssignment(grade.getAssignmentId())
+                .orElseThrow(() -> new RuntimeException("Assignment not found"))
+                .getDueDate();
+        boolean late = dueDate != null && submittedAt.isAfter(dueDate);
+
+        if (!running || pending.incrementAndGet() > properties.getMaxPending()) {
+            if (running) {
+                pending.decrementAndGet();
+            }
+            rejectedSubmissions.increment();
+            return Optional.empty();
+        }
+        ObjectNode data = objectMapper.createObjectNode();
+        data.put("studentId", grade.getStudentId());
+        data.put("assignmentId", grade.getAssignmentId());
+        data.put("submissionText", grade.getSubmissionText());
+        data.put("pointsEarned", grade.getPointsEarned());
+        data.put("feedback", grade.getFeedback());
+        data.put("submittedAt", submittedAt.toString());
+        data.put("isLate", late);
+        long seq;
+        try {
+            long startedNanos = System.nanoTime();
+            // Queued under the log's lock, so the drainer only ever commits a prefix of the log
+            seq = submissionLog.append(data, queue::add);
+            appendTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        } catch (IOException | RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+        acceptedSubmissions.increment();
+
+        Map<String, Object> ack = new LinkedHashMap<>();
+        ack.put("submissionId", seq);
+        ack.put("status", "ACCEPTED");
+        ack.put("studentId", grade.getStudentId());
+        ack.put("assignmentId", grade.getAssignmentId());
+        ack.put("submittedAt", submittedAt);
+        ack.put("isLate", late);
+        return Optional.of(ack);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        if (drainer != null) {
+            drainer.interrupt();
+            drainer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (submissionLog != null) {
+            submissionLog.close();
+        }
+    }
+
+    private void drain() {
+        List<SubmissionLog.Entry> batch = new ArrayList<>();
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    SubmissionLog.Entry first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, Math.max(properties.getBatchSize(), 1) - 1);
+                }
+                flush(batch);
+                submissionLog.commit(batch.get(batch.size() - 1).seq());
+                pending.addAndGet(-batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Saving the batch again is harmless, so keep it and retry
+                log.error("Failed to flush {} buffered submissions, retrying", batch.size(), e);
+                try {
+                    Thread.sleep(properties.getRetryInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves one batch, retrying while the database is unreachable. If the batch is rejected for
+     * another reason, submissions are saved one at a time and the ones the database rejects are set
+     * aside in the log's dead-letter file. Until this returns the checkpoint does not move, so an
+     * outage never sets acknowledged submissions aside.
+     */
+    private void flush(List<SubmissionLog.Entry> batch) throws InterruptedException, IOException {
+        Map<String, SubmissionLog.Entry> latest = new LinkedHashMap<>();
+        for (SubmissionLog.Entry entry : batch) {
+            latest.put(entry.data().get("studentId").asText() + ":" + entry.data().get("assignmentId").asText(), entry);
+        }
+        List<SubmissionLog.Entry> entries = new ArrayList<>(latest.values());
+        while (true) {
+            long startedNanos = System.nanoTime();
+            try {
+                gradebookService.saveSubmissions(entries.stream().map(this::toGrade).toList());
+                flushTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+                savedSubmissions.increment(entries.size());
+                return;
+            } catch (RuntimeException e) {
+                if (isUnavailable(e)) {
+                    log.warn("Database unavailable, retrying {} buffered submissions: {}", entries.size(), e.getMessage());
+                    Thread.sleep(properties.getRetryInterval().toMillis());
+                    continue;
+                }
+                log.warn("Saving {} buffered submissions failed, saving them one at a time: {}", entries.size(), e.getMessage());
+                saveIndividually(entries);
+                return;
+            }
+        }
+    }
+
+    private void saveIndividually(List<SubmissionLog.Entry> entries) throws IOException, InterruptedException {
+        for (SubmissionLog.Entry entry : entries) {
+            while (true) {
+                try {
+                    gradebookService.saveSubmissions(List.of(toGrade(entry)));
+                    savedSubmissions.increment();
+                    break;
+                } catch (RuntimeException e) {
+                    if (isUnavailable(e)) {
+                        log.warn("Database unavailable, retrying buffered submission {}: {}", entry.seq(), e.getMessage());
+                        Thread.sleep(properties.getRetryInterval().toMillis());
+                        continue;
+                    }
+                    log.error("Could not save buffered submission {}", entry.seq(), e);
+                    submissionLog.deadLetter(entry, String.valueOf(e.getMessage()));
+                    deadLetteredSubmissions.increment();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the failure is about reaching the database rather than about the submissions, so
+     * retrying can succeed. Outages do not always arrive as transient exceptions: a lost connection
+     * may surface as a resource failure, a transaction error or an uncategorized JPA error wrapping
+     * an SQL state of class 08.
+     */
+    static boolean isUnavailable(Throwable failure) {
+        if (failure instanceof TransientDataAccessException || failure instanceof RecoverableDataAccessException
+                || failure instanceof DataAccessResourceFailureException || failure instanceof TransactionException) {
+            return true;
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException
+                    || cause instanceof SQLNonTransientConnectionException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && sqlException.getSQLState().startsWith("08")) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private Grade toGrade(SubmissionLog.Entry entry) {
+        try {
+            Grade grade = new Grade();
+            ObjectNode data = entry.data();
+            grade.setStudentId(data.get("studentId").asLong());
+            grade.setAssignmentId(data.get("assignmentId").asLong());
+            grade.setSubmissionText(data.hasNonNull("submissionText") ? data.get("submissionText").asText() : null);
+            grade.setPointsEarned(data.hasNonNull("pointsEarned") ? data.get("pointsEarned").asDouble() : null);
+            grade.setFeedback(data.hasNonNull("feedback") ? data.get("feedback").asText() : null);
+            grade.setSubmittedAt(LocalDateTime.parse(data.get("submittedAt").asText()));
+            grade.setIsLate(data.get("isLate").asBoolean());
+            return grade;
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Malformed buffered submission " + entry.seq(), e);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.eduai.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, fsync'd log of accepted submissions, split into segment files named after their
+ * first sequence number. A checkpoint file records the last sequence number saved to the database;
+ * segments entirely at or below it are deleted. Each record is one JSON line, so a line torn by a
+ * crash mid-write (which was never acknowledged) is simply skipped on recovery.
+ */
+@Slf4j
+class SubmissionLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "submissions-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String DEAD_LETTERS = "rejected.ndjson";
+
+    record Entry(long seq, ObjectNode data) {
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ObjectMapper objectMapper;
+    /** Last sequence number in each closed or active segment, keyed by the segment's first. */
+    private final TreeMap<Long, Long> segments = new TreeMap<>();
+
+    private FileChannel active;
+    private long activeFirstSeq;
+    private long nextSeq = 1;
+    private long committed;
+
+    SubmissionLog(Path directory, long segmentBytes, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads every record after the checkpoint and opens a fresh segment for new appends.
+     */
+    synchronized List<Entry> recover() throws IOException {
+        Files.createDirectories(directory);
+        long checkpoint = readCheckpoint();
+        committed = checkpoint;
+        List<Entry> pending = new ArrayList<>();
+        long lastSeq = checkpoint;
+
+        for (Map.Entry<Long, Path> segment : listSegments().entrySet()) {
+            long segmentLast = segment.getKey() - 1;
+            try (BufferedReader reader = Files.newBufferedReader(segment.getValue(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry entry = parse(line);
+                    if (entry == null) {
+                        log.warn("Skipping unreadable record in {}", segment.getValue().getFileName());
+                        continue;
+                    }
+                    segmentLast = Math.max(segmentLast, entry.seq());
+                    if (entry.seq() > checkpoint) {
+                        pending.add(entry);
+                    }
+                }
+            }
+            segments.put(segment.getKey(), segmentLast);
+            lastSeq = Math.max(lastSeq, segmentLast);
+        }
+        nextSeq = lastSeq + 1;
+        deleteSegmentsUpTo(checkpoint);
+        openSegment();
+        return pending;
+    }
+
+    /**
+     * Appends a record and forces it to disk before returning its sequence number.
+     */
+    synchronized long append(ObjectNode data) throws IOException {
+        return append(data, entry -> {
+        });
+    }
+
+    /**
+     * Appends a record and hands it to {@code appended} before the next record can be appended, so
+     * consumers see records in sequence order.
+     */
+    synchronized long append(ObjectNode data, Consumer<Entry> appended) throws IOException {
+        long seq = nextSeq++;
+        data.put("seq", seq);
+        ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(data) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            active.write(line);
+        }
+        active.force(false);
+        segments.put(activeFirstSeq, seq);
+        if (active.size() >= segmentBytes) {
+            active.close();
+            openSegment();
+        }
+        appended.accept(new Entry(seq, data));
+        return seq;
+    }
+
+    /**
+     * Records that everything up to {@code seq} is in the database. The checkpoint never moves back.
+     */
+    synchronized void commit(long seq) throws IOException {
+        if (seq <= committed) {
+            return;
+        }
+        committed = seq;
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temp, Long.toString(seq), StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteSegmentsUpTo(seq);
+    }
+
+    /**
+     * Keeps a record that could not be saved, with the reason, for manual follow-up.
+     */
+    synchronized void deadLetter(Entry entry, String error) throws IOException {
+        ObjectNode record = entry.data().deepCopy();
+        record.put("error", error);
+        Files.writeString(directory.resolve(DEAD_LETTERS), objectMapper.writeValueAsString(record) + "\n",
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.close();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        activeFirstSeq = nextSeq;
+        active = FileChannel.open(segmentPath(activeFirstSeq),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.putIfAbsent(activeFirstSeq, activeFirstSeq - 1);
+    }
+
+    private void deleteSegmentsUpTo(long seq) throws IOException {
+        var iterator = segments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> segment = iterator.next();
+            if (segment.getValue() <= seq && segment.getKey() != activeFirstSeq) {
+                Files.deleteIfExists(segmentPath(segment.getKey()));
+                iterator.remove();
+            }
+        }
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> found = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        found.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length())), file);
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring unexpected file {}", name);
+                    }
+                }
+            });
+        }
+        return found;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        return Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint, StandardCharsets.UTF_8).trim()) : 0;
+    }
+
+    private Entry parse(String line) {
+        try {
+            ObjectNode data = (ObjectNode) objectMapper.readTree(line);
+            return data.hasNonNull("seq") ? new Entry(data.get("seq").asLong(), data) : null;
+        } catch (IOException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+    }
+}
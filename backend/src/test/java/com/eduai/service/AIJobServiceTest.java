@@ -0,0 +1,248 @@
+package com.eduai.service;
+
+import com.eduai.config.AIJobProperties;
+import com.eduai.model.AIJob;
+import com.eduai.model.enums.AIJobStatus;
+import com.eduai.model.enums.AITask;
+import com.eduai.repository.AIJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AIJobServiceTest {
+
+    @Mock
+    private AIJobRepository aiJobRepository;
+
+    @Mock
+    private AITeachingAssistantService aiTeachingAssistantService;
+
+    private final Map<Long, AIJob> table = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private AIJobService aiJobService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        AIJobProperties properties = new AIJobProperties();
+        properties.setConcurrency(2);
+        aiJobService = new AIJobService(aiJobRepository, aiTeachingAssistantService, new ObjectMapper(),
+                properties, new SimpleMeterRegistry());
+
+        when(aiJobRepository.save(any(AIJob.class))).thenAnswer(invocation -> {
+            AIJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(ids.incrementAndGet());
+            }
+            table.put(job.getId(), job);
+            return job;
+        });
+        when(aiJobRepository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<Long>getArgument(0))));
+        when(aiJobRepository.findByStatusOrderByIdAsc(any())).thenAnswer(invocation -> table.values().stream()
+                .filter(job -> job.getStatus() == invocation.getArgument(0))
+                .toList());
+        when(aiJobRepository.claim(anyLong(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            AIJob job = table.get(invocation.<Long>getArgument(0));
+            synchronized (table) {
+                if (job == null || job.getStatus() != AIJobStatus.QUEUED) {
+                    return 0;
+                }
+                job.setStatus(AIJobStatus.RUNNING);
+                job.setAttempts(job.getAttempts() + 1);
+                job.setUpdatedAt(invocation.getArgument(1));
+                return 1;
+            }
+        });
+        when(aiJobRepository.findByStatusAndUpdatedAtBeforeOrderByIdAsc(any(), any())).thenAnswer(invocation -> table.values().stream()
+                .filter(job -> job.getStatus() == invocation.getArgument(0)
+                        && job.getUpdatedAt().isBefore(invocation.getArgument(1)))
+                .toList());
+        when(aiJobRepository.requeueStale(anyLong(), any(), any())).thenAnswer(invocation -> {
+            AIJob job = table.get(invocation.<Long>getArgument(0));
+            synchronized (table) {
+                if (job.getStatus() != AIJobStatus.RUNNING || !job.getUpdatedAt().isBefore(invocation.getArgument(1))) {
+                    return 0;
+                }
+                job.setStatus(AIJobStatus.QUEUED);
+                job.setStartedAt(null);
+                job.setUpdatedAt(invocation.getArgument(2));
+                return 1;
+            }
+        });
+        when(aiJobRepository.failStale(anyLong(), any(), anyString(), any())).thenAnswer(invocation -> {
+            AIJob job = table.get(invocation.<Long>getArgument(0));
+            job.setStatus(AIJobStatus.FAILED);
+            job.setErrorMessage(invocation.getArgument(2));
+            return 1;
+        });
+    }
+
+    @Test
+    void runsSubmittedJobAndStoresResult() {
+        when(aiTeachingAssistantService.generateLessonPlan(eq("Fractions"), eq("5"), eq(45), any(), eq(false)))
+                .thenReturn(Mono.just(Map.of("title", "Fractions")));
+        aiJobService.start();
+
+        AIJob job = aiJobService.submit(AITask.LESSON_PLAN, Map.of("topic", "Fractions", "gradeLevel", "5", "duration", 45))
+                .orElseThrow();
+
+        List<AIJob> events = aiJobService.watch(job.getId()).collectList().block(Duration.ofSeconds(5));
+        AIJob finished = events.get(events.size() - 1);
+        assertEquals(AIJobStatus.SUCCEEDED, finished.getStatus());
+        assertEquals("{\"title\":\"Fractions\"}", finished.getResult());
+        assertEquals(1, finished.getAttempts());
+    }
+
+    @Test
+    void errorResultFailsTheJob() {
+        when(aiTeachingAssistantService.generateAssessment(anyString(), any(), anyInt(), any(), anyBoolean()))
+                .thenReturn(Mono.just(Map.of("error", "AI service temporarily unavailable")));
+        aiJobService.start();
+
+        AIJob job = aiJobService.submit(AITask.ASSESSMENT, Map.of("topic", "Cells", "numQuestions", 5)).orElseThrow();
+
+        List<AIJob> events = aiJobService.watch(job.getId()).collectList().block(Duration.ofSeconds(5));
+        AIJob finished = events.get(events.size() - 1);
+        assertEquals(AIJobStatus.FAILED, finished.getStatus());
+        assertEquals("AI service temporarily unavailable", finished.getErrorMessage());
+    }
+
+    @Test
+    void requeuesJobsInterruptedByRestart() {
+        LocalDateTime expired = LocalDateTime.now().minusMinutes(10);
+        AIJob interrupted = storedJob(AIJobStatus.RUNNING, 1, expired);
+        AIJob exhausted = storedJob(AIJobStatus.RUNNING, 3, expired);
+        AIJob waiting = storedJob(AIJobStatus.QUEUED, 0, expired);
+        when(aiTeachingAssistantService.generateLessonPlan(anyString(), any(), anyInt(), any(), anyBoolean()))
+                .thenReturn(Mono.just(Map.of("title", "Plan")));
+
+        aiJobService.start();
+
+        verify(aiTeachingAssistantService, timeout(5000).times(2)).generateLessonPlan(anyString(), any(), anyInt(), any(), anyBoolean());
+        assertEquals(AIJobStatus.FAILED, exhausted.getStatus());
+        verify(aiJobRepository, never()).claim(eq(exhausted.getId()), any());
+        assertEquals(AIJobStatus.SUCCEEDED, aiJobService.watch(interrupted.getId()).blockLast(Duration.ofSeconds(5)).getStatus());
+        assertEquals(AIJobStatus.SUCCEEDED, aiJobService.watch(waiting.getId()).blockLast(Duration.ofSeconds(5)).getStatus());
+        assertEquals(2, interrupted.getAttempts());
+    }
+
+    @Test
+    void leavesJobsRunningOnAnotherInstanceUntilTheirLeaseExpires() {
+        AIJob elsewhere = storedJob(AIJobStatus.RUNNING, 1, LocalDateTime.now());
+        AIJobProperties properties = new AIJobProperties();
+        properties.setLease(Duration.ofMillis(600));
+        aiJobService = new AIJobService(aiJobRepository, aiTeachingAssistantService, new ObjectMapper(),
+                properties, new SimpleMeterRegistry());
+        when(aiTeachingAssistantService.generateLessonPlan(anyString(), any(), anyInt(), any(), anyBoolean()))
+                .thenReturn(Mono.just(Map.of("title", "Plan")));
+
+        aiJobService.start();
+
+        assertEquals(AIJobStatus.RUNNING, elsewhere.getStatus());
+        verify(aiJobRepository, never()).claim(eq(elsewhere.getId()), any());
+        assertEquals(AIJobStatus.SUCCEEDED, aiJobService.watch(elsewhere.getId()).blockLast(Duration.ofSeconds(5)).getStatus());
+        assertEquals(2, elsewhere.getAttempts());
+    }
+
+    @Test
+    void renewsTheLeaseOfItsRunningJobs() {
+        AIJobProperties properties = new AIJobProperties();
+        properties.setLease(Duration.ofMillis(300));
+        aiJobService = new AIJobService(aiJobRepository, aiTeachingAssistantService, new ObjectMapper(),
+                properties, new SimpleMeterRegistry());
+        when(aiTeachingAssistantService.generateLessonPlan(anyString(), any(), anyInt(), any(), anyBoolean()))
+                .thenReturn(Mono.never());
+        aiJobService.start();
+
+        AIJob job = aiJobService.submit(AITask.LESSON_PLAN, Map.of("topic", "Fractions")).orElseThrow();
+
+        verify(aiJobRepository, timeout(2000).atLeast(2)).renewLeases(eq(Set.of(job.getId())), any());
+        verify(aiJobRepository, never()).requeueStale(eq(job.getId()), any(), any());
+        assertEquals(AIJobStatus.RUNNING, job.getStatus());
+    }
+
+    @Test
+    void runsJobsLeftQueuedByAnotherInstance() {
+        AIJobProperties properties = new AIJobProperties();
+        properties.setLease(Duration.ofMillis(300));
+        aiJobService = new AIJobService(aiJobRepository, aiTeachingAssistantService, new ObjectMapper(),
+                properties, new SimpleMeterRegistry());
+        when(aiTeachingAssistantService.generateLessonPlan(anyString(), any(), anyInt(), any(), anyBoolean()))
+                .thenReturn(Mono.just(Map.of("title", "Plan")));
+        aiJobService.start();
+
+        AIJob orphaned = storedJob(AIJobStatus.QUEUED, 0, LocalDateTime.now());
+
+        assertEquals(AIJobStatus.SUCCEEDED, aiJobService.watch(orphaned.getId()).blockLast(Duration.ofSeconds(5)).getStatus());
+        assertEquals(1, orphaned.getAttempts());
+    }
+
+    @Test
+    void followsJobsRunOnAnotherInstance() {
+        AIJobProperties properties = new AIJobProperties();
+        properties.setWatchPollInterval(Duration.ofMillis(50));
+        aiJobService = new AIJobService(aiJobRepository, aiTeachingAssistantService, new ObjectMapper(),
+                properties, new SimpleMeterRegistry());
+        AIJob elsewhere = storedJob(AIJobStatus.RUNNING, 1, LocalDateTime.now());
+
+        Mono<List<AIJob>> events = aiJobService.watch(elsewhere.getId()).collectList().cache();
+        events.subscribe();
+        verify(aiJobRepository, timeout(1000)).findById(elsewhere.getId());
+        AIJob finished = new AIJob();
+        finished.setId(elsewhere.getId());
+        finished.setStatus(AIJobStatus.SUCCEEDED);
+        finished.setResult("{\"title\":\"Plan\"}");
+        table.put(finished.getId(), finished);
+
+        List<AIJob> seen = events.block(Duration.ofSeconds(5));
+        assertEquals(AIJobStatus.RUNNING, seen.get(0).getStatus());
+        assertEquals(AIJobStatus.SUCCEEDED, seen.get(seen.size() - 1).getStatus());
+        assertEquals("{\"title\":\"Plan\"}", seen.get(seen.size() - 1).getResult());
+    }
+
+    @Test
+    void rejectsMissingParameters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> aiJobService.submit(AITask.INTERVENTION_PLAN, Map.of("issue", "Missing homework")));
+        assertThrows(IllegalArgumentException.class,
+                () -> aiJobService.submit(AITask.RISK_SCORE, Map.of()));
+        assertTrue(table.isEmpty());
+    }
+
+    private AIJob storedJob(AIJobStatus status, int attempts, LocalDateTime updatedAt) {
+        AIJob job = new AIJob();
+        job.setTask(AITask.LESSON_PLAN);
+        job.setStatus(status);
+        job.setAttempts(attempts);
+        job.setUpdatedAt(updatedAt);
+        job.setParameters("{\"topic\":\"Photosynthesis\",\"duration\":45}");
+        return aiJobRepository.save(job);
+    }
+}
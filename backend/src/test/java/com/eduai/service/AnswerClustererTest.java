@@ -0,0 +1,52 @@
+package com.eduai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AnswerClustererTest {
+
+    private final AnswerClusterer clusterer = new AnswerClusterer(true, 0.8, 16, 4);
+
+    @Test
+    void groupsAnswersThatDifferOnlyInFormatting() {
+        List<AnswerClusterer.Cluster<String>> clusters = clusterer.cluster(List.of(
+                "Photosynthesis converts light energy into chemical energy.",
+                "photosynthesis converts light energy into chemical energy",
+                "  Photosynthesis   converts light energy into chemical energy!!",
+                "Mitochondria are the powerhouse of the cell."), Function.identity());
+
+        assertEquals(2, clusters.size());
+        assertEquals(3, clusters.get(0).members().size());
+        assertEquals("Photosynthesis converts light energy into chemical energy.", clusters.get(0).representative());
+    }
+
+    @Test
+    void groupsNearDuplicatesWithSmallTypos() {
+        List<AnswerClusterer.Cluster<String>> clusters = clusterer.cluster(List.of(
+                "The water cycle includes evaporation, condensation and precipitation",
+                "The water cycle includes evaporation, condensation and precipitaton"), Function.identity());
+
+        assertEquals(1, clusters.size());
+    }
+
+    @Test
+    void keepsAnswersWithDifferentNumbersOrNegationApart() {
+        List<AnswerClusterer.Cluster<String>> clusters = clusterer.cluster(List.of(
+                "The boiling point of water at sea level is 100 degrees",
+                "The boiling point of water at sea level is 90 degrees",
+                "The boiling point of water at sea level is not 100 degrees"), Function.identity());
+
+        assertEquals(3, clusters.size());
+    }
+
+    @Test
+    void disabledClustererKeepsEveryAnswer() {
+        AnswerClusterer disabled = new AnswerClusterer(false, 0.8, 16, 4);
+
+        assertEquals(2, disabled.cluster(List.of("same", "same"), Function.identity()).size());
+    }
+}
@@ -0,0 +1,269 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqPromptProperties;
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import com.eduai.model.enums.AITask;
+import com.eduai.repository.GradeRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchGradingServiceTest {
+
+    private static final Pattern ANSWER_ID = Pattern.compile("\"(\\d+)\":");
+    private static final List<String> ANSWERS = List.of(
+            "Photosynthesis turns light into chemical energy stored in glucose",
+            "Mitochondria release energy from food through cellular respiration",
+            "Water boils at a lower temperature on top of a mountain",
+            "Friction between the surfaces converts motion into heat",
+            "The moon's gravity pulls on the oceans and causes the tides");
+
+    @Mock
+    private GroqAIService groqAIService;
+
+    @Mock
+    private GradebookService gradebookService;
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private EntityCache entityCache;
+
+    private PromptTemplates promptTemplates;
+
+    private final Assignment assignment = new Assignment();
+
+    private BatchGradingService batchGradingService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        promptTemplates = new PromptTemplates(new GroqPromptProperties(), new ObjectMapper(), new SimpleMeterRegistry());
+        batchGradingService = new BatchGradingService(groqAIService, gradebookService, gradeRepository, entityCache,
+                promptTemplates, new AnswerClusterer(true, 0.9, 16, 4));
+        configure(10, 6000);
+        assignment.setId(7L);
+        assignment.setTitle("Science short answers");
+        assignment.setMaxPoints(20.0);
+        when(entityCache.findAssignment(7L)).thenReturn(Optional.of(assignment));
+        when(gradebookService.applyGradeUpdates(any(), anyList())).thenAnswer(invocation -> {
+            List<GradebookService.GradeUpdate> updates = invocation.getArgument(1);
+            return Collections.nCopies(updates.size(), new Grade());
+        });
+    }
+
+    @Test
+    void packsNoMoreThanTheAnswerCapPerPromptAndBypassesTheCacheOnRegrade() {
+        configure(2, 6000);
+        submissions(ANSWERS);
+        List<String> prompts = gradeEverythingFullMarks();
+
+        List<Map<String, Object>> progress = batchGradingService.gradeAssignment(7L, true).collectList().block();
+
+        assertEquals(3, prompts.size());
+        assertEquals(List.of(2, 2, 1), prompts.stream().map(prompt -> ids(prompt).size()).toList());
+        verify(groqAIService, times(3)).generateStructuredResponse(eq(AITask.AUTO_GRADE), anyString(),
+                eq(BatchGradingService.GradingResponse.class), eq(true));
+        Map<String, Object> last = progress.get(progress.size() - 1);
+        assertEquals(true, last.get("complete"));
+        assertEquals(5, last.get("graded"));
+        assertEquals(0, last.get("failed"));
+    }
+
+    @Test
+    void startsANewPromptOnceTheTokenBudgetIsFull() {
+        String base = promptTemplates.prompt(AITask.AUTO_GRADE, "auto-grade-batch")
+                .with("question", assignment.getTitle())
+                .with("rubric", null)
+                .with("answers", Map.of())
+                .render();
+        List<String> answers = new ArrayList<>();
+        for (String answer : ANSWERS.subList(0, 4)) {
+            answers.add((answer + " ").repeat(5).strip());
+        }
+        int answerTokens = answers.stream()
+                .mapToInt(answer -> promptTemplates.estimateRenderedTokens(Map.of(1L, answer)))
+                .max().orElseThrow();
+        int filled = PromptTemplates.estimateTokens(base) + 2 * answerTokens;
+        configure(10, (int) Math.ceil(filled / BatchGradingService.PACK_BUDGET_SHARE) + 1);
+        submissions(answers);
+        List<String> prompts = gradeEverythingFullMarks();
+
+        batchGradingService.gradeAssignment(7L, false).blockLast();
+
+        assertEquals(List.of(2, 2), prompts.stream().map(prompt -> ids(prompt).size()).toList());
+    }
+
+    @Test
+    void sendsLongEssaysInFullWithinTheTokenBudget() throws Exception {
+        List<String> essays = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            essays.add(essay(i));
+        }
+        submissions(essays);
+        List<String> prompts = gradeEverythingFullMarks();
+
+        batchGradingService.gradeAssignment(7L, false).blockLast();
+
+        assertEquals(7, prompts.stream().mapToInt(prompt -> ids(prompt).size()).sum());
+        assertTrue(prompts.size() > 1);
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String essay : essays) {
+            String encoded = objectMapper.writeValueAsString(essay);
+            assertTrue(prompts.stream().anyMatch(prompt -> prompt.contains(encoded)), "essay was not sent in full");
+        }
+        assertTrue(prompts.stream().allMatch(prompt -> PromptTemplates.estimateTokens(prompt) <= 6000));
+        assertTrue(prompts.stream().noneMatch(prompt -> prompt.contains("…")));
+    }
+
+    @Test
+    void clampsAndScalesScoresAndDropsUnusableResults() {
+        List<String> answers = new ArrayList<>(ANSWERS.subList(0, 3));
+        answers.add(ANSWERS.get(0));
+        submissions(answers);
+        when(groqAIService.generateStructuredResponse(eq(AITask.AUTO_GRADE), anyString(),
+                eq(BatchGradingService.GradingResponse.class), anyBoolean()))
+                .thenReturn(Mono.just(new BatchGradingService.GradingResponse(List.of(
+                        new BatchGradingService.GradingResult(1L, 150.0, "Excellent"),
+                        new BatchGradingService.GradingResult(2L, -5.0, "Off topic"),
+                        new BatchGradingService.GradingResult(3L, null, "No score"),
+                        new BatchGradingService.GradingResult(999L, 50.0, "Not in this pack")))));
+
+        batchGradingService.gradeAssignment(7L, false).blockLast();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<GradebookService.GradeUpdate>> updates = ArgumentCaptor.forClass(List.class);
+        verify(gradebookService).applyGradeUpdates(eq(assignment), updates.capture());
+        assertEquals(List.of(
+                new GradebookService.GradeUpdate(1L, 20.0, "Excellent"),
+                new GradebookService.GradeUpdate(2L, 0.0, "Off topic"),
+                new GradebookService.GradeUpdate(4L, 20.0, "Excellent", 1L)), updates.getValue());
+    }
+
+    @Test
+    void countsAFailedPackAsFailedAndKeepsGrading() {
+        configure(1, 6000);
+        submissions(ANSWERS.subList(0, 3));
+        when(groqAIService.generateStructuredResponse(eq(AITask.AUTO_GRADE), anyString(),
+                eq(BatchGradingService.GradingResponse.class), anyBoolean()))
+                .thenAnswer(invocation -> {
+                    List<Long> ids = ids(invocation.getArgument(1));
+                    if (ids.contains(2L)) {
+                        return Mono.error(new RuntimeException("Groq request queue is full"));
+                    }
+                    return Mono.just(fullMarks(ids));
+                });
+
+        List<Map<String, Object>> progress = batchGradingService.gradeAssignment(7L, false).collectList().block();
+
+        assertEquals(4, progress.size());
+        assertTrue(progress.subList(0, 3).stream().noneMatch(event -> (Boolean) event.get("complete")));
+        Map<String, Object> last = progress.get(3);
+        assertEquals(true, last.get("complete"));
+        assertEquals(3, last.get("total"));
+        assertEquals(2, last.get("graded"));
+        assertEquals(1, last.get("failed"));
+    }
+
+    private void configure(int maxAnswersPerPrompt, int maxPromptTokens) {
+        ReflectionTestUtils.setField(batchGradingService, "concurrency", 1);
+        ReflectionTestUtils.setField(batchGradingService, "maxAnswersPerPrompt", maxAnswersPerPrompt);
+        ReflectionTestUtils.setField(batchGradingService, "maxPromptTokens", maxPromptTokens);
+    }
+
+    private void submissions(List<String> answers) {
+        List<Grade> grades = new ArrayList<>();
+        for (int i = 0; i < answers.size(); i++) {
+            Grade grade = new Grade();
+            grade.setId(i + 1L);
+            grade.setStudentId(100L + i);
+            grade.setAssignmentId(7L);
+            grade.setSubmissionText(answers.get(i));
+            grades.add(grade);
+        }
+        when(gradeRepository.findByAssignmentId(7L)).thenReturn(grades);
+    }
+
+    private List<String> gradeEverythingFullMarks() {
+        List<String> prompts = Collections.synchronizedList(new ArrayList<>());
+        when(groqAIService.generateStructuredResponse(eq(AITask.AUTO_GRADE), anyString(),
+                eq(BatchGradingService.GradingResponse.class), anyBoolean()))
+                .thenAnswer(invocation -> {
+                    String prompt = invocation.getArgument(1);
+                    prompts.add(prompt);
+                    return Mono.just(fullMarks(ids(prompt)));
+                });
+        return prompts;
+    }
+
+    /**
+     * About 3500 characters in five paragraphs with quotations. Every seed gets its own word forms, so
+     * the essays are not clustered together.
+     */
+    private static String essay(int seed) {
+        String[] words = {"revolution", "industry", "workers", "steam", "factories", "cities", "railways", "cotton",
+                "wages", "children", "reform", "coal", "iron", "markets", "empire", "inventors", "population",
+                "machines", "unions", "trade"};
+        String suffix = "abcdefghij".substring(seed, seed + 1);
+        for (int i = 0; i < words.length; i++) {
+            words[i] = words[i] + suffix;
+        }
+        Random random = new Random(seed);
+        StringBuilder essay = new StringBuilder();
+        for (int paragraph = 0; paragraph < 5; paragraph++) {
+            if (paragraph > 0) {
+                essay.append("\n\n");
+            }
+            while (essay.length() < (paragraph + 1) * 700) {
+                essay.append("The \"").append(words[random.nextInt(words.length)]).append("\" changed ");
+                for (int word = 0; word < 8; word++) {
+                    essay.append(words[random.nextInt(words.length)]).append(word < 7 ? " " : ". ");
+                }
+            }
+        }
+        return essay.toString().strip();
+    }
+
+    private static BatchGradingService.GradingResponse fullMarks(List<Long> ids) {
+        return new BatchGradingService.GradingResponse(ids.stream()
+                .map(id -> new BatchGradingService.GradingResult(id, 100.0, null))
+                .toList());
+    }
+
+    private static List<Long> ids(String prompt) {
+        List<Long> ids = new ArrayList<>();
+        Matcher matcher = ANSWER_ID.matcher(prompt);
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,106 @@
+package com.eduai.service;
+
+import com.eduai.model.GeneratedContent;
+import com.eduai.model.enums.AITask;
+import com.eduai.repository.GeneratedContentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+public class ContentLibraryServiceTest {
+
+    @Mock
+    private GeneratedContentRepository generatedContentRepository;
+
+    private final List<GeneratedContent> table = new ArrayList<>();
+    private final AtomicInteger generations = new AtomicInteger();
+    private ContentLibraryService contentLibraryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        contentLibraryService = new ContentLibraryService(generatedContentRepository, new ObjectMapper(),
+                new SimpleMeterRegistry(), true);
+
+        when(generatedContentRepository.save(any(GeneratedContent.class))).thenAnswer(invocation -> {
+            GeneratedContent content = invocation.getArgument(0);
+            content.setId((long) table.size() + 1);
+            table.add(content);
+            return content;
+        });
+        when(generatedContentRepository.findFirstByTaskAndContentHashOrderByVersionDesc(any(), anyString()))
+                .thenAnswer(invocation -> table.stream()
+                        .filter(content -> content.getTask() == invocation.getArgument(0)
+                                && content.getContentHash().equals(invocation.getArgument(1)))
+                        .max(Comparator.comparing(GeneratedContent::getVersion)));
+        when(generatedContentRepository.recordReuse(anyLong(), any())).thenReturn(1);
+    }
+
+    @Test
+    void servesEquivalentRequestFromLibrary() {
+        Map<String, Object> first = lessonPlan(request("Photosynthesis", "Grade 7"), false);
+        Map<String, Object> second = lessonPlan(request("  photosynthesis ", "grade   7"), false);
+
+        assertEquals(1, generations.get());
+        assertEquals("plan 1", second.get("title"));
+        assertEquals(false, library(first).get("reused"));
+        assertEquals(true, library(second).get("reused"));
+        assertEquals(1L, library(second).get("reuseCount"));
+    }
+
+    @Test
+    void regenerateStoresNextVersion() {
+        lessonPlan(request("Fractions", "5"), false);
+        Map<String, Object> regenerated = lessonPlan(request("Fractions", "5"), true);
+        Map<String, Object> reused = lessonPlan(request("Fractions", "5"), false);
+
+        assertEquals(2, generations.get());
+        assertEquals(2, library(regenerated).get("version"));
+        assertEquals("plan 2", reused.get("title"));
+    }
+
+    @Test
+    void errorResultsAreNotStored() {
+        contentLibraryService.getOrGenerate(AITask.ASSESSMENT, request("Cells", "8"), false,
+                () -> Mono.just(Map.of("error", "AI service temporarily unavailable"))).block();
+
+        assertEquals(0, table.size());
+    }
+
+    private Map<String, Object> lessonPlan(Map<String, Object> request, boolean regenerate) {
+        return contentLibraryService.getOrGenerate(AITask.LESSON_PLAN, request, regenerate,
+                () -> Mono.just(Map.of("title", "plan " + generations.incrementAndGet()))).block();
+    }
+
+    private static Map<String, Object> request(String topic, String gradeLevel) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("topic", topic);
+        request.put("gradeLevel", gradeLevel);
+        request.put("duration", 45);
+        request.put("learningObjectives", null);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> library(Map<String, Object> response) {
+        return (Map<String, Object>) response.get("library");
+    }
+}
@@ -0,0 +1,209 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.CourseGradeSummary;
+import com.eduai.model.Grade;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.CourseGradeSummaryRepository;
+import com.eduai.repository.GradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CourseGradeSummaryServiceTest {
+
+    @Mock
+    private CourseGradeSummaryRepository courseGradeSummaryRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    private CourseGradeSummaryService courseGradeSummaryService;
+    private Assignment essay;
+    private Assignment exam;
+    private Assignment quiz;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        courseGradeSummaryService = new CourseGradeSummaryService(courseGradeSummaryRepository, assignmentRepository, gradeRepository);
+
+        essay = assignment(1L, 40.0);
+        exam = assignment(2L, 60.0);
+        quiz = assignment(3L, null);
+        List<Grade> grades = List.of(grade(7L, 1L, 90.0), grade(7L, 3L, 80.0));
+        when(assignmentRepository.findByCourseId(5L)).thenReturn(List.of(essay, exam, quiz));
+        when(gradeRepository.findByStudentIdAndAssignmentIdIn(eq(7L), anyList())).thenReturn(grades);
+        when(gradeRepository.sumByStudentInCourse(5L)).thenReturn(List.of(
+                new Totals(7L, 3680.0, 1.0, 2L),
+                new Totals(4L, 0.0, 0.0, 1L)));
+        when(courseGradeSummaryRepository.save(any(CourseGradeSummary.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void materializesMissingRowWithWeightedAverage() {
+        when(courseGradeSummaryRepository.findByStudentIdAndCourseId(7L, 5L)).thenReturn(Optional.empty());
+        when(courseGradeSummaryRepository.insertIfAbsent(anyLong(), anyLong(), anyDouble(), anyDouble(), anyInt(), anyInt()))
+                .thenReturn(1);
+
+        Map<String, Object> result = courseGradeSummaryService.studentGrade(7L, 5L);
+
+        // (90 * 40 + 80 * 1) / (40 + 60 + 1); the ungraded exam counts as zero, the unweighted quiz as weight 1
+        assertEquals(3680.0 / 101, (Double) result.get("finalPercentage"), 1e-9);
+        assertEquals(2, result.get("assignmentsCompleted"));
+        assertEquals(3, result.get("assignmentsTotal"));
+        verify(courseGradeSummaryRepository).insertIfAbsent(7L, 5L, 3680.0, 101.0, 2, 3);
+    }
+
+    @Test
+    void readsTheRowAConcurrentFirstReadCreated() {
+        CourseGradeSummary created = new CourseGradeSummary();
+        created.setStudentId(7L);
+        created.setCourseId(5L);
+        created.setWeightedPoints(4500.0);
+        created.setTotalWeight(101.0);
+        created.setCompletedCount(3);
+        created.setAssignmentCount(3);
+        when(courseGradeSummaryRepository.findByStudentIdAndCourseId(7L, 5L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(created));
+        when(courseGradeSummaryRepository.insertIfAbsent(anyLong(), anyLong(), anyDouble(), anyDouble(), anyInt(), anyInt()))
+                .thenReturn(0);
+
+        Map<String, Object> result = courseGradeSummaryService.studentGrade(7L, 5L);
+
+        assertEquals(4500.0 / 101, (Double) result.get("finalPercentage"), 1e-9);
+        assertEquals(3, result.get("assignmentsCompleted"));
+        verify(courseGradeSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void appliesDeltaToARowAConcurrentFirstWriteCreated() {
+        when(courseGradeSummaryRepository.addGrade(eq(7L), eq(5L), anyDouble(), anyDouble(), anyInt()))
+                .thenReturn(0)
+                .thenReturn(1);
+        when(courseGradeSummaryRepository.insertIfAbsent(anyLong(), anyLong(), anyDouble(), anyDouble(), anyInt(), anyInt()))
+                .thenReturn(0);
+
+        Grade graded = grade(7L, 2L, 50.0);
+        courseGradeSummaryService.recordGradeChange(7L, exam,
+                CourseGradeSummaryService.Contribution.NONE, CourseGradeSummaryService.Contribution.of(graded, exam));
+
+        verify(courseGradeSummaryRepository, times(2)).addGrade(7L, 5L, 3000.0, 0.0, 1);
+        verify(courseGradeSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void appliesGradeChangesAsDeltas() {
+        when(courseGradeSummaryRepository.addGrade(eq(7L), eq(5L), anyDouble(), anyDouble(), anyInt())).thenReturn(1);
+
+        Grade regraded = grade(7L, 2L, 50.0);
+        courseGradeSummaryService.recordGradeChange(7L, exam,
+                CourseGradeSummaryService.Contribution.NONE, CourseGradeSummaryService.Contribution.of(regraded, exam));
+
+        verify(courseGradeSummaryRepository).addGrade(7L, 5L, 3000.0, 0.0, 1);
+        verify(courseGradeSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void verifyReportsAndRepairsDrift() {
+        CourseGradeSummary stale = new CourseGradeSummary();
+        stale.setStudentId(7L);
+        stale.setCourseId(5L);
+        stale.setWeightedPoints(3600.0);
+        stale.setTotalWeight(100.0);
+        stale.setCompletedCount(1);
+        stale.setAssignmentCount(3);
+        when(courseGradeSummaryRepository.findByCourseId(5L)).thenReturn(List.of(stale));
+
+        Map<String, Object> report = courseGradeSummaryService.verify(5L, true);
+
+        assertEquals(2, report.get("mismatched"));
+        assertEquals(2, report.get("repaired"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CourseGradeSummary>> saved = ArgumentCaptor.forClass(List.class);
+        verify(courseGradeSummaryRepository).saveAll(saved.capture());
+        CourseGradeSummary repaired = saved.getValue().stream()
+                .filter(summary -> summary.getStudentId().equals(7L)).findFirst().orElseThrow();
+        assertEquals(3680.0, repaired.getWeightedPoints(), 1e-9);
+        assertEquals(101.0, repaired.getTotalWeight(), 1e-9);
+        assertEquals(2, repaired.getCompletedCount());
+        verify(courseGradeSummaryRepository).insertIfAbsent(4L, 5L, 0.0, 100.0, 1, 3);
+    }
+
+    @Test
+    void computesWholeCourseFromAggregates() {
+        Map<String, Object> gradebook = courseGradeSummaryService.courseGrades(5L);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) gradebook.get("data");
+        assertEquals(3, gradebook.get("assignmentsTotal"));
+        assertEquals(List.of(4L, 7L), rows.stream().map(row -> row.get("studentId")).toList());
+        assertEquals(0.0, (Double) rows.get(0).get("finalPercentage"), 1e-9);
+        assertEquals("F", rows.get(0).get("letterGrade"));
+        assertEquals(3680.0 / 101, (Double) rows.get(1).get("finalPercentage"), 1e-9);
+    }
+
+    private record Totals(Long studentId, Double weightedPoints, Double unweightedGraded, Long completed)
+            implements GradeRepository.CourseTotals {
+
+        @Override
+        public Long getStudentId() {
+            return studentId;
+        }
+
+        @Override
+        public Double getWeightedPoints() {
+            return weightedPoints;
+        }
+
+        @Override
+        public Double getUnweightedGraded() {
+            return unweightedGraded;
+        }
+
+        @Override
+        public Long getCompleted() {
+            return completed;
+        }
+    }
+
+    private static Assignment assignment(Long id, Double weight) {
+        Assignment assignment = new Assignment();
+        assignment.setId(id);
+        assignment.setCourseId(5L);
+        assignment.setMaxPoints(100.0);
+        assignment.setWeightPercentage(weight);
+        return assignment;
+    }
+
+    private static Grade grade(Long studentId, Long assignmentId, Double percentage) {
+        Grade grade = new Grade();
+        grade.setId(studentId * 100 + assignmentId);
+        grade.setStudentId(studentId);
+        grade.setAssignmentId(assignmentId);
+        grade.setPercentage(percentage);
+        return grade;
+    }
+}
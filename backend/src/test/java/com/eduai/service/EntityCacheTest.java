@@ -0,0 +1,105 @@
+package com.eduai.service;
+
+import com.eduai.config.NearCacheProperties;
+import com.eduai.model.Assignment;
+import com.eduai.model.User;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EntityCacheTest {
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final InProcessCacheInvalidationBus bus = new InProcessCacheInvalidationBus();
+
+    private EntityCache entityCache;
+
+    private EntityCache otherInstance;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        entityCache = new EntityCache(new NearCacheProperties(), assignmentRepository, userRepository, bus, meterRegistry);
+        otherInstance = new EntityCache(new NearCacheProperties(), assignmentRepository, userRepository, bus,
+                new SimpleMeterRegistry());
+        Assignment assignment = new Assignment();
+        assignment.setId(3L);
+        when(assignmentRepository.findById(3L)).thenReturn(Optional.of(assignment));
+    }
+
+    @Test
+    void servesRepeatedLookupsFromMemoryAndReportsTheHitRatio() {
+        entityCache.findAssignment(3L);
+        entityCache.findAssignment(3L);
+        entityCache.findAssignment(3L);
+        entityCache.findUserByEmail("nobody@example.com");
+        entityCache.findUserByEmail("nobody@example.com");
+
+        verify(assignmentRepository, times(1)).findById(3L);
+        verify(userRepository, times(2)).findByEmail("nobody@example.com");
+        assertEquals(2.0 / 3, meterRegistry.get("cache.hit.ratio").tag("cache", "assignments").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void evictionReachesEveryInstanceAfterTheTransactionCompletes() {
+        entityCache.findAssignment(3L);
+        otherInstance.findAssignment(3L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            entityCache.evictAssignment(3L);
+            otherInstance.findAssignment(3L);
+            verify(assignmentRepository, times(2)).findById(3L);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, synchronizations.size());
+            synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        otherInstance.findAssignment(3L);
+        entityCache.findAssignment(3L);
+
+        verify(assignmentRepository, times(4)).findById(3L);
+    }
+
+    @Test
+    void clearsEverythingWhenInvalidationsMayHaveBeenMissed() {
+        User user = new User();
+        user.setEmail("teacher@example.com");
+        when(userRepository.findByEmail("teacher@example.com")).thenReturn(Optional.of(user));
+        assertTrue(entityCache.findUserByEmail("teacher@example.com").isPresent());
+        entityCache.findAssignment(3L);
+
+        bus.publish(PostgresCacheInvalidationBus.parse(""));
+        entityCache.findUserByEmail("teacher@example.com");
+        entityCache.findAssignment(3L);
+
+        verify(userRepository, times(2)).findByEmail("teacher@example.com");
+        verify(assignmentRepository, times(2)).findById(3L);
+        assertEquals(new CacheInvalidationBus.Invalidation("users", "a\tb"),
+                PostgresCacheInvalidationBus.parse("users\ta\tb"));
+    }
+}
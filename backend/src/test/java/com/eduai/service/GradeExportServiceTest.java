@@ -0,0 +1,113 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.GradeRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GradeExportServiceTest {
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GradeExportService gradeExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        gradeExportService = new GradeExportService(gradeRepository, assignmentRepository, entityManager,
+                objectMapper, new SimpleMeterRegistry());
+
+        Assignment essay = new Assignment();
+        essay.setId(10L);
+        essay.setCourseId(3L);
+        essay.setTitle("Essay");
+        essay.setMaxPoints(50.0);
+        when(assignmentRepository.findByCourseId(3L)).thenReturn(List.of(essay));
+    }
+
+    @Test
+    void writesCsvWithQuotedFields() throws Exception {
+        Grade grade = grade(1L, 7L);
+        grade.setPointsEarned(45.0);
+        grade.setPercentage(90.0);
+        grade.setLetterGrade("A-");
+        grade.setGradedAt(LocalDateTime.of(2024, 3, 2, 9, 30));
+        grade.setFeedback("Clear, \"well\" argued");
+        when(gradeRepository.streamByCourseId(3L)).thenReturn(Stream.of(grade));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long rows = gradeExportService.export(new GradeExportService.Scope(3L, null, null),
+                GradeImportService.Format.CSV, output);
+
+        assertEquals(1, rows);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(String.join(",", GradeExportService.COLUMNS), lines[0]);
+        assertEquals("1,7,3,10,Essay,45.0,50.0,90.0,A-,false,,2024-03-02T09:30,\"Clear, \"\"well\"\" argued\"", lines[1]);
+    }
+
+    @Test
+    void writesNdjsonAndClearsThePersistenceContextAfterEachFetch() throws Exception {
+        int count = GradeRepository.EXPORT_FETCH_SIZE * 2 + 1;
+        when(gradeRepository.streamByCourseId(3L))
+                .thenReturn(LongStream.rangeClosed(1, count).mapToObj(id -> grade(id, id)));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long rows = gradeExportService.export(new GradeExportService.Scope(3L, null, null),
+                GradeImportService.Format.NDJSON, output);
+
+        assertEquals(count, rows);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(count, lines.length);
+        JsonNode last = objectMapper.readTree(lines[count - 1]);
+        assertEquals(count, last.get("gradeId").asLong());
+        assertEquals("Essay", last.get("assignmentTitle").asText());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void rejectsAmbiguousScopes() {
+        LocalDate start = LocalDate.of(2024, 8, 15);
+        assertThrows(IllegalArgumentException.class, () -> new GradeExportService.Scope(3L, start, start.plusMonths(4)));
+        assertThrows(IllegalArgumentException.class, () -> new GradeExportService.Scope(null, start, null));
+        assertThrows(IllegalArgumentException.class, () -> new GradeExportService.Scope(null, start, start.minusDays(1)));
+    }
+
+    private static Grade grade(Long id, Long studentId) {
+        Grade grade = new Grade();
+        grade.setId(id);
+        grade.setStudentId(studentId);
+        grade.setAssignmentId(10L);
+        return grade;
+    }
+}
@@ -0,0 +1,194 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.repository.AssignmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GradeImportServiceTest {
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private CourseGradeSummaryService courseGradeSummaryService;
+
+    @Mock
+    private StudentRankingService studentRankingService;
+
+    @Mock
+    private ScoreStatisticsService scoreStatisticsService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GradeImportService gradeImportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        gradeImportService = new GradeImportService(assignmentRepository, courseGradeSummaryService, studentRankingService,
+                scoreStatisticsService, jdbcTemplate, transactionManager, new ObjectMapper(), new SimpleMeterRegistry(), 2);
+
+        Assignment essay = new Assignment();
+        essay.setId(10L);
+        essay.setCourseId(3L);
+        essay.setMaxPoints(50.0);
+        essay.setDueDate(LocalDateTime.of(2024, 3, 1, 23, 59));
+        when(assignmentRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.contains(10L) ? List.of(essay) : List.of();
+        });
+    }
+
+    @Test
+    void importsCsvInBatchesAndReportsBadRows() throws Exception {
+        String csv = "studentId,assignmentId,pointsEarned,feedback,submittedAt\r\n" +
+                "1,10,45,\"Clear, well argued\",2024-03-01T10:00:00\r\n" +
+                "2,10,30,\"Late;\nneeds sources\",2024-03-02T09:00:00\r\n" +
+                "3,99,40,,\r\n" +
+                "4,10,abc,,\r\n" +
+                "5,10,,,2024-02-28T12:00:00\r\n";
+
+        Map<String, Object> report = gradeImportService.importGrades(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), GradeImportService.Format.CSV);
+
+        assertEquals(5L, report.get("rowsRead"));
+        assertEquals(3L, report.get("inserted"));
+        assertEquals(2L, report.get("failed"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) report.get("errors");
+        assertEquals(List.of(5, 6), errors.stream().map(error -> error.get("line")).sorted().toList());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+        List<Object[]> rows = new ArrayList<>();
+        batches.getAllValues().forEach(rows::addAll);
+        assertEquals(90.0, rows.get(0)[3]);
+        assertEquals("A-", rows.get(0)[4]);
+        assertEquals("Clear, well argued", rows.get(0)[5]);
+        assertEquals(false, rows.get(0)[9]);
+        assertEquals("Late;\nneeds sources", rows.get(1)[5]);
+        assertEquals(true, rows.get(1)[9]);
+        verify(courseGradeSummaryService).rebuildCourse(3L);
+        verify(studentRankingService).recordCourseChanges(Set.of(3L));
+        verify(studentRankingService).recordCourseChanges(Set.of(3L));
+    }
+
+    @Test
+    void rebuildsDerivedTablesForCommittedRowsWhenTheStreamFails() {
+        byte[] rows = ("{\"studentId\":1,\"assignmentId\":10,\"pointsEarned\":40}\n" +
+                "{\"studentId\":2,\"assignmentId\":10,\"pointsEarned\":35}\n" +
+                "{\"studentId\":3,\"assignmentId\":10,\"pointsEarned\":30}\n").getBytes(StandardCharsets.UTF_8);
+        InputStream brokenUpload = new SequenceInputStream(new ByteArrayInputStream(rows), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        IOException error = assertThrows(IOException.class,
+                () -> gradeImportService.importGrades(brokenUpload, GradeImportService.Format.NDJSON));
+
+        assertEquals("Connection reset", error.getMessage());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(courseGradeSummaryService).rebuildCourse(3L);
+        verify(studentRankingService).recordCourseChanges(Set.of(3L));
+        verify(scoreStatisticsService).rebuildAssignment(any(Assignment.class));
+    }
+
+    @Test
+    void updatesExistingGradesFromNdjson() throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getLong("student_id")).thenReturn(1L);
+            when(resultSet.getLong("assignment_id")).thenReturn(10L);
+            when(resultSet.getLong("id")).thenReturn(77L);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        String ndjson = "{\"studentId\":1,\"assignmentId\":10,\"pointsEarned\":40}\n" +
+                "not json\n";
+
+        Map<String, Object> report = gradeImportService.importGrades(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), GradeImportService.Format.NDJSON);
+
+        assertEquals(1L, report.get("updated"));
+        assertEquals(1L, report.get("failed"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE grades SET points_earned = COALESCE(?, points_earned), " +
+                "percentage = COALESCE(?, percentage), letter_grade = COALESCE(?, letter_grade), feedback = COALESCE(?, feedback), " +
+                "submission_text = COALESCE(?, submission_text), submitted_at = COALESCE(?, submitted_at), " +
+                "graded_at = COALESCE(?, graded_at), is_late = COALESCE(?, is_late), updated_at = ?, version = version + 1 WHERE id = ?"),
+                updates.capture());
+        assertEquals(77L, updates.getValue().get(0)[9]);
+        assertEquals(80.0, updates.getValue().get(0)[1]);
+    }
+
+    @Test
+    void readsHeadersAfterAByteOrderMarkAndKeepsValuesForEmptyCells() throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getLong("student_id")).thenReturn(1L);
+            when(resultSet.getLong("assignment_id")).thenReturn(10L);
+            when(resultSet.getLong("id")).thenReturn(77L);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        String csv = "\uFEFFstudentId,assignmentId,pointsEarned,feedback\r\n" +
+                "1,10,,Please resubmit\r\n";
+
+        Map<String, Object> report = gradeImportService.importGrades(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), GradeImportService.Format.CSV);
+
+        assertEquals(1L, report.get("updated"));
+        assertEquals(0L, report.get("failed"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        Object[] update = updates.getValue().get(0);
+        assertEquals(Arrays.asList(null, null, null, "Please resubmit", null, null, null, null),
+                Arrays.asList(update).subList(0, 8));
+    }
+}
@@ -0,0 +1,116 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.GradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GradebookServiceTest {
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private CourseGradeSummaryService courseGradeSummaryService;
+
+    @Mock
+    private StudentRankingService studentRankingService;
+
+    @Mock
+    private ScoreStatisticsService scoreStatisticsService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityCache entityCache;
+
+    private GradebookService gradebookService;
+
+    private final Assignment assignment = new Assignment();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        gradebookService = new GradebookService(gradeRepository, assignmentRepository, courseGradeSummaryService,
+                studentRankingService, scoreStatisticsService, jdbcTemplate, entityCache);
+        assignment.setId(5L);
+        assignment.setMaxPoints(50.0);
+        when(entityCache.findAssignment(5L)).thenReturn(Optional.of(assignment));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updatesMatchedGradesInOneBatchAndReportsEachEntry() {
+        when(gradeRepository.findForBulkGrading(5L, Set.of(11L), Set.of(2L, 9L)))
+                .thenReturn(List.of(grade(11L, 1L, 3L), grade(12L, 2L, 0L)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        List<GradebookService.BulkGradeResult> results = gradebookService.gradeInBulk(5L, List.of(
+                new GradebookService.BulkGradeEntry(11L, null, 45.0, "Great", 3L),
+                new GradebookService.BulkGradeEntry(null, 2L, 30.0, null, null),
+                new GradebookService.BulkGradeEntry(null, 9L, 40.0, null, null),
+                new GradebookService.BulkGradeEntry(null, 2L, -1.0, null, null)));
+
+        assertEquals(List.of(GradebookService.BulkGradeStatus.UPDATED, GradebookService.BulkGradeStatus.UPDATED,
+                        GradebookService.BulkGradeStatus.NOT_FOUND, GradebookService.BulkGradeStatus.INVALID),
+                results.stream().map(GradebookService.BulkGradeResult::status).toList());
+        assertEquals(90.0, results.get(0).percentage());
+        assertEquals("A-", results.get(0).letterGrade());
+        assertEquals(4L, results.get(0).version());
+        assertEquals(12L, results.get(1).gradeId());
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(3L, rows.getValue().get(0)[7]);
+        verify(studentRankingService).recordGradeChanges(List.of(1L, 2L));
+    }
+
+    @Test
+    void reportsStaleAndConcurrentlyChangedGradesAsConflicts() {
+        when(gradeRepository.findForBulkGrading(eq(5L), eq(Set.of(11L, 12L)), eq(Set.of())))
+                .thenReturn(List.of(grade(11L, 1L, 3L), grade(12L, 2L, 7L)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+
+        List<GradebookService.BulkGradeResult> results = gradebookService.gradeInBulk(5L, List.of(
+                new GradebookService.BulkGradeEntry(11L, null, 45.0, null, 2L),
+                new GradebookService.BulkGradeEntry(12L, null, 20.0, null, 7L)));
+
+        assertEquals(GradebookService.BulkGradeStatus.CONFLICT, results.get(0).status());
+        assertEquals(3L, results.get(0).version());
+        assertEquals(GradebookService.BulkGradeStatus.CONFLICT, results.get(1).status());
+        assertNull(results.get(1).version());
+        verify(studentRankingService).recordGradeChanges(List.of());
+    }
+
+    private static Grade grade(Long id, Long studentId, Long version) {
+        Grade grade = new Grade();
+        grade.setId(id);
+        grade.setStudentId(studentId);
+        grade.setAssignmentId(5L);
+        grade.setVersion(version);
+        return grade;
+    }
+}
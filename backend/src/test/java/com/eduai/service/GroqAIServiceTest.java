@@ -1,21 +1,52 @@
 package com.eduai.service;
 
+import com.eduai.config.GroqCacheProperties;
+import com.eduai.config.GroqRateLimitProperties;
+import com.eduai.config.GroqResilienceProperties;
+import com.eduai.config.GroqRoutingProperties;
+import com.eduai.model.enums.AIRequestPriority;
+import com.eduai.model.enums.AITask;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 public class GroqAIServiceTest {
 
+    private static final String COMPLETION = "{\"choices\":[{\"message\":{\"content\":\"{\\\"title\\\":\\\"Fractions\\\"}\"}}]}";
+
     @Mock
     private WebClient groqWebClient;
 
@@ -30,12 +61,23 @@ public class GroqAIServiceTest {
 
     private GroqAIService groqAIService;
     private ObjectMapper objectMapper;
+    private GroqCacheProperties cacheProperties;
+    private AtomicInteger upstreamCalls;
+    private SimpleMeterRegistry meterRegistry;
+    private GroqResilienceProperties resilience;
+    private GroqRoutingProperties routing;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         objectMapper = new ObjectMapper();
-        groqAIService = new GroqAIService(groqWebClient, objectMapper);
+        cacheProperties = new GroqCacheProperties();
+        upstreamCalls = new AtomicInteger();
+        meterRegistry = new SimpleMeterRegistry();
+        resilience = new GroqResilienceProperties();
+        resilience.getRetry().setInitialBackoff(Duration.ofMillis(10));
+        routing = new GroqRoutingProperties();
+        groqAIService = newService(groqWebClient);
     }
 
     @Test
@@ -45,5 +87,328 @@ public class GroqAIServiceTest {
         // Note: This is a simplified test - full integration tests would require more complex mocking
         assertNotNull(groqAIService);
     }
-}
 
+    @Test
+    void repeatedStructuredRequestIsServedFromCache() {
+        GroqAIService service = newService(stubWebClient());
+
+        StepVerifier.create(service.generateStructuredResponse(AITask.LESSON_PLAN, "Topic:  Fractions"))
+                .expectNextMatches(result -> "Fractions".equals(result.get("title")))
+                .verifyComplete();
+        StepVerifier.create(service.generateStructuredResponse(AITask.LESSON_PLAN, "Topic: Fractions "))
+                .expectNextMatches(result -> "Fractions".equals(result.get("title")))
+                .verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void bypassAndZeroTtlSkipTheCache() {
+        cacheProperties.getTtl().put(AITask.INTERVENTION_PLAN, Duration.ZERO);
+        GroqAIService service = newService(stubWebClient());
+
+        service.generateStructuredResponse(AITask.INTERVENTION_PLAN, "plan").block();
+        service.generateStructuredResponse(AITask.INTERVENTION_PLAN, "plan").block();
+        service.generateStructuredResponse(AITask.LESSON_PLAN, "plan", true).block();
+        service.generateStructuredResponse(AITask.LESSON_PLAN, "plan", true).block();
+
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    @Test
+    void streamTextEmitsContentDeltasUntilDone() {
+        String events = "data: {\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"Hello\"}}]}\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\" class\"}}]}\n\n"
+                + "data: [DONE]\n\n";
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                        .body(events)
+                        .build()))
+                .build();
+        GroqAIService service = newService(webClient);
+
+        StepVerifier.create(service.streamText("Say hello", "model"))
+                .expectNext("Hello", " class")
+                .verifyComplete();
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneUpstreamCall() {
+        WebClient slowWebClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    upstreamCalls.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(200)).map(tick -> ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(COMPLETION)
+                            .build());
+                })
+                .build();
+        GroqAIService service = newService(slowWebClient);
+
+        StepVerifier.create(Flux.merge(
+                        service.generateText("same prompt", "model"),
+                        service.generateText("same prompt", "model"),
+                        service.generateText("same prompt", "model")))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(2.0, meterRegistry.counter("groq.requests.coalesced").count());
+    }
+
+    @Test
+    void identicalRequestsOfDifferentPrioritiesAreNotShared() {
+        WebClient slowWebClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    upstreamCalls.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(200)).map(tick -> ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(COMPLETION)
+                            .build());
+                })
+                .build();
+        GroqAIService service = newService(slowWebClient);
+
+        StepVerifier.create(Flux.merge(
+                        service.generateText("same prompt", "model")
+                                .contextWrite(GroqRateLimiter.withPriority(AIRequestPriority.BACKGROUND)),
+                        service.generateText("same prompt", "model"),
+                        service.generateText("same prompt", "model")
+                                .contextWrite(GroqRateLimiter.withPriority(AIRequestPriority.BACKGROUND))))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(1.0, meterRegistry.counter("groq.requests.coalesced").count());
+    }
+
+    @Test
+    void cancelledCallerDoesNotCancelSharedRequest() {
+        WebClient slowWebClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    upstreamCalls.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(200)).map(tick -> ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(COMPLETION)
+                            .build());
+                })
+                .build();
+        GroqAIService service = newService(slowWebClient);
+
+        Mono<String> waiting = service.generateText("same prompt", "model");
+        service.generateText("same prompt", "model").subscribe().dispose();
+
+        StepVerifier.create(Flux.merge(waiting, Mono.delay(Duration.ofMillis(10))
+                        .then(Mono.fromRunnable(() -> service.generateText("same prompt", "model").subscribe().dispose()))))
+                .expectNext("{\"title\":\"Fractions\"}")
+                .verifyComplete();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void serverErrorsAreRetriedWithBackoff() {
+        WebClient flakyWebClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    int attempt = upstreamCalls.incrementAndGet();
+                    if (attempt < 3) {
+                        return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+                    }
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(COMPLETION)
+                            .build());
+                })
+                .build();
+        GroqAIService service = newService(flakyWebClient);
+
+        StepVerifier.create(service.generateText("retry me", "model"))
+                .expectNext("{\"title\":\"Fractions\"}")
+                .verifyComplete();
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(2.0, meterRegistry.counter("groq.requests.retries").count());
+    }
+
+    @Test
+    void rejectedPrimaryFailsWithoutSendingTheHedge() {
+        resilience.getHedge().setEnabled(true);
+        resilience.getHedge().setDelay(Duration.ofMillis(100));
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    upstreamCalls.incrementAndGet();
+                    return Mono.delay(Duration.ofMillis(20))
+                            .map(tick -> ClientResponse.create(HttpStatus.BAD_REQUEST).build());
+                })
+                .build();
+        GroqAIService service = newService(webClient);
+
+        StepVerifier.create(service.generateText("bad request", "model"))
+                .expectNext("AI service temporarily unavailable")
+                .verifyComplete();
+        StepVerifier.create(Mono.delay(Duration.ofMillis(300))).expectNextCount(1).verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0.0, meterRegistry.counter("groq.hedge.sent").count());
+    }
+
+    @Test
+    void hedgeStartsAfterThePrimaryModelsObservedP95() {
+        resilience.getHedge().setEnabled(true);
+        resilience.getHedge().setDelay(Duration.ofSeconds(30));
+        GroqModelRouter router = new GroqModelRouter(routing, "model", meterRegistry);
+        for (int i = 0; i < 20; i++) {
+            router.recordLatency("model", Duration.ofMillis(50));
+        }
+        String hedged = "{\"choices\":[{\"message\":{\"content\":\"hedged\"}}]}";
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    boolean fallback = upstreamCalls.incrementAndGet() > 1;
+                    return Mono.delay(Duration.ofMillis(fallback ? 0 : 5000)).map(tick -> ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(fallback ? hedged : COMPLETION)
+                            .build());
+                })
+                .build();
+        GroqAIService service = newService(webClient, router);
+
+        StepVerifier.create(service.generateText("slow prompt", "model"))
+                .expectNext("hedged")
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+
+        assertEquals(1.0, meterRegistry.counter("groq.hedge.sent").count());
+        assertEquals(1.0, meterRegistry.counter("groq.hedge.won").count());
+    }
+
+    @Test
+    void structuredCallsRequestJsonModeAndBindTypedResults() {
+        String completion = "{\"id\":\"chatcmpl-1\",\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":[1,2]},"
+                + "\"choices\":[{\"index\":0,\"logprobs\":null,\"message\":{\"role\":\"assistant\","
+                + "\"content\":\"{\\\"title\\\":\\\"Fractions\\\",\\\"durationMinutes\\\":45}\"}}]}";
+        List<String> requestBodies = new CopyOnWriteArrayList<>();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requestBodies.add(bodyOf(request));
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(completion)
+                            .build());
+                })
+                .build();
+        GroqAIService service = newService(webClient);
+
+        StepVerifier.create(service.generateStructuredResponse(AITask.LESSON_PLAN, "Topic: Fractions", LessonPlan.class))
+                .expectNext(new LessonPlan("Fractions", 45))
+                .verifyComplete();
+        StepVerifier.create(service.generateText("Say hello", "model"))
+                .expectNext("{\"title\":\"Fractions\",\"durationMinutes\":45}")
+                .verifyComplete();
+
+        assertTrue(requestBodies.get(0).contains("\"response_format\":{\"type\":\"json_object\"}"));
+        assertFalse(requestBodies.get(1).contains("response_format"));
+    }
+
+    @Test
+    void structuredCallsUseTheTaskRoute() {
+        GroqRoutingProperties.Route route = new GroqRoutingProperties.Route();
+        route.setModel("small-model");
+        route.setMaxTokens(300);
+        route.setTemperature(0.2);
+        routing.getTasks().put(AITask.RISK_SCORE, route);
+        List<String> requestBodies = new CopyOnWriteArrayList<>();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requestBodies.add(bodyOf(request));
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(COMPLETION)
+                            .build());
+                })
+                .build();
+        GroqAIService service = newService(webClient);
+
+        service.generateStructuredResponse(AITask.RISK_SCORE, "risk").block();
+        service.generateStructuredResponse(AITask.LESSON_PLAN, "plan").block();
+
+        assertTrue(requestBodies.get(0).contains("\"model\":\"small-model\""));
+        assertTrue(requestBodies.get(0).contains("\"max_tokens\":300"));
+        assertTrue(requestBodies.get(0).contains("\"temperature\":0.2"));
+        assertTrue(requestBodies.get(1).contains("\"model\":\"model\""));
+        assertTrue(requestBodies.get(1).contains("\"max_tokens\":2000"));
+    }
+
+    @Test
+    void unparseableStructuredContentIsReturnedAsErrorMap() {
+        String completion = "{\"choices\":[{\"message\":{\"content\":\"Sure! Here is your plan\"}}]}";
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(completion)
+                        .build()))
+                .build();
+        GroqAIService service = newService(webClient);
+
+        StepVerifier.create(service.generateStructuredResponse(AITask.LESSON_PLAN, "Topic: Fractions"))
+                .expectNext(Map.of("error", "Failed to parse structured response", "raw_response", "Sure! Here is your plan"))
+                .verifyComplete();
+        StepVerifier.create(service.generateStructuredResponse(AITask.LESSON_PLAN, "Topic: Fractions", LessonPlan.class))
+                .expectError(GroqAIService.MalformedResponseException.class)
+                .verify();
+    }
+
+    private GroqAIService newService(WebClient webClient) {
+        return newService(webClient, new GroqModelRouter(routing, "model", meterRegistry));
+    }
+
+    private GroqAIService newService(WebClient webClient, GroqModelRouter router) {
+        return new GroqAIService(webClient, objectMapper, newCache(), newRateLimiter(),
+                new GroqCircuitBreaker(resilience, meterRegistry), router, resilience, meterRegistry);
+    }
+
+    private GroqRateLimiter newRateLimiter() {
+        return new GroqRateLimiter(new GroqRateLimitProperties(), meterRegistry);
+    }
+
+    private AIResponseCache newCache() {
+        return new AIResponseCache(cacheProperties, meterRegistry);
+    }
+
+    private static String bodyOf(ClientRequest request) {
+        MockClientHttpRequest captured = new MockClientHttpRequest(HttpMethod.POST, "/chat/completions");
+        request.body().insert(captured, new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return ExchangeStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Map.of();
+            }
+        }).block();
+        return captured.getBodyAsString().block();
+    }
+
+    private WebClient stubWebClient() {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    upstreamCalls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(COMPLETION)
+                            .build());
+                })
+                .build();
+    }
+
+    record LessonPlan(String title, Integer durationMinutes) {
+    }
+}
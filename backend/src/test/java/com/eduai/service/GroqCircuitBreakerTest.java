@@ -0,0 +1,73 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqResilienceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GroqCircuitBreakerTest {
+
+    private GroqResilienceProperties properties;
+    private GroqCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GroqResilienceProperties();
+        properties.getCircuitBreaker().setWindowSize(4);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(100));
+        properties.getCircuitBreaker().setHalfOpenCalls(1);
+        circuitBreaker = new GroqCircuitBreaker(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void opensAfterFailureRateThresholdAndFailsFast() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> failing = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("boom"));
+        });
+
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(circuitBreaker.protect(failing, error -> true)).verifyError();
+        }
+        assertEquals(GroqCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        StepVerifier.create(circuitBreaker.protect(failing, error -> true))
+                .verifyErrorMessage("Groq circuit breaker is open");
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void closesAgainAfterSuccessfulTrialCall() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.protect(Mono.error(new IllegalStateException("boom")), error -> true)
+                    .onErrorResume(error -> Mono.empty())
+                    .block();
+        }
+        Thread.sleep(150);
+        assertEquals(GroqCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        StepVerifier.create(circuitBreaker.protect(Mono.just("ok"), error -> true))
+                .expectNext("ok")
+                .verifyComplete();
+        assertEquals(GroqCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void ignoredErrorsDoNotCountAsFailures() {
+        for (int i = 0; i < 8; i++) {
+            circuitBreaker.protect(Mono.error(new IllegalArgumentException("bad request")), error -> false)
+                    .onErrorResume(error -> Mono.empty())
+                    .block();
+        }
+        assertEquals(GroqCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+}
@@ -0,0 +1,67 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqRoutingProperties;
+import com.eduai.model.enums.AITask;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GroqModelRouterTest {
+
+    private GroqRoutingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GroqRoutingProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        GroqRoutingProperties.Route route = new GroqRoutingProperties.Route();
+        route.setModel("small-model");
+        route.setMaxTokens(400);
+        properties.getTasks().put(AITask.LEARNING_STYLE, route);
+    }
+
+    @Test
+    void unsetFieldsFallBackToDefaults() {
+        GroqModelRouter router = new GroqModelRouter(properties, "large-model", meterRegistry);
+
+        assertEquals(new ModelRoute("small-model", 400, 0.7), router.route(AITask.LEARNING_STYLE));
+        assertEquals(new ModelRoute("large-model", 2000, 0.7), router.route(AITask.LESSON_PLAN));
+    }
+
+    @Test
+    void updatedRouteAppliesToTheNextCall() {
+        GroqModelRouter router = new GroqModelRouter(properties, "large-model", meterRegistry);
+        GroqRoutingProperties.Route route = new GroqRoutingProperties.Route();
+        route.setMaxTokens(3000);
+        route.setTemperature(0.4);
+
+        router.update(AITask.LESSON_PLAN, route);
+
+        assertEquals(new ModelRoute("large-model", 3000, 0.4), router.route(AITask.LESSON_PLAN));
+        route.setMaxTokens(0);
+        assertThrows(IllegalArgumentException.class, () -> router.update(AITask.LESSON_PLAN, route));
+    }
+
+    @Test
+    void slowModelIsDowngradedWhileOverTheLatencyBudget() {
+        properties.getLatencyBudget().setEnabled(true);
+        properties.getLatencyBudget().setP95Sla(Duration.ofSeconds(2));
+        properties.getLatencyBudget().setDowngradeModel("small-model");
+        GroqModelRouter router = new GroqModelRouter(properties, "large-model", meterRegistry);
+
+        router.recordLatency("large-model", Duration.ofMillis(500));
+        assertEquals("large-model", router.route(AITask.LESSON_PLAN).model());
+
+        for (int i = 0; i < 10; i++) {
+            router.recordLatency("large-model", Duration.ofSeconds(5));
+        }
+        assertEquals("small-model", router.route(AITask.LESSON_PLAN).model());
+        assertEquals(1.0, meterRegistry.counter("groq.routing.downgraded", "task", "lesson_plan").count());
+    }
+}
@@ -0,0 +1,86 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqRateLimitProperties;
+import com.eduai.model.enums.AIRequestPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GroqRateLimiterTest {
+
+    private GroqRateLimitProperties properties;
+    private GroqRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GroqRateLimitProperties();
+        properties.setInitialConcurrency(1);
+        properties.setMaxConcurrency(4);
+        rateLimiter = new GroqRateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void interactiveWaitersAreServedBeforeBackgroundWaiters() {
+        GroqRateLimiter.Permit first = rateLimiter.acquire(100).block();
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        rateLimiter.acquire(100)
+                .contextWrite(GroqRateLimiter.withPriority(AIRequestPriority.BACKGROUND))
+                .subscribe(permit -> {
+                    order.add("background");
+                    permit.release();
+                });
+        rateLimiter.acquire(100)
+                .subscribe(permit -> {
+                    order.add("interactive");
+                    permit.release();
+                });
+
+        first.release();
+
+        assertEquals(List.of("interactive", "background"), order);
+    }
+
+    @Test
+    void throttlingHalvesConcurrencyAndSuccessGrowsItAdditively() {
+        properties.setInitialConcurrency(4);
+        rateLimiter = new GroqRateLimiter(properties, new SimpleMeterRegistry());
+
+        GroqRateLimiter.Permit permit = rateLimiter.acquire(100).block();
+        permit.onError(WebClientResponseException.create(
+                HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests", new HttpHeaders(), new byte[0], null));
+        permit.release();
+        assertEquals(2.0, rateLimiter.concurrencyLimit());
+
+        permit = rateLimiter.acquire(100).block();
+        permit.onResponse(new HttpHeaders());
+        permit.release();
+        assertEquals(2.5, rateLimiter.concurrencyLimit());
+    }
+
+    @Test
+    void waitersGiveUpAfterMaxWait() {
+        properties.setMaxWait(Duration.ofMillis(50));
+        rateLimiter = new GroqRateLimiter(properties, new SimpleMeterRegistry());
+        rateLimiter.acquire(100).block();
+
+        assertThrows(RuntimeException.class, () -> rateLimiter.acquire(100).block());
+    }
+
+    @Test
+    void parsesGroqResetDurations() {
+        assertEquals(Duration.ofMillis(7660), GroqRateLimiter.parseReset("7.66s"));
+        assertEquals(Duration.ofMillis(179560), GroqRateLimiter.parseReset("2m59.56s"));
+        assertEquals(Duration.ofMillis(120), GroqRateLimiter.parseReset("120ms"));
+    }
+}
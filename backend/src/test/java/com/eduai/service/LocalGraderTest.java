@@ -0,0 +1,81 @@
+package com.eduai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalGraderTest {
+
+    private static final List<String> OPTIONS = List.of("A) Nucleus", "B) Mitochondria", "C) Ribosome");
+
+    private final LocalGrader grader = new LocalGrader(0.01, new SimpleMeterRegistry());
+
+    @Test
+    void gradesMultipleChoiceByLetterOrText() {
+        LocalGrader.AnswerKey key = new LocalGrader.AnswerKey("Multiple choice", "B", OPTIONS, null);
+
+        assertEquals(100, grade(key, "b").get("score"));
+        assertEquals(100, grade(key, "(B) Mitochondria").get("score"));
+        assertEquals(100, grade(key, "mitochondria").get("score"));
+        assertEquals(0, grade(key, "C").get("score"));
+        assertEquals("multiple-choice", grade(key, "C").get("grader"));
+    }
+
+    @Test
+    void leavesUnmatchedChoiceToLlm() {
+        LocalGrader.AnswerKey key = new LocalGrader.AnswerKey("multiple_choice", "B", OPTIONS, null);
+
+        assertTrue(grader.grade(key, "a cell makes energy there").isEmpty());
+    }
+
+    @Test
+    void gradesNumbersWithinTolerance() {
+        LocalGrader.AnswerKey key = new LocalGrader.AnswerKey("numeric", 9.81, null, null);
+
+        assertEquals(100, grade(key, "about 9.8 m/s^2").get("score"));
+        assertEquals(0, grade(key, "10.5").get("score"));
+        assertEquals(100, grade(new LocalGrader.AnswerKey("numeric", "0.75", null, null), "3/4").get("score"));
+        assertEquals(100, grade(new LocalGrader.AnswerKey(null, 1200, null, 0.0), "1,200").get("score"));
+    }
+
+    @Test
+    void gradesKeywordsProportionally() {
+        LocalGrader.AnswerKey key = new LocalGrader.AnswerKey("keywords",
+                List.of("evaporation", "condensation", "precipitation", "collection"), null, null);
+
+        Map<String, Object> result = grade(key, "Water goes through evaporation, then condensation and precipitation.");
+
+        assertEquals(75, result.get("score"));
+        assertEquals(List.of("Address collection"), result.get("improvements"));
+
+        LocalGrader.AnswerKey photosynthesis = new LocalGrader.AnswerKey("keywords", List.of("light", "chlorophyll"), null, null);
+        Map<String, Object> sentences = grade(photosynthesis, "Plants use light. Chlorophyll absorbs it.");
+
+        assertEquals(100, sentences.get("score"));
+        assertEquals(List.of(), sentences.get("improvements"));
+    }
+
+    @Test
+    void gradesTrueFalseAndExactAnswers() {
+        assertEquals(100, grade(new LocalGrader.AnswerKey("True/False", "False", null, null), "f").get("score"));
+        assertEquals(100, grade(new LocalGrader.AnswerKey("fill-in-the-blank", "Paris", null, null), " paris.").get("score"));
+        assertEquals(100, grade(new LocalGrader.AnswerKey("fill-in-the-blank", "3.14", null, null), "3.14.").get("score"));
+        assertEquals(0, grade(new LocalGrader.AnswerKey("fill-in-the-blank", "3.14", null, null), "314").get("score"));
+    }
+
+    @Test
+    void leavesOpenEndedQuestionsToLlm() {
+        assertTrue(grader.grade(new LocalGrader.AnswerKey("Essay", "Discuss causes", null, null), "Many causes").isEmpty());
+        assertTrue(grader.grade(new LocalGrader.AnswerKey("Short answer", "Osmosis", null, null), "osmosis").isEmpty());
+        assertTrue(grader.grade(null, "anything").isEmpty());
+    }
+
+    private Map<String, Object> grade(LocalGrader.AnswerKey key, String answer) {
+        return grader.grade(key, answer).orElseThrow();
+    }
+}
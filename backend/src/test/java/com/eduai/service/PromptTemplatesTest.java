@@ -0,0 +1,103 @@
+package com.eduai.service;
+
+import com.eduai.config.GroqPromptProperties;
+import com.eduai.model.enums.AITask;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PromptTemplatesTest {
+
+    private GroqPromptProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private PromptTemplates promptTemplates;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new GroqPromptProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        promptTemplates = new PromptTemplates(properties, new ObjectMapper(), meterRegistry);
+    }
+
+    @Test
+    void rendersValuesAsCompactJson() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("attendanceRate", 0.82);
+        metrics.put("missingAssignments", List.of("Essay 1", "Lab 2"));
+        metrics.put("counselorNotes", null);
+
+        String prompt = promptTemplates.prompt(AITask.EARLY_WARNING)
+                .with("studentId", 42L)
+                .with("indicators", metrics)
+                .render();
+
+        assertTrue(prompt.startsWith("Generate early warning report for student 42:\n"));
+        assertTrue(prompt.contains("Indicators: {\"attendanceRate\":0.82,\"missingAssignments\":[\"Essay 1\",\"Lab 2\"]}\n"));
+        assertFalse(prompt.contains("{{"));
+    }
+
+    @Test
+    void oversizedPayloadIsTrimmedToTheTaskBudget() {
+        properties.getMaxInputTokens().put(AITask.CLASS_PERFORMANCE, 300);
+        List<Map<String, Object>> students = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int id = i;
+            Map<String, Object> student = new LinkedHashMap<>();
+            student.put("id", id);
+            student.put("name", "Student number " + id);
+            student.put("scores", IntStream.range(0, 30).map(score -> (id + score) % 100).boxed().toList());
+            students.add(student);
+        }
+
+        String prompt = promptTemplates.prompt(AITask.CLASS_PERFORMANCE)
+                .with("classData", Map.of("students", students))
+                .render();
+
+        assertTrue(PromptTemplates.estimateTokens(prompt) <= 300);
+        assertTrue(prompt.contains("more"));
+        assertEquals(1.0, meterRegistry.counter("ai.prompt.truncated", "task", "class_performance", "method", "trimmed").count());
+    }
+
+    @Test
+    void verbatimValueIsNeverTrimmed() {
+        properties.getMaxInputTokens().put(AITask.AUTO_GRADE, 100);
+        String answer = "Photosynthesis stores the energy of light in glucose. ".repeat(40).strip();
+
+        String prompt = promptTemplates.prompt(AITask.AUTO_GRADE)
+                .with("question", "Explain photosynthesis")
+                .verbatim("studentAnswer", answer)
+                .with("rubric", "Mentions light, chlorophyll and glucose")
+                .render();
+
+        assertTrue(prompt.contains("Student Answer: " + answer + "\n"));
+        assertTrue(prompt.contains("Rubric: Mentions light, chlorophyll and glucose\n"));
+        assertEquals(0, meterRegistry.find("ai.prompt.truncated").counters().size());
+    }
+
+    @Test
+    void missingValueIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> promptTemplates.prompt(AITask.EARLY_WARNING)
+                .with("studentId", 1L)
+                .render());
+        assertThrows(IllegalArgumentException.class, () -> promptTemplates.prompt(AITask.RISK_SCORE, "no-such-template"));
+    }
+
+    @Test
+    void estimatesTokensLocally() {
+        assertEquals(0, PromptTemplates.estimateTokens(""));
+        assertEquals(2, PromptTemplates.estimateTokens("Hello world"));
+        assertEquals(7, PromptTemplates.estimateTokens("{\"score\":85}"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.eduai.service;
+
+import com.eduai.config.RiskScanProperties;
+import com.eduai.model.RiskScan;
+import com.eduai.model.RiskScore;
+import com.eduai.model.enums.RiskScanStatus;
+import com.eduai.repository.RiskScanRepository;
+import com.eduai.repository.RiskScoreRepository;
+import com.eduai.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RiskScanServiceTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private RiskScanRepository riskScanRepository;
+
+    @Mock
+    private RiskScoreRepository riskScoreRepository;
+
+    @Mock
+    private PredictiveAnalyticsService predictiveAnalyticsService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private RiskScanService riskScanService;
+    private RiskScan interrupted;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        RiskScanProperties properties = new RiskScanProperties();
+        properties.setPageSize(2);
+        riskScanService = new RiskScanService(studentRepository, riskScanRepository, riskScoreRepository,
+                predictiveAnalyticsService, properties, transactionManager, jdbcTemplate, new SimpleMeterRegistry());
+
+        interrupted = new RiskScan();
+        interrupted.setId(9L);
+        interrupted.setStatus(RiskScanStatus.RUNNING);
+        interrupted.setStartedAt(LocalDateTime.now());
+        interrupted.setTotalStudents(5L);
+        interrupted.setScoredStudents(2L);
+        interrupted.setLastStudentId(2L);
+        interrupted.setOwner("crashed-instance");
+        interrupted.setUpdatedAt(LocalDateTime.now().minusMinutes(10));
+        when(riskScanRepository.findFirstByStatusOrderByIdDesc(RiskScanStatus.RUNNING)).thenReturn(Optional.of(interrupted));
+        when(riskScanRepository.findById(9L)).thenReturn(Optional.of(interrupted));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any())).thenReturn(true);
+        when(riskScanRepository.takeOver(eq(9L), anyString(), any(), any())).thenAnswer(invocation -> {
+            if (!interrupted.getUpdatedAt().isBefore(invocation.getArgument(2))) {
+                return 0;
+            }
+            interrupted.setOwner(invocation.getArgument(1));
+            interrupted.setUpdatedAt(invocation.getArgument(3));
+            return 1;
+        });
+        when(riskScanRepository.checkpoint(eq(9L), anyString(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            if (!invocation.getArgument(1).equals(interrupted.getOwner())) {
+                return 0;
+            }
+            interrupted.setLastStudentId(invocation.getArgument(2));
+            interrupted.setScoredStudents(interrupted.getScoredStudents() + invocation.<Long>getArgument(3));
+            return 1;
+        });
+
+        List<Long> studentIds = List.of(1L, 2L, 3L, 4L, 5L);
+        when(studentRepository.findIdsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            return studentIds.stream().filter(id -> id > afterId).limit(pageable.getPageSize()).collect(Collectors.toList());
+        });
+        when(predictiveAnalyticsService.scoreStudents(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(id -> new RiskScoringEngine.RiskAssessment(id, 30.0, "medium", List.of(), 72.0, 1, 4, 0.1, null))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void interruptedScanResumesAfterLastCheckpoint() throws InterruptedException {
+        assertTrue(riskScanService.startScan().isPresent());
+
+        verify(studentRepository, timeout(5000)).findIdsAfter(eq(5L), any(Pageable.class));
+        verify(studentRepository, never()).findIdsAfter(eq(0L), any(Pageable.class));
+        waitForStatus(RiskScanStatus.COMPLETED);
+
+        ArgumentCaptor<List<RiskScore>> saved = ArgumentCaptor.forClass(List.class);
+        verify(riskScoreRepository, atLeastOnce()).saveAll(saved.capture());
+        List<Long> scored = new ArrayList<>();
+        saved.getAllValues().forEach(page -> page.forEach(score -> scored.add(score.getStudentId())));
+        assertEquals(List.of(3L, 4L, 5L), scored);
+        assertEquals(5L, interrupted.getScoredStudents());
+        assertEquals(5L, interrupted.getLastStudentId());
+    }
+
+    @Test
+    void secondScanIsRejectedWhileOneIsRunning() throws InterruptedException {
+        when(studentRepository.findIdsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return List.of();
+        });
+
+        assertTrue(riskScanService.startScan().isPresent());
+        assertTrue(riskScanService.startScan().isEmpty());
+        waitForStatus(RiskScanStatus.COMPLETED);
+    }
+
+    @Test
+    void leavesAScanRenewedByAnotherInstanceAlone() {
+        interrupted.setUpdatedAt(LocalDateTime.now().minusSeconds(30));
+
+        assertTrue(riskScanService.startScan().isEmpty());
+
+        assertEquals("crashed-instance", interrupted.getOwner());
+        verify(riskScanRepository, never()).save(any());
+        verify(studentRepository, never()).findIdsAfter(anyLong(), any(Pageable.class));
+        assertTrue(riskScanService.startScan().isEmpty(), "a refused start must not leave the scan marked running");
+    }
+
+    @Test
+    void doesNotStartWhileAnotherInstanceIsDeciding() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any())).thenReturn(false);
+
+        assertTrue(riskScanService.startScan().isEmpty());
+
+        verify(riskScanRepository, never()).takeOver(anyLong(), anyString(), any(), any());
+        verify(riskScanRepository, never()).save(any());
+    }
+
+    @Test
+    void stopsWithoutSavingScoresOnceTakenOver() throws InterruptedException {
+        when(riskScanRepository.checkpoint(eq(9L), anyString(), anyLong(), anyLong(), any())).thenReturn(0);
+
+        assertTrue(riskScanService.startScan().isPresent());
+
+        verify(riskScanRepository, timeout(5000)).checkpoint(eq(9L), anyString(), anyLong(), anyLong(), any());
+        Thread.sleep(200);
+        verify(riskScoreRepository, never()).saveAll(any());
+        verify(riskScanRepository, never()).save(any());
+        assertEquals(RiskScanStatus.RUNNING, interrupted.getStatus());
+    }
+
+    private void waitForStatus(RiskScanStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (interrupted.getStatus() != status && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(status, interrupted.getStatus());
+    }
+}
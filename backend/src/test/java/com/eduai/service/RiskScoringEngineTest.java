@@ -0,0 +1,98 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RiskScoringEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final RiskScoringEngine engine = new RiskScoringEngine();
+
+    @Test
+    void consistentOnTimeWorkIsLowRisk() {
+        List<Assignment> assignments = new ArrayList<>();
+        List<Grade> grades = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            assignments.add(assignment(i, NOW.minusDays(30 - i * 5)));
+            grades.add(grade(i, NOW.minusDays(31 - i * 5), 90.0 + i % 2, false));
+        }
+
+        RiskScoringEngine.RiskAssessment assessment = engine.score(1L, assignments, grades, NOW);
+
+        assertEquals("low", assessment.riskLevel());
+        assertTrue(assessment.primaryConcerns().isEmpty());
+        assertEquals(0, assessment.missingAssignments());
+    }
+
+    @Test
+    void studentWithoutGradesIsFlaggedRatherThanLowRisk() {
+        RiskScoringEngine.RiskAssessment assessment = engine.score(1L, List.of(), List.of(), NOW);
+
+        assertEquals(RiskScoringEngine.INSUFFICIENT_DATA, assessment.riskLevel());
+        assertEquals(1, assessment.primaryConcerns().size());
+        assertEquals(0, assessment.dueAssignments());
+        assertNull(assessment.averagePercentage());
+        assertEquals("review", assessment.interventionUrgency());
+    }
+
+    @Test
+    void failingLateAndMissingWorkIsCritical() {
+        List<Assignment> assignments = new ArrayList<>();
+        List<Grade> grades = new ArrayList<>();
+        double[] percentages = {78, 70, 61, 52, 45};
+        for (int i = 0; i < percentages.length; i++) {
+            assignments.add(assignment(i, NOW.minusDays(40 - i * 5)));
+            grades.add(grade(i, NOW.minusDays(39 - i * 5), percentages[i], i % 2 == 0));
+        }
+        assignments.add(assignment(10, NOW.minusDays(3)));
+        assignments.add(assignment(11, NOW.minusDays(1)));
+        assignments.add(assignment(12, NOW.plusDays(5)));
+
+        RiskScoringEngine.RiskAssessment assessment = engine.score(1L, assignments, grades, NOW);
+
+        assertEquals("critical", assessment.riskLevel());
+        assertEquals(2, assessment.missingAssignments());
+        assertEquals(7, assessment.dueAssignments());
+        assertTrue(assessment.trend() < -7);
+        assertEquals(4, assessment.primaryConcerns().size());
+        assertEquals("immediate", assessment.interventionUrgency());
+    }
+
+    @Test
+    void studentWithoutHistoryHasNoTrend() {
+        RiskScoringEngine.RiskAssessment assessment = engine.score(1L, List.of(), List.of(), NOW);
+
+        assertEquals(0.0, assessment.riskScore());
+        assertNull(assessment.averagePercentage());
+        assertNull(assessment.trend());
+    }
+
+    private static Assignment assignment(long id, LocalDateTime dueDate) {
+        Assignment assignment = new Assignment();
+        assignment.setId(id);
+        assignment.setCourseId(7L);
+        assignment.setDueDate(dueDate);
+        assignment.setIsPublished(true);
+        return assignment;
+    }
+
+    private static Grade grade(long assignmentId, LocalDateTime submittedAt, double percentage, boolean late) {
+        Grade grade = new Grade();
+        grade.setStudentId(1L);
+        grade.setAssignmentId(assignmentId);
+        grade.setSubmittedAt(submittedAt);
+        grade.setPercentage(percentage);
+        grade.setIsLate(late);
+        return grade;
+    }
+}
@@ -0,0 +1,87 @@
+package com.eduai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScoreSketchTest {
+
+    @Test
+    void matchesExactStatisticsWithinHalfAPoint() {
+        Random random = new Random(42);
+        double[] scores = new double[2000];
+        ScoreSketch sketch = new ScoreSketch();
+        double sum = 0;
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = Math.min(100, Math.max(0, 75 + random.nextGaussian() * 12));
+            sketch.add(scores[i]);
+            sum += scores[i];
+        }
+        Arrays.sort(scores);
+
+        assertEquals(sum / scores.length, sketch.mean(), 1e-9);
+        assertEquals(scores[scores.length / 2], sketch.quantile(0.5), 0.5);
+        assertEquals(scores[scores.length / 10], sketch.quantile(0.1), 0.5);
+        assertEquals(scores[scores.length * 9 / 10], sketch.quantile(0.9), 0.5);
+    }
+
+    @Test
+    void removingAScoreRestoresThePreviousState() {
+        ScoreSketch sketch = new ScoreSketch();
+        List.of(60.0, 70.0, 80.0).forEach(sketch::add);
+        double standardDeviation = sketch.standardDeviation();
+
+        sketch.add(95.5);
+        sketch.remove(95.5);
+
+        assertEquals(3, sketch.count());
+        assertEquals(70.0, sketch.mean(), 1e-9);
+        assertEquals(standardDeviation, sketch.standardDeviation(), 1e-9);
+        assertThrows(IllegalStateException.class, () -> sketch.remove(12.0));
+    }
+
+    @Test
+    void mergedSketchEqualsOneBuiltFromAllScores() {
+        ScoreSketch first = new ScoreSketch();
+        ScoreSketch second = new ScoreSketch();
+        ScoreSketch all = new ScoreSketch();
+        for (int i = 0; i < 50; i++) {
+            double score = 40 + i;
+            (i % 3 == 0 ? first : second).add(score);
+            all.add(score);
+        }
+
+        first.merge(second);
+
+        assertEquals(all.count(), first.count());
+        assertEquals(all.mean(), first.mean(), 1e-9);
+        assertEquals(all.standardDeviation(), first.standardDeviation(), 1e-9);
+        assertEquals(all.quantile(0.25), first.quantile(0.25), 1e-9);
+    }
+
+    @Test
+    void encodesCompactlyAndDecodesToTheSameSketch() {
+        ScoreSketch sketch = new ScoreSketch();
+        List.of(55.0, 88.5, 88.5, 92.0, 104.0).forEach(sketch::add);
+
+        byte[] encoded = sketch.encode();
+        ScoreSketch decoded = ScoreSketch.decode(encoded);
+
+        assertTrue(encoded.length < 40, "encoded to " + encoded.length + " bytes");
+        assertEquals(sketch.count(), decoded.count());
+        assertEquals(sketch.mean(), decoded.mean(), 0);
+        assertEquals(sketch.quantile(0.5), decoded.quantile(0.5), 0);
+        List<Map<String, Object>> histogram = decoded.histogram();
+        assertEquals(11, histogram.size());
+        assertEquals(2L, histogram.get(8).get("count"));
+        assertEquals(1L, histogram.get(9).get("count"));
+        assertEquals(1L, histogram.get(10).get("count"));
+    }
+}
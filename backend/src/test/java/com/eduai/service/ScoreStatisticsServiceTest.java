@@ -0,0 +1,189 @@
+package com.eduai.service;
+
+import com.eduai.model.Assignment;
+import com.eduai.model.AssignmentScoreStats;
+import com.eduai.model.Grade;
+import com.eduai.repository.AssignmentRepository;
+import com.eduai.repository.AssignmentScoreStatsRepository;
+import com.eduai.repository.GradeRepository;
+import com.eduai.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScoreStatisticsServiceTest {
+
+    @Mock
+    private AssignmentScoreStatsRepository assignmentScoreStatsRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @InjectMocks
+    private ScoreStatisticsService scoreStatisticsService;
+
+    private Assignment assignment;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        assignment = new Assignment();
+        assignment.setId(10L);
+        assignment.setCourseId(3L);
+        when(studentRepository.findStandingsByIdIn(anyCollection())).thenReturn(List.of());
+    }
+
+    @Test
+    void appliesARegradeToTheStoredSketch() {
+        ScoreSketch stored = new ScoreSketch();
+        List.of(70.0, 80.0).forEach(stored::add);
+        AssignmentScoreStats stats = new AssignmentScoreStats();
+        stats.setSketch(stored.encode());
+        when(assignmentScoreStatsRepository.existsByAssignmentId(10L)).thenReturn(true);
+        when(assignmentScoreStatsRepository.findForUpdate(10L, ScoreStatisticsService.NO_GRADE_LEVEL))
+                .thenReturn(Optional.of(stats));
+
+        scoreStatisticsService.recordScoreChanges(assignment,
+                List.of(new ScoreStatisticsService.ScoreChange(1L, 70.0, 90.0)));
+
+        ScoreSketch updated = ScoreSketch.decode(stats.getSketch());
+        assertEquals(2L, stats.getScoreCount());
+        assertEquals(85.0, updated.mean(), 1e-9);
+        verify(assignmentScoreStatsRepository, never()).insertIfAbsent(any(), any(), any(), any());
+    }
+
+    @Test
+    void rebuildsFromGradesWhenTheSketchIsMissingTheOldScore() {
+        AssignmentScoreStats stats = new AssignmentScoreStats();
+        stats.setGradeLevel(ScoreStatisticsService.NO_GRADE_LEVEL);
+        stats.setSketch(new ScoreSketch().encode());
+        when(assignmentScoreStatsRepository.existsByAssignmentId(10L)).thenReturn(true);
+        when(assignmentScoreStatsRepository.findForUpdate(10L, ScoreStatisticsService.NO_GRADE_LEVEL))
+                .thenReturn(Optional.of(stats));
+        when(assignmentScoreStatsRepository.findByAssignmentId(10L)).thenReturn(List.of(stats));
+        when(gradeRepository.findByAssignmentId(10L)).thenReturn(List.of(grade(1L, 90.0)));
+
+        scoreStatisticsService.recordScoreChanges(assignment,
+                List.of(new ScoreStatisticsService.ScoreChange(1L, 70.0, 90.0)));
+
+        assertEquals(1L, stats.getScoreCount());
+        assertEquals(90.0, ScoreSketch.decode(stats.getSketch()).mean(), 1e-9);
+        assertEquals(3L, stats.getCourseId());
+        verify(assignmentScoreStatsRepository, never()).deleteAll(anyList());
+    }
+
+    @Test
+    void concurrentFirstGradesOfANewAssignmentDoNotCollide() throws Exception {
+        // An in-memory table with a unique (assignment, grade level) key and row locks held until the
+        // calling thread's transaction ends
+        Map<String, AssignmentScoreStats> table = new ConcurrentHashMap<>();
+        Map<String, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+        ThreadLocal<List<ReentrantLock>> held = ThreadLocal.withInitial(ArrayList::new);
+        List<Grade> committed = new CopyOnWriteArrayList<>();
+        ThreadLocal<Grade> ownGrade = new ThreadLocal<>();
+        CountDownLatch bothChecked = new CountDownLatch(2);
+
+        when(assignmentScoreStatsRepository.existsByAssignmentId(10L)).thenAnswer(invocation -> {
+            boolean exists = !table.isEmpty();
+            bothChecked.countDown();
+            bothChecked.await(5, TimeUnit.SECONDS);
+            return exists;
+        });
+        when(assignmentScoreStatsRepository.insertIfAbsent(eq(10L), eq(3L), anyString(), any())).thenAnswer(invocation -> {
+            AssignmentScoreStats stats = new AssignmentScoreStats();
+            stats.setAssignmentId(10L);
+            stats.setGradeLevel(invocation.getArgument(2));
+            stats.setSketch(invocation.getArgument(3));
+            return table.putIfAbsent(stats.getGradeLevel(), stats) == null ? 1 : 0;
+        });
+        when(assignmentScoreStatsRepository.findForUpdate(eq(10L), anyString())).thenAnswer(invocation -> {
+            String gradeLevel = invocation.getArgument(1);
+            ReentrantLock lock = rowLocks.computeIfAbsent(gradeLevel, key -> new ReentrantLock());
+            if (table.containsKey(gradeLevel) && !lock.isHeldByCurrentThread()) {
+                lock.lock();
+                held.get().add(lock);
+            }
+            return Optional.ofNullable(table.get(gradeLevel));
+        });
+        when(assignmentScoreStatsRepository.findByAssignmentId(10L)).thenAnswer(invocation -> List.copyOf(table.values()));
+        when(assignmentScoreStatsRepository.save(any(AssignmentScoreStats.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(gradeRepository.findByAssignmentId(10L)).thenAnswer(invocation -> {
+            List<Grade> visible = new ArrayList<>(committed);
+            visible.add(ownGrade.get());
+            return visible;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<?>> transactions = new ArrayList<>();
+        for (long studentId = 1; studentId <= 2; studentId++) {
+            Grade grade = grade(studentId, 60.0 + studentId * 10);
+            transactions.add(executor.submit(() -> {
+                ownGrade.set(grade);
+                try {
+                    scoreStatisticsService.recordScoreChanges(assignment,
+                            List.of(new ScoreStatisticsService.ScoreChange(grade.getStudentId(), null, grade.getPercentage())));
+                    committed.add(grade);
+                } finally {
+                    held.get().forEach(ReentrantLock::unlock);
+                    held.get().clear();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> transaction : transactions) {
+            transaction.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(1, table.size());
+        ScoreSketch sketch = ScoreSketch.decode(table.get(ScoreStatisticsService.NO_GRADE_LEVEL).getSketch());
+        assertEquals(2L, sketch.count());
+        assertEquals(75.0, sketch.mean(), 1e-9);
+    }
+
+    @Test
+    void createsTheTrackingRowWithTheAssignment() {
+        scoreStatisticsService.recordAssignmentCreated(assignment);
+
+        verify(assignmentScoreStatsRepository).insertIfAbsent(eq(10L), eq(3L), eq(ScoreStatisticsService.NO_GRADE_LEVEL), any());
+    }
+
+    private static Grade grade(Long studentId, Double percentage) {
+        Grade grade = new Grade();
+        grade.setStudentId(studentId);
+        grade.setAssignmentId(10L);
+        grade.setPercentage(percentage);
+        return grade;
+    }
+}
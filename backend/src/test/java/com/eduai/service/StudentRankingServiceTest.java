@@ -0,0 +1,141 @@
+package com.eduai.service;
+
+import com.eduai.repository.CourseGradeSummaryRepository;
+import com.eduai.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StudentRankingServiceTest {
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private CourseGradeSummaryRepository courseGradeSummaryRepository;
+
+    @Mock
+    private CourseGradeSummaryService courseGradeSummaryService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private StudentRankingService studentRankingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        studentRankingService = new StudentRankingService(studentRepository, courseGradeSummaryRepository,
+                courseGradeSummaryService, jdbcTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void ranksHighestGpaFirstWithTiesSharingARank() {
+        int[] ranks = StudentRankingService.rank(new double[]{3.2, 3.9, Double.NaN, 3.2, 2.5});
+
+        assertArrayEquals(new int[]{2, 1, 0, 2, 4}, ranks);
+    }
+
+    @Test
+    void averagesGradePointsOfEachCourse() {
+        Map<Long, Double> gpas = StudentRankingService.gpas(List.of(
+                new FinalGrade(1L, 9150.0, 100.0),
+                new FinalGrade(1L, 84.0, 1.0),
+                new FinalGrade(2L, 0.0, 0.0)));
+
+        assertEquals(3.35, gpas.get(1L));
+        assertEquals(0.0, gpas.get(2L));
+    }
+
+    @Test
+    void shiftsOnlyTheStudentsBetweenTheOldAndNewGpa() {
+        when(studentRepository.findStandingById(7L)).thenReturn(Optional.of(new Standing(7L, "10", 3.0, 12)));
+        when(courseGradeSummaryRepository.findFinalGradesByStudentIdIn(List.of(7L)))
+                .thenReturn(List.of(new FinalGrade(7L, 95.0, 1.0)));
+        when(studentRepository.countRankedAbove("10", 4.0, 7L)).thenReturn(2L);
+
+        studentRankingService.recordGradeChanges(List.of(7L));
+
+        verify(studentRepository).shiftRanks("10", 3.0, 4.0, 7L, 1);
+        verify(studentRepository).updateStanding(7L, 4.0, 3);
+    }
+
+    @Test
+    void reranksTheWholeGradeLevelWhenTheStudentWasNeverRanked() {
+        when(studentRepository.findStandingById(7L)).thenReturn(Optional.of(new Standing(7L, "10", 3.5, null)));
+        when(courseGradeSummaryRepository.findFinalGradesByStudentIdIn(List.of(7L)))
+                .thenReturn(List.of(new FinalGrade(7L, 95.0, 1.0)));
+        when(studentRepository.findStandingsByGradeLevel("10")).thenReturn(List.of(
+                new Standing(7L, "10", 4.0, null),
+                new Standing(8L, "10", 3.7, 1)));
+
+        studentRankingService.recordGradeChanges(List.of(7L));
+
+        verify(studentRepository, never()).shiftRanks(anyString(), anyDouble(), anyDouble(), anyLong(), anyInt());
+        List<Object[]> rows = captureBatch("UPDATE students SET class_rank = ? WHERE id = ?");
+        assertEquals(2, rows.size());
+        assertArrayEquals(new Object[]{1, 7L}, rows.get(0));
+        assertArrayEquals(new Object[]{2, 8L}, rows.get(1));
+    }
+
+    @Test
+    void rebuildWritesOnlyChangedStandings() {
+        when(courseGradeSummaryRepository.findAllFinalGrades()).thenReturn(List.of(
+                new FinalGrade(1L, 95.0, 1.0),
+                new FinalGrade(2L, 85.0, 1.0),
+                new FinalGrade(3L, 95.0, 1.0)));
+        when(studentRepository.findAllStandings()).thenReturn(List.of(
+                new Standing(1L, "9", 4.0, 1),
+                new Standing(2L, "9", 3.0, 1),
+                new Standing(3L, "10", null, null),
+                new Standing(4L, null, 2.0, 5)));
+
+        Map<String, Object> report = studentRankingService.rebuild(false);
+
+        assertEquals(4, report.get("students"));
+        assertEquals(2, report.get("gradeLevels"));
+        assertEquals(3, report.get("updated"));
+        List<Object[]> rows = new ArrayList<>(captureBatch("UPDATE students SET gpa = ?, class_rank = ? WHERE id = ?"));
+        rows.sort((a, b) -> Long.compare((Long) a[2], (Long) b[2]));
+        assertArrayEquals(new Object[]{3.0, 2, 2L}, rows.get(0));
+        assertArrayEquals(new Object[]{4.0, 1, 3L}, rows.get(1));
+        assertArrayEquals(new Object[]{null, null, 4L}, rows.get(2));
+        verify(courseGradeSummaryService, never()).verify(any(), eq(true));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> captureBatch(String sql) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(sql), rows.capture());
+        return rows.getValue();
+    }
+
+    private record FinalGrade(Long getStudentId, Double getWeightedPoints, Double getTotalWeight)
+            implements CourseGradeSummaryRepository.FinalGrade {
+    }
+
+    private record Standing(Long getId, String getGradeLevel, Double getGpa, Integer getClassRank)
+            implements StudentRepository.Standing {
+    }
+}
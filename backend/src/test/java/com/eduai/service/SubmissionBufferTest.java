@@ -0,0 +1,271 @@
+package com.eduai.service;
+
+import com.eduai.config.SubmissionBufferProperties;
+import com.eduai.model.Assignment;
+import com.eduai.model.Grade;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SubmissionBufferTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private GradebookService gradebookService;
+
+    @Mock
+    private EntityCache entityCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SubmissionBuffer submissionBuffer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Assignment assignment = new Assignment();
+        assignment.setId(10L);
+        assignment.setDueDate(LocalDateTime.now().minusHours(1));
+        when(entityCache.findAssignment(10L)).thenReturn(Optional.of(assignment));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (submissionBuffer != null) {
+            submissionBuffer.stop();
+        }
+    }
+
+    @Test
+    void logRecoversOnlyRecordsAfterTheCheckpointAndSkipsTornLines() throws Exception {
+        SubmissionLog log = new SubmissionLog(directory, 200, objectMapper);
+        log.recover();
+        for (int i = 0; i < 6; i++) {
+            log.append(objectMapper.createObjectNode().put("studentId", i));
+        }
+        log.commit(4);
+        log.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            Path last = files.filter(file -> file.getFileName().toString().startsWith("submissions-"))
+                    .sorted().reduce((first, second) -> second).orElseThrow();
+            Files.writeString(last, "{\"seq\":7,\"stud", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+
+        SubmissionLog reopened = new SubmissionLog(directory, 200, objectMapper);
+        List<SubmissionLog.Entry> pending = reopened.recover();
+
+        assertEquals(List.of(5L, 6L), pending.stream().map(SubmissionLog.Entry::seq).toList());
+        assertEquals(7L, reopened.append(objectMapper.createObjectNode()));
+        reopened.close();
+    }
+
+    @Test
+    void acknowledgesLateSubmissionsAndSavesTheLatestPerStudentAndAssignment() throws Exception {
+        submissionBuffer = buffer();
+        // Buffer two submissions for the same student before the drainer runs
+        SubmissionLog log = new SubmissionLog(directory, 1 << 20, objectMapper);
+        log.recover();
+        log.append(submission(1L, "first draft"));
+        log.append(submission(1L, "final"));
+        log.append(submission(2L, "mine"));
+        log.close();
+
+        submissionBuffer.start();
+        Map<String, Object> ack = submissionBuffer.accept(grade(3L)).orElseThrow();
+
+        assertEquals(true, ack.get("isLate"));
+        assertEquals("ACCEPTED", ack.get("status"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Grade>> saved = ArgumentCaptor.forClass(List.class);
+        verify(gradebookService, timeout(2000).atLeastOnce()).saveSubmissions(saved.capture());
+        List<Grade> firstBatch = saved.getAllValues().get(0);
+        assertEquals(List.of("final", "mine"), firstBatch.stream()
+                .filter(grade -> grade.getStudentId() < 3).map(Grade::getSubmissionText).toList());
+    }
+
+    @Test
+    void recoversEverythingAcceptedButNotSavedWhenAcceptsRace() throws Exception {
+        Set<Long> savedStudents = ConcurrentHashMap.newKeySet();
+        CountDownLatch firstBatchSaved = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(gradebookService.saveSubmissions(anyList())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() > 60) {
+                never.await();
+            }
+            List<Grade> grades = invocation.getArgument(0);
+            grades.forEach(grade -> savedStudents.add(grade.getStudentId()));
+            firstBatchSaved.countDown();
+            return grades;
+        });
+        submissionBuffer = buffer(2);
+        submissionBuffer.start();
+
+        // Distinct students, so every accepted submission is saved as its own grade
+        Map<Long, Long> seqByStudent = new ConcurrentHashMap<>();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> accepts = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            long offset = thread * 1000L;
+            accepts.add(executor.submit(() -> {
+                go.await();
+                for (long student = offset; student < offset + 50; student++) {
+                    Map<String, Object> ack = submissionBuffer.accept(grade(student)).orElseThrow();
+                    seqByStudent.put(student, (Long) ack.get("submissionId"));
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> accept : accepts) {
+            accept.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(firstBatchSaved.await(5, TimeUnit.SECONDS));
+        submissionBuffer.stop();
+        submissionBuffer = null;
+
+        SubmissionLog reopened = new SubmissionLog(directory, 1 << 20, objectMapper);
+        Set<Long> recovered = new HashSet<>();
+        reopened.recover().forEach(entry -> recovered.add(entry.seq()));
+        reopened.close();
+        Set<Long> expected = new HashSet<>();
+        seqByStudent.forEach((student, seq) -> {
+            if (!savedStudents.contains(student)) {
+                expected.add(seq);
+            }
+        });
+        assertEquals(expected, recovered);
+    }
+
+    @Test
+    void setsAsideSubmissionsTheDatabaseKeepsRejecting() throws Exception {
+        doThrow(new IllegalArgumentException("constraint violated")).when(gradebookService).saveSubmissions(anyList());
+        submissionBuffer = buffer();
+        submissionBuffer.start();
+
+        submissionBuffer.accept(grade(1L));
+
+        verify(gradebookService, timeout(2000).times(2)).saveSubmissions(anyList());
+        Path deadLetters = directory.resolve("rejected.ndjson");
+        for (int i = 0; i < 20 && !Files.exists(deadLetters); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(Files.readString(deadLetters).contains("constraint violated"));
+    }
+
+    @Test
+    void keepsRetryingASubmissionWhileTheDatabaseIsUnavailable() throws Exception {
+        AtomicInteger individualCalls = new AtomicInteger();
+        when(gradebookService.saveSubmissions(anyList())).thenAnswer(invocation -> {
+            List<Grade> grades = invocation.getArgument(0);
+            if (grades.size() > 1) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            if (individualCalls.incrementAndGet() <= 3) {
+                throw new CannotCreateTransactionException("Could not open JPA EntityManager for transaction");
+            }
+            return grades;
+        });
+        submissionBuffer = buffer();
+        // Two submissions already in the log, so the drainer tries them as one batch first
+        SubmissionLog log = new SubmissionLog(directory, 1 << 20, objectMapper);
+        log.recover();
+        log.append(submission(1L, "first"));
+        log.append(submission(2L, "second"));
+        log.close();
+
+        submissionBuffer.start();
+
+        verify(gradebookService, timeout(5000).times(6)).saveSubmissions(anyList());
+        Thread.sleep(100);
+        assertFalse(Files.exists(directory.resolve("rejected.ndjson")));
+        assertEquals(5, individualCalls.get());
+    }
+
+    @Test
+    void treatsLostConnectionsAsOutagesAndConstraintViolationsAsRejections() {
+        SQLException reset = new SQLException("An I/O error occurred while sending to the backend", "08006");
+        assertTrue(SubmissionBuffer.isUnavailable(new JpaSystemException(new RuntimeException(reset))));
+        assertTrue(SubmissionBuffer.isUnavailable(new DataAccessResourceFailureException("Connection refused")));
+        assertTrue(SubmissionBuffer.isUnavailable(new CannotCreateTransactionException("Could not open connection")));
+        assertFalse(SubmissionBuffer.isUnavailable(new DataIntegrityViolationException("violates foreign key constraint")));
+        assertFalse(SubmissionBuffer.isUnavailable(new IllegalStateException("Malformed buffered submission 4")));
+    }
+
+    private SubmissionBuffer buffer() {
+        return buffer(500);
+    }
+
+    private SubmissionBuffer buffer(int batchSize) {
+        SubmissionBufferProperties properties = new SubmissionBufferProperties();
+        properties.setEnabled(true);
+        properties.setBatchSize(batchSize);
+        properties.setDirectory(directory.toString());
+        properties.setRetryInterval(Duration.ofMillis(20));
+        return new SubmissionBuffer(properties, gradebookService, entityCache, objectMapper,
+                new SimpleMeterRegistry());
+    }
+
+    private ObjectNode submission(Long studentId, String text) {
+        return objectMapper.createObjectNode()
+                .put("studentId", studentId)
+                .put("assignmentId", 10L)
+                .put("submissionText", text)
+                .put("submittedAt", LocalDateTime.now().toString())
+                .put("isLate", false);
+    }
+
+    private static Grade grade(Long studentId) {
+        Grade grade = new Grade();
+        grade.setStudentId(studentId);
+        grade.setAssignmentId(10L);
+        grade.setSubmissionText("answer");
+        return grade;
+    }
+}